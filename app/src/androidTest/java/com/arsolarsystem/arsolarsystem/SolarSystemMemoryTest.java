@@ -0,0 +1,121 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.Manifest;
+import android.app.Instrumentation;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.rule.GrantPermissionRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented measurement of the memory cost of placing 1, 4 and 16 solar systems, which share
+ * their renderables and one orbital clock.
+ *
+ * <p>Needs an ARCore device with a textured, well lit surface in front of the camera, the systems
+ * are placed on the plane at the center of the screen. Run it with
+ *
+ * <pre>
+ * ./gradlew connectedAndroidTest \
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.arsolarsystem.arsolarsystem.SolarSystemMemoryTest
+ * adb pull /sdcard/Android/data/com.arsolarsystem.arsolarsystem/files/system_memory.csv
+ * </pre>
+ *
+ * <p>After each count the models are given time to attach, the heap is collected, and the Java
+ * heap in use, the native heap allocated and the Dalvik, native, graphics and total PSS are
+ * written to system_memory.csv and logged under the SystemMemory tag.
+ *
+ * <p>This is a measurement harness only. It asserts nothing about the numbers it records, and it
+ * has not been run: there are no results for any device, so nothing here shows how much sharing
+ * the renderables between systems saves. To show that, run it on a build that shares them and one
+ * that doesn't, and compare the two files.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SolarSystemMemoryTest {
+    private static final String TAG = "SystemMemory";
+    private static final int[] SYSTEM_COUNTS = {1, 4, 16};
+    private static final long PLANE_TIMEOUT_MILLIS = 60_000L;
+    // Planet models attach as they load, give them time before measuring.
+    private static final long SETTLE_MILLIS = 5_000L;
+
+    @Rule
+    public final GrantPermissionRule cameraPermission = GrantPermissionRule.grant(Manifest.permission.CAMERA);
+
+    @Rule
+    public final ActivityTestRule<SolarActivity> activityRule = new ActivityTestRule<>(SolarActivity.class);
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void placeSolarSystems_recordsMemoryPerCount() throws IOException {
+        SolarActivity activity = activityRule.getActivity();
+        File output = new File(activity.getExternalFilesDir(null), "system_memory.csv");
+        try (Writer writer = new FileWriter(output)) {
+            writer.write("systems,java_heap_kb,native_heap_kb,dalvik_pss_kb,native_pss_kb,graphics_pss_kb,total_pss_kb\n");
+            for (int count : SYSTEM_COUNTS) {
+                placeUntil(activity, count);
+                SystemClock.sleep(SETTLE_MILLIS);
+                String row = count + "," + measure();
+                Log.i(TAG, row);
+                writer.write(row + "\n");
+            }
+        }
+    }
+
+    /** Places systems at the center of the screen until there are the given number. */
+    private void placeUntil(SolarActivity activity, int count) {
+        long deadline = SystemClock.uptimeMillis() + PLANE_TIMEOUT_MILLIS;
+        int[] placed = new int[1];
+        while (true) {
+            instrumentation.runOnMainSync(() -> {
+                if (activity.hasFinishedLoading() && activity.getPlacedSolarSystems() < count) {
+                    View view = activity.findViewById(R.id.ar_scene_view);
+                    long now = SystemClock.uptimeMillis();
+                    MotionEvent tap = MotionEvent.obtain(
+                            now, now, MotionEvent.ACTION_UP, view.getWidth() / 2f, view.getHeight() / 2f, 0);
+                    activity.placeSolarSystem(tap);
+                    tap.recycle();
+                }
+                placed[0] = activity.getPlacedSolarSystems();
+            });
+            if (placed[0] >= count) {
+                return;
+            }
+            assertTrue("no plane to place " + count + " systems on, point the camera at a surface",
+                    SystemClock.uptimeMillis() < deadline);
+            SystemClock.sleep(200);
+        }
+    }
+
+    private static String measure() {
+        // Twice, so objects freed by finalizers in the first pass are collected too.
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.runFinalization();
+        runtime.gc();
+        long javaHeapKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        long nativeHeapKb = Debug.getNativeHeapAllocatedSize() / 1024;
+        Debug.MemoryInfo memoryInfo = new Debug.MemoryInfo();
+        Debug.getMemoryInfo(memoryInfo);
+        return javaHeapKb + "," + nativeHeapKb
+                + "," + memoryInfo.dalvikPss
+                + "," + memoryInfo.nativePss
+                + "," + memoryInfo.getMemoryStat("summary.graphics")
+                + "," + memoryInfo.getTotalPss();
+    }
+}
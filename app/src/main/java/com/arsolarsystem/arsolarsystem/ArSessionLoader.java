@@ -0,0 +1,72 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.ar.core.Session;
+import com.google.ar.core.exceptions.UnavailableException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates and configures the ARCore session on a background thread, and keeps it until the
+ * activity finishes for good.
+ *
+ * <p>Constructing and configuring a session takes long enough to freeze the first frames when done
+ * on the main thread. The activity hands the loader over to its next instance on a configuration
+ * change, so a rotated activity attaches the same session instead of creating another. The
+ * session is made with the application context, so keeping it does not keep the old activity.
+ */
+class ArSessionLoader {
+    // Frame trace entry for constructing and configuring the session.
+    private static final String SESSION_TRACE = "session_create";
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private CompletableFuture<Session> sessionStage;
+
+    public ArSessionLoader(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Starts creating the session unless it is created or underway, and returns it. A failed
+     * attempt is tried again. Only call this once {@link PermissionHelper#isARCoreReady} is true.
+     */
+    public CompletableFuture<Session> load() {
+        if (sessionStage == null || sessionStage.isCompletedExceptionally()) {
+            long start = System.nanoTime();
+            sessionStage = CompletableFuture.supplyAsync(this::create, executor);
+            // The frame trace is only written from the main thread.
+            sessionStage.thenRunAsync(
+                    () -> FrameProfiler.recordLoad(SESSION_TRACE, System.nanoTime() - start), mainHandler::post);
+        }
+        return sessionStage;
+    }
+
+    /** Returns whether the session is created and ready to attach. */
+    public boolean hasSession() {
+        return sessionStage != null && sessionStage.isDone() && !sessionStage.isCompletedExceptionally();
+    }
+
+    /** Closes the session, once created, and stops the loader's thread. */
+    public void close() {
+        if (sessionStage != null) {
+            sessionStage.thenAccept(Session::close);
+        }
+        executor.shutdown();
+    }
+
+    private Session create() {
+        try {
+            return PermissionHelper.createARSession(context);
+        } catch (UnavailableException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
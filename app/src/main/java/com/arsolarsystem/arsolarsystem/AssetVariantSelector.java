@@ -0,0 +1,122 @@
+package com.arsolarsystem.arsolarsystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Picks the full or the lite variant of every model from the asset manifest written at build time.
+ *
+ * <p>Models get their full variant in priority order for as long as their texture memory fits in a
+ * budget derived from the device's RAM. Low RAM devices and GPUs older than OpenGL ES 3.1 get the
+ * lite variants. Assets missing from the manifest always resolve to themselves. Both variants are
+ * bundled in the APK, so picking the lite one saves texture memory and decode time, not storage.
+ */
+final class AssetVariantSelector {
+    static final String MANIFEST = "asset_variants.csv";
+
+    // Part of the device RAM the full textures may take.
+    private static final long TEXTURE_BUDGET_DIVISOR = 32L;
+    // OpenGL ES version as reported by ConfigurationInfo, major version in the upper 16 bits.
+    private static final int GLES_3_1 = 0x30001;
+
+    private static final class Variant {
+        final String asset;
+        final long textureMemory;
+
+        Variant(String asset, long textureMemory) {
+            this.asset = asset;
+            this.textureMemory = textureMemory;
+        }
+    }
+
+    // Both variants of every body, keyed by the asset name of the full variant.
+    private final Map<String, Variant> fullVariants = new HashMap<>();
+    private final Map<String, Variant> liteVariants = new HashMap<>();
+    private final Map<String, String> selected = new HashMap<>();
+
+    /** Returns a selector that knows no variants, every asset resolves to itself. */
+    static AssetVariantSelector empty() {
+        return new AssetVariantSelector();
+    }
+
+    /**
+     * Reads a manifest with one row per body and variant:
+     * {@code body,variant,asset,texture_bytes,texture_memory_bytes,decode_us}. Lines
+     * starting with # are comments.
+     */
+    static AssetVariantSelector parse(Reader manifest) throws IOException {
+        Map<String, Variant> fullByBody = new HashMap<>();
+        Map<String, Variant> liteByBody = new HashMap<>();
+        BufferedReader reader = new BufferedReader(manifest);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split(",");
+            if (columns.length < 5) {
+                throw new IOException("Malformed manifest row: " + line);
+            }
+            Variant variant;
+            try {
+                variant = new Variant(columns[2], Long.parseLong(columns[4]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed manifest row: " + line, e);
+            }
+            if ("full".equals(columns[1])) {
+                fullByBody.put(columns[0], variant);
+            } else if ("lite".equals(columns[1])) {
+                liteByBody.put(columns[0], variant);
+            }
+        }
+
+        AssetVariantSelector selector = new AssetVariantSelector();
+        for (Map.Entry<String, Variant> entry : fullByBody.entrySet()) {
+            Variant lite = liteByBody.get(entry.getKey());
+            if (lite != null) {
+                Variant full = entry.getValue();
+                selector.fullVariants.put(full.asset, full);
+                selector.liteVariants.put(full.asset, lite);
+            }
+        }
+        return selector;
+    }
+
+    private AssetVariantSelector() {
+    }
+
+    /**
+     * Picks the variant of every asset for the device.
+     *
+     * @param glEsVersion - OpenGL ES version, major version in the upper 16 bits.
+     * @param totalMemoryBytes - RAM of the device.
+     * @param isLowRamDevice - whether the system considers this a low RAM device.
+     * @param assets - full asset names in priority order, earlier assets get the full variant first.
+     */
+    void select(int glEsVersion, long totalMemoryBytes, boolean isLowRamDevice, String... assets) {
+        selected.clear();
+        long budget = isLowRamDevice || glEsVersion < GLES_3_1 ? 0L : totalMemoryBytes / TEXTURE_BUDGET_DIVISOR;
+        for (String asset : assets) {
+            Variant full = fullVariants.get(asset);
+            if (full == null) {
+                continue;
+            }
+            if (full.textureMemory <= budget) {
+                budget -= full.textureMemory;
+            } else {
+                Variant lite = liteVariants.get(asset);
+                selected.put(asset, lite.asset);
+                budget = Math.max(0L, budget - lite.textureMemory);
+            }
+        }
+    }
+
+    /** Returns the asset path of the variant picked for the given full asset name. */
+    String resolve(String asset) {
+        String variant = selected.get(asset);
+        return variant != null ? variant : asset;
+    }
+}
@@ -0,0 +1,196 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+import com.arsolarsystem.arsolarsystem.simulation.BeltSnapshot;
+import com.arsolarsystem.arsolarsystem.simulation.SimulatedBelt;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+import com.google.ar.sceneform.rendering.RenderableDefinition;
+import com.google.ar.sceneform.rendering.RenderableDefinition.Submesh;
+import com.google.ar.sceneform.rendering.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single renderable holding every body of an {@link AsteroidBelt}.
+ *
+ * <p>Each body is a small octahedron and all of them are batched into one mesh, so a belt is one
+ * draw call no matter how many {@link BeltNode}s show it. The vertex list is built once, from the
+ * belt's first snapshot, which already has the bodies at time 0. The orbits are solved on the
+ * simulation thread, see {@link SimulatedBelt}, which only publishes a new solve once the belt has
+ * visibly moved; only then are the vertex positions moved and the mesh re-uploaded.
+ *
+ * <p>A share of the bodies can be hidden to save work, they are collapsed to a point and no longer
+ * solved.
+ */
+class BeltMesh {
+    // Octahedron shared by every body, unit radius. The normals are the same as the positions.
+    private static final float[][] MESH_VERTICES = {
+            {1.0f, 0.0f, 0.0f}, {-1.0f, 0.0f, 0.0f},
+            {0.0f, 1.0f, 0.0f}, {0.0f, -1.0f, 0.0f},
+            {0.0f, 0.0f, 1.0f}, {0.0f, 0.0f, -1.0f}
+    };
+    private static final int[] MESH_TRIANGLES = {
+            0, 2, 4, 4, 2, 1, 1, 2, 5, 5, 2, 0,
+            4, 3, 0, 1, 3, 4, 5, 3, 1, 0, 3, 5
+    };
+
+    private final SimulatedBelt simulatedBelt;
+    private final AsteroidBelt belt;
+    private final float metersPerUnit;
+    private final float bodyRadius;
+    private final Material material;
+
+    private final List<Vertex> vertices;
+    private RenderableDefinition definition;
+    private CompletableFuture<ModelRenderable> renderableStage;
+    private ModelRenderable beltRenderable;
+    // Version of the belt snapshot in the mesh.
+    private long updatedVersion = -1L;
+    private int visibleBodyCount;
+
+    // Reused every frame, Vertex copies the position it is given.
+    private final Vector3 scratchPosition = new Vector3();
+
+    /**
+     * @param metersPerUnit - scale from the belt's distance unit to meters.
+     * @param bodyRadius - radius in meters of the largest body.
+     */
+    public BeltMesh(
+            SimulatedBelt simulatedBelt,
+            float metersPerUnit,
+            float bodyRadius,
+            Material material) {
+        this.simulatedBelt = simulatedBelt;
+        this.belt = simulatedBelt.getBelt();
+        this.metersPerUnit = metersPerUnit;
+        this.bodyRadius = bodyRadius;
+        this.material = material;
+        this.visibleBodyCount = belt.getBodyCount();
+
+        int bodyCount = belt.getBodyCount();
+        vertices = new ArrayList<>(bodyCount * MESH_VERTICES.length);
+        for (int body = 0; body < bodyCount; body++) {
+            for (float[] corner : MESH_VERTICES) {
+                vertices.add(Vertex.builder()
+                        .setPosition(Vector3.zero())
+                        .setNormal(new Vector3(corner[0], corner[1], corner[2]))
+                        .build());
+            }
+        }
+        writeVertexPositions(simulatedBelt.getLatest(), visibleBodyCount);
+    }
+
+    /** Shows the given share of the bodies, from 0 to 1, from the next update. */
+    public void setVisibleFraction(float fraction) {
+        int count = Math.round(belt.getBodyCount() * Math.max(0.0f, Math.min(1.0f, fraction)));
+        if (count == visibleBodyCount) {
+            return;
+        }
+        if (count < visibleBodyCount) {
+            collapseBodies(count, visibleBodyCount);
+        }
+        visibleBodyCount = count;
+        // The simulation solves the belt again with the new count, which the next update writes.
+        simulatedBelt.setBodyCount(count);
+    }
+
+    /** Returns the belt renderable, building it on the first call. */
+    public CompletableFuture<ModelRenderable> getRenderable() {
+        if (renderableStage == null) {
+            renderableStage = build();
+        }
+        return renderableStage;
+    }
+
+    /**
+     * Moves the bodies to the latest solve of the belt. Does nothing until the simulation publishes
+     * a new one, so every node showing the mesh may call it each frame.
+     */
+    public void update() {
+        if (beltRenderable == null) {
+            return;
+        }
+        BeltSnapshot snapshot = simulatedBelt.getLatest();
+        if (snapshot.getVersion() == updatedVersion) {
+            return;
+        }
+        updatedVersion = snapshot.getVersion();
+        writeVertexPositions(snapshot, visibleBodyCount);
+        beltRenderable.updateFromDefinition(definition);
+    }
+
+    private CompletableFuture<ModelRenderable> build() {
+        int bodyCount = belt.getBodyCount();
+        List<Integer> triangleIndices = new ArrayList<>(bodyCount * MESH_TRIANGLES.length);
+        for (int body = 0; body < bodyCount; body++) {
+            int firstVertex = body * MESH_VERTICES.length;
+            for (int index : MESH_TRIANGLES) {
+                triangleIndices.add(firstVertex + index);
+            }
+        }
+
+        Submesh submesh = Submesh.builder()
+                .setTriangleIndices(triangleIndices)
+                .setMaterial(material)
+                .build();
+        definition = RenderableDefinition.builder()
+                .setVertices(vertices)
+                .setSubmeshes(Collections.singletonList(submesh))
+                .build();
+
+        return ModelRenderable.builder()
+                .setSource(definition)
+                .build()
+                .thenApply(
+                        (renderable) -> {
+                            renderable.setShadowCaster(false);
+                            renderable.setShadowReceiver(false);
+                            // The bounding box of the belt surrounds the planets, without this it
+                            // would swallow every tap on them.
+                            renderable.setCollisionShape(null);
+                            beltRenderable = renderable;
+                            return renderable;
+                        });
+    }
+
+    /**
+     * Moves the vertices of the first bodies of the snapshot, at most the given number, to their
+     * positions in it. Also timed by AsteroidBeltBenchmark.
+     */
+    void writeVertexPositions(BeltSnapshot snapshot, int maxBodyCount) {
+        // A solve from before the visible share went down would show the collapsed bodies again.
+        int bodyCount = Math.min(snapshot.getBodyCount(), maxBodyCount);
+        float[] x = snapshot.getX();
+        float[] y = snapshot.getY();
+        float[] z = snapshot.getZ();
+        float[] sizes = belt.getSizes();
+        int vertex = 0;
+        for (int body = 0; body < bodyCount; body++) {
+            // Same frame mapping as the planets, the belt's Z axis is the scene's up.
+            float centerX = x[body] * metersPerUnit;
+            float centerY = z[body] * metersPerUnit;
+            float centerZ = -y[body] * metersPerUnit;
+            float radius = sizes[body] * bodyRadius;
+            for (float[] corner : MESH_VERTICES) {
+                scratchPosition.set(
+                        centerX + corner[0] * radius,
+                        centerY + corner[1] * radius,
+                        centerZ + corner[2] * radius);
+                vertices.get(vertex++).setPosition(scratchPosition);
+            }
+        }
+    }
+
+    /** Moves every vertex of the bodies in the range to the origin, so they draw nothing. */
+    private void collapseBodies(int fromBody, int toBody) {
+        scratchPosition.set(0.0f, 0.0f, 0.0f);
+        for (int vertex = fromBody * MESH_VERTICES.length; vertex < toBody * MESH_VERTICES.length; vertex++) {
+            vertices.get(vertex).setPosition(scratchPosition);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+
+/**
+ * Node that shows a {@link BeltMesh}. Every placed solar system has its own belt nodes while the
+ * mesh, and the cost of moving its bodies, is shared between them.
+ */
+class BeltNode extends Node {
+    private final BeltMesh beltMesh;
+
+    public BeltNode(BeltMesh beltMesh) {
+        this.beltMesh = beltMesh;
+    }
+
+    @Override
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public void onActivate() {
+        if (getRenderable() != null) {
+            return;
+        }
+        beltMesh.getRenderable()
+                .thenAccept(this::setRenderable)
+                .exceptionally(
+                        (throwable) -> {
+                            throw new AssertionError("Could not create belt renderable.", throwable);
+                        });
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        long start = FrameProfiler.start();
+        beltMesh.update();
+        FrameProfiler.end(FrameProfiler.SECTION_BELTS, start);
+    }
+}
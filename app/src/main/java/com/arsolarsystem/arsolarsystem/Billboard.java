@@ -0,0 +1,95 @@
+package com.arsolarsystem.arsolarsystem;
+
+/**
+ * Allocation free math for turning info cards towards the camera.
+ *
+ * <p>Equivalent to {@code Quaternion.lookRotation(direction, Vector3.up())} but works on primitives
+ * so it can run every frame without creating garbage.
+ */
+final class Billboard {
+    private static final float EPSILON = 1e-6f;
+
+    private Billboard() {
+    }
+
+    /**
+     * Writes the local rotation that turns a card to face the camera into {@code out} as x, y, z, w,
+     * from the column-major world matrices of the camera, the card and the card's parent.
+     *
+     * <p>Setting a world rotation on a node allocates to undo its parent's rotation, so the rotation
+     * is worked out in the parent's frame. The parent must only be turned about the vertical, so +Y
+     * is still up there. The columns of its world matrix are its axes, scaled evenly, which the look
+     * rotation normalizes away.
+     *
+     * @return false if the camera is on the card or straight above or below it, {@code out} is left
+     *     untouched.
+     */
+    static boolean towardCamera(float[] cameraMatrix, float[] cardMatrix, float[] parentMatrix, float[] out) {
+        float dx = cameraMatrix[12] - cardMatrix[12];
+        float dy = cameraMatrix[13] - cardMatrix[13];
+        float dz = cameraMatrix[14] - cardMatrix[14];
+        return lookRotation(
+                parentMatrix[0] * dx + parentMatrix[1] * dy + parentMatrix[2] * dz,
+                parentMatrix[4] * dx + parentMatrix[5] * dy + parentMatrix[6] * dz,
+                parentMatrix[8] * dx + parentMatrix[9] * dy + parentMatrix[10] * dz,
+                out);
+    }
+
+    /**
+     * Writes the rotation that points the +Z axis along the given direction, keeping +Y up, into
+     * {@code out} as x, y, z, w.
+     *
+     * @return false if the direction is zero or straight up or down, {@code out} is left untouched.
+     */
+    static boolean lookRotation(float dirX, float dirY, float dirZ, float[] out) {
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+        if (length < EPSILON) {
+            return false;
+        }
+        float fx = dirX / length;
+        float fy = dirY / length;
+        float fz = dirZ / length;
+
+        // right = up x forward, with up = (0, 1, 0).
+        float rightLength = (float) Math.sqrt(fx * fx + fz * fz);
+        if (rightLength < EPSILON) {
+            return false;
+        }
+        float rx = fz / rightLength;
+        float rz = -fx / rightLength;
+
+        // up = forward x right, already unit length.
+        float ux = fy * rz;
+        float uy = fz * rx - fx * rz;
+        float uz = -fy * rx;
+
+        // Rotation matrix columns are right, up, forward. ry is always zero.
+        float trace = rx + uy + fz;
+        if (trace > 0.0f) {
+            float s = 0.5f / (float) Math.sqrt(trace + 1.0f);
+            out[0] = (uz - fy) * s;
+            out[1] = (fx - rz) * s;
+            out[2] = -ux * s;
+            out[3] = 0.25f / s;
+        } else if (rx > uy && rx > fz) {
+            float s = 2.0f * (float) Math.sqrt(1.0f + rx - uy - fz);
+            out[0] = 0.25f * s;
+            out[1] = ux / s;
+            out[2] = (fx + rz) / s;
+            out[3] = (uz - fy) / s;
+        } else if (uy > fz) {
+            float s = 2.0f * (float) Math.sqrt(1.0f + uy - rx - fz);
+            out[0] = ux / s;
+            out[1] = 0.25f * s;
+            out[2] = (fy + uz) / s;
+            out[3] = (fx - rz) / s;
+        } else {
+            float s = 2.0f * (float) Math.sqrt(1.0f + fz - rx - uy);
+            out[0] = (fx + rz) / s;
+            out[1] = (fy + uz) / s;
+            out[2] = 0.25f * s;
+            out[3] = -ux / s;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.view.MotionEvent;
+
+import com.arsolarsystem.arsolarsystem.picking.SphereBvh;
+import com.google.ar.sceneform.Camera;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.SceneView;
+import com.google.ar.sceneform.collision.Ray;
+import com.google.ar.sceneform.math.Vector3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves taps on the bodies of every placed system through a {@link SphereBvh} instead of
+ * Sceneform's hit test, which checks the collision shape of every node.
+ *
+ * <p>Body renderables have no collision shape, so taps on them reach the scene's touch listener,
+ * which hands them to {@link #pick(MotionEvent)}. Every frame the tree is refit to the nodes' world
+ * positions. A tap picks the body it hits, or the one it misses by the fewest pixels up to
+ * {@link #TOLERANCE_DP}, so planets a few pixels big are still easy to tap.
+ */
+class BodyPicker implements Scene.OnUpdateListener {
+    private static final float TOLERANCE_DP = 24.0f;
+
+    private final SceneView sceneView;
+    private final float tolerancePixels;
+    private final SphereBvh bvh = new SphereBvh();
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<Runnable> actions = new ArrayList<>();
+    private float[] radii = new float[16];
+
+    public BodyPicker(SceneView sceneView) {
+        this.sceneView = sceneView;
+        this.tolerancePixels = TOLERANCE_DP * sceneView.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Makes a node pickable.
+     *
+     * @param radius - world radius of the node's body in meters.
+     * @param action - run when a tap picks the node.
+     */
+    public void add(Node node, float radius, Runnable action) {
+        float[] position = node.getWorldModelMatrix().data;
+        int index = bvh.add(position[12], position[13], position[14], radius);
+        if (index == radii.length) {
+            radii = Arrays.copyOf(radii, radii.length * 2);
+        }
+        radii[index] = radius;
+        nodes.add(node);
+        actions.add(action);
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            // Read the translation straight out of the world matrix, getWorldPosition() returns a copy.
+            float[] position = node.getWorldModelMatrix().data;
+            bvh.set(i, position[12], position[13], position[14], node.isActive() ? radii[i] : -1.0f);
+        }
+        bvh.refit();
+    }
+
+    /** Runs the action of the body under the tap, returns whether there was one. */
+    public boolean pick(MotionEvent tap) {
+        int height = sceneView.getHeight();
+        if (bvh.getCount() == 0 || height == 0) {
+            return false;
+        }
+        Camera camera = sceneView.getScene().getCamera();
+        Ray ray = camera.screenPointToRay(tap.getX(), tap.getY());
+        Vector3 origin = ray.getOrigin();
+        Vector3 direction = ray.getDirection().normalized();
+        // Element [5] of the projection is 1 / tan(fovY / 2), half the view height in pixels covers
+        // that tangent.
+        float tolerance = tolerancePixels / (camera.getProjectionMatrix().data[5] * height * 0.5f);
+        int picked = bvh.pick(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, tolerance);
+        if (picked < 0) {
+            return false;
+        }
+        actions.get(picked).run();
+        return true;
+    }
+}
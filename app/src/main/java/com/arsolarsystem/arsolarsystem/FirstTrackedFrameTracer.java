@@ -0,0 +1,63 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.google.ar.core.Frame;
+import com.google.ar.core.TrackingState;
+import com.google.ar.sceneform.ArSceneView;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+
+/**
+ * Times how long the camera takes to reach its first tracked frame and adds it to the frame trace
+ * under the given name.
+ *
+ * <p>The start is picked by the caller, activity creation for a cold start and resume for a warm
+ * one. The tracer only listens to Scene updates while it waits, and is cancelled when the activity
+ * pauses so that time in the background is not counted.
+ */
+class FirstTrackedFrameTracer implements Scene.OnUpdateListener {
+    private final ArSceneView arSceneView;
+    private String name;
+    private long startNanos;
+    private boolean isWaiting = false;
+    private boolean isRegistered = false;
+
+    public FirstTrackedFrameTracer(ArSceneView arSceneView) {
+        this.arSceneView = arSceneView;
+    }
+
+    /** Starts waiting for a tracked frame, replacing any wait already underway. */
+    public void start(String name, long startNanos) {
+        this.name = name;
+        this.startNanos = startNanos;
+        isWaiting = true;
+        if (!isRegistered) {
+            isRegistered = true;
+            arSceneView.getScene().addOnUpdateListener(this);
+        }
+    }
+
+    public void cancel() {
+        isWaiting = false;
+        // The Scene iterates its listeners while calling onUpdate, so the removal is posted instead
+        // of done in place. A wait started again in the meantime keeps the listener.
+        arSceneView.post(() -> {
+            if (isRegistered && !isWaiting) {
+                isRegistered = false;
+                arSceneView.getScene().removeOnUpdateListener(this);
+            }
+        });
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        if (!isWaiting) {
+            return;
+        }
+        Frame frame = arSceneView.getArFrame();
+        if (frame == null || frame.getCamera().getTrackingState() != TrackingState.TRACKING) {
+            return;
+        }
+        FrameProfiler.recordLoad(name, System.nanoTime() - startNanos);
+        cancel();
+    }
+}
@@ -0,0 +1,48 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.instrumentation.FrameRecorder;
+
+/**
+ * App wide access to the frame recorder.
+ *
+ * <p>Timed code calls {@link #start()} and passes the result to {@link #end(int, long)}; both only
+ * read the clock and add to primitive arrays, so they are safe to call every frame. Like the rest
+ * of the scene code this is only used from the main thread.
+ */
+final class FrameProfiler {
+    static final int SECTION_CLOCK = 0;
+    static final int SECTION_PLANETS = 1;
+    static final int SECTION_BELTS = 2;
+    static final int SECTION_PLANE_DETECTION = 3;
+    static final int SECTION_TRAILS = 4;
+    static final int SECTION_SANDBOX = 5;
+
+    // About a minute of frames at 60 fps.
+    private static final int TRACE_FRAMES = 3600;
+
+    private static final FrameRecorder recorder =
+            new FrameRecorder(TRACE_FRAMES, "clock", "planets", "belts", "plane_detection", "trails", "sandbox");
+
+    private FrameProfiler() {
+    }
+
+    static long start() {
+        return System.nanoTime();
+    }
+
+    static void end(int section, long startNanos) {
+        recorder.addSectionTime(section, System.nanoTime() - startNanos);
+    }
+
+    static void endFrame(long frameNanos) {
+        recorder.endFrame(frameNanos);
+    }
+
+    static void recordLoad(String asset, long nanos) {
+        recorder.recordLoad(asset, nanos);
+    }
+
+    static FrameRecorder getRecorder() {
+        return recorder;
+    }
+}
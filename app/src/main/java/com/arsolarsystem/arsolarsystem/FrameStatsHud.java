@@ -0,0 +1,114 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import com.arsolarsystem.arsolarsystem.instrumentation.FrameRecorder;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes every frame in the {@link FrameProfiler} and shows the frame time percentiles in an
+ * on-screen text view when enabled.
+ *
+ * <p>It must be the first update listener of the Scene: the delta of a frame is the duration of the
+ * previous one, so closing the frame here attributes the section timings to the right frame.
+ *
+ * <p>The frame trace is written on a thread of its own, from a copy of the recorder taken on the
+ * main thread, so pausing the activity doesn't wait on storage.
+ */
+class FrameStatsHud implements Scene.OnUpdateListener {
+    private static final String TAG = "FrameStatsHud";
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final TextView statsView;
+    private final ExecutorService traceWriter = Executors.newSingleThreadExecutor();
+    private boolean visible = false;
+    private long nanosSinceRefresh = 0L;
+
+    public FrameStatsHud(TextView statsView) {
+        this.statsView = statsView;
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        statsView.setVisibility(visible ? View.VISIBLE : View.GONE);
+        nanosSinceRefresh = REFRESH_INTERVAL_NANOS;
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        long frameNanos = frameTime.getDeltaTime(TimeUnit.NANOSECONDS);
+        FrameProfiler.endFrame(frameNanos);
+        if (!visible) {
+            return;
+        }
+        nanosSinceRefresh += frameNanos;
+        if (nanosSinceRefresh < REFRESH_INTERVAL_NANOS) {
+            return;
+        }
+        nanosSinceRefresh = 0L;
+
+        FrameRecorder recorder = FrameProfiler.getRecorder();
+        statsView.setText(String.format(Locale.US,
+                "frame p50 %.1f  p95 %.1f  p99 %.1f ms\n"
+                        + "clock %.2f  planets %.2f  belts %.2f  trails %.2f  sandbox %.2f  planes %.2f ms\n"
+                        + "gc %s",
+                toMillis(recorder.getPercentileNanos(0.50)),
+                toMillis(recorder.getPercentileNanos(0.95)),
+                toMillis(recorder.getPercentileNanos(0.99)),
+                toMillis(recorder.getAverageSectionNanos(FrameProfiler.SECTION_CLOCK)),
+                toMillis(recorder.getAverageSectionNanos(FrameProfiler.SECTION_PLANETS)),
+                toMillis(recorder.getAverageSectionNanos(FrameProfiler.SECTION_BELTS)),
+                toMillis(recorder.getAverageSectionNanos(FrameProfiler.SECTION_TRAILS)),
+                toMillis(recorder.getAverageSectionNanos(FrameProfiler.SECTION_SANDBOX)),
+                toMillis(recorder.getAverageSectionNanos(FrameProfiler.SECTION_PLANE_DETECTION)),
+                Debug.getRuntimeStat("art.gc.gc-count")));
+    }
+
+    /**
+     * Writes the frames recorded so far to a CSV file in the app's external files directory, off
+     * the main thread. It can be pulled with
+     * {@code adb pull /sdcard/Android/data/com.arsolarsystem.arsolarsystem/files/frame_trace.csv}.
+     */
+    public void writeTrace(Context context) {
+        Context appContext = context.getApplicationContext();
+        FrameRecorder frames = FrameProfiler.getRecorder().copy();
+        String gcCount = Debug.getRuntimeStat("art.gc.gc-count");
+        traceWriter.execute(() -> writeTrace(appContext.getExternalFilesDir(null), frames, gcCount));
+    }
+
+    /** Stops the trace thread once the traces already asked for are written. */
+    public void close() {
+        traceWriter.shutdown();
+    }
+
+    private static void writeTrace(File directory, FrameRecorder frames, String gcCount) {
+        if (directory == null) {
+            return;
+        }
+        File file = new File(directory, "frame_trace.csv");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("# gc_count," + gcCount + "\n");
+            frames.writeTrace(writer);
+        } catch (IOException e) {
+            Log.e(TAG, "writeTrace: Unable to write " + file, e);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
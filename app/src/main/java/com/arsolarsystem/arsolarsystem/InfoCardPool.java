@@ -0,0 +1,40 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.content.Context;
+
+import com.google.ar.sceneform.rendering.ViewRenderable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pool of planet info card renderables shared by every planet.
+ *
+ * <p>Cards are only inflated when a planet first shows its card and go back to the pool when it is
+ * hidden, so the pool never holds more views than the most cards visible at once. Used from the
+ * main thread only.
+ */
+class InfoCardPool {
+    private final Context context;
+    private final ArrayDeque<ViewRenderable> freeCards = new ArrayDeque<>();
+
+    public InfoCardPool(Context context) {
+        this.context = context;
+    }
+
+    /** Returns a free card, building a new one if the pool is empty. */
+    public CompletableFuture<ViewRenderable> acquire() {
+        ViewRenderable card = freeCards.poll();
+        if (card != null) {
+            return CompletableFuture.completedFuture(card);
+        }
+        return ViewRenderable.builder()
+                .setView(context, R.layout.planet_card_view)
+                .build();
+    }
+
+    /** Returns a card that is no longer shown to the pool. */
+    public void release(ViewRenderable card) {
+        freeCards.push(card);
+    }
+}
@@ -0,0 +1,72 @@
+package com.arsolarsystem.arsolarsystem;
+
+/**
+ * Renderables of an object by level of detail, and the level it draws from its size on screen.
+ *
+ * <p>Level 0 is the full renderable, set at any time with {@link #setFull}. Every other level is
+ * optional, a level without a renderable draws the next more detailed one. Everything works on the
+ * translations of plain column-major matrices, so a frame's update doesn't allocate.
+ *
+ * @param <T> type of the renderables, kept generic so the logic runs without Sceneform.
+ */
+final class LevelOfDetail<T> {
+    private final LodSelector selector;
+    private final Object[] renderables;
+    private int level = 0;
+
+    LevelOfDetail(LodSelector selector) {
+        this.selector = selector;
+        this.renderables = new Object[selector.getLevelCount()];
+    }
+
+    void setFull(T renderable) {
+        renderables[0] = renderable;
+    }
+
+    /** Sets the renderable of a level below the full one. */
+    void setLevel(int level, T renderable) {
+        if (level <= 0 || level >= renderables.length) {
+            throw new IllegalArgumentException("No level of detail " + level);
+        }
+        renderables[level] = renderable;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    /** Returns the renderable the current level draws. */
+    @SuppressWarnings("unchecked")
+    T getShown() {
+        int shown = level;
+        while (shown > 0 && renderables[shown] == null) {
+            shown--;
+        }
+        return (T) renderables[shown];
+    }
+
+    /**
+     * Picks the level for a sphere of the given radius at the translation of the object matrix, seen
+     * from the translation of the camera matrix. Returns whether the renderable to draw changed.
+     *
+     * @param projectionScale - element [5] of the projection, 1 / tan(fovY / 2), which turns a
+     *     radius at a distance into a fraction of half the viewport height.
+     */
+    boolean update(float[] cameraMatrix, float[] objectMatrix, float radius, float projectionScale) {
+        float dx = cameraMatrix[12] - objectMatrix[12];
+        float dy = cameraMatrix[13] - objectMatrix[13];
+        float dz = cameraMatrix[14] - objectMatrix[14];
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance <= 0.0f) {
+            return false;
+        }
+        int selected = selector.select(level, radius * projectionScale / distance);
+        if (selected == level) {
+            return false;
+        }
+        T shown = getShown();
+        level = selected;
+        // Levels that have not loaded yet draw the same renderable as the level before.
+        return getShown() != shown;
+    }
+}
@@ -0,0 +1,38 @@
+package com.arsolarsystem.arsolarsystem;
+
+/**
+ * Picks a level of detail from the projected size of an object.
+ *
+ * <p>Level 0 is the most detailed. A level is left only once the size has moved past its threshold
+ * by the hysteresis factor, so objects sitting near a threshold don't flicker between levels.
+ */
+final class LodSelector {
+    private final float[] minSizes;
+    private final float hysteresis;
+
+    /**
+     * @param hysteresis - factor greater than 1 that the size must exceed a threshold by before the
+     *     level changes.
+     * @param minSizes - smallest projected size for each level but the last, in decreasing order.
+     */
+    LodSelector(float hysteresis, float... minSizes) {
+        this.hysteresis = hysteresis;
+        this.minSizes = minSizes;
+    }
+
+    int getLevelCount() {
+        return minSizes.length + 1;
+    }
+
+    /** Returns the level to use for the projected size, given the level currently in use. */
+    int select(int currentLevel, float projectedSize) {
+        int level = currentLevel;
+        while (level > 0 && projectedSize >= minSizes[level - 1] * hysteresis) {
+            level--;
+        }
+        while (level < minSizes.length && projectedSize < minSizes[level] / hysteresis) {
+            level++;
+        }
+        return level;
+    }
+}
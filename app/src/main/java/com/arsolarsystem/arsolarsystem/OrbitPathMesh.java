@@ -0,0 +1,94 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+import com.arsolarsystem.arsolarsystem.trail.OrbitPath;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+import com.google.ar.sceneform.rendering.RenderableDefinition;
+import com.google.ar.sceneform.rendering.RenderableDefinition.Submesh;
+import com.google.ar.sceneform.rendering.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single renderable with the orbit ellipses of every body going around the same parent.
+ *
+ * <p>The ellipses never change, so the mesh is built once per catalog and shared by every placed
+ * solar system, each showing it on a node at the parent's position.
+ */
+class OrbitPathMesh {
+    private static final int POINTS_PER_ORBIT = 128;
+
+    private final List<OrbitalElements> orbits;
+    private final float metersPerUnit;
+    private final float halfWidth;
+    private final Material material;
+    private CompletableFuture<ModelRenderable> renderableStage;
+
+    /**
+     * @param orbits - orbits around the same parent.
+     * @param metersPerUnit - scale from the semi-major axis unit to meters.
+     * @param width - width of the drawn lines in meters.
+     */
+    public OrbitPathMesh(List<OrbitalElements> orbits, float metersPerUnit, float width, Material material) {
+        this.orbits = orbits;
+        this.metersPerUnit = metersPerUnit;
+        this.halfWidth = width * 0.5f;
+        this.material = material;
+    }
+
+    /** Returns the renderable, building it on the first call. */
+    public CompletableFuture<ModelRenderable> getRenderable() {
+        if (renderableStage == null) {
+            renderableStage = build();
+        }
+        return renderableStage;
+    }
+
+    private CompletableFuture<ModelRenderable> build() {
+        int segmentCount = orbits.size() * POINTS_PER_ORBIT;
+        List<Vertex> vertices = new ArrayList<>(segmentCount * Ribbon.VERTICES_PER_SEGMENT);
+        List<Integer> triangleIndices = new ArrayList<>(segmentCount * 12);
+        float[] x = new float[POINTS_PER_ORBIT];
+        float[] y = new float[POINTS_PER_ORBIT];
+        float[] z = new float[POINTS_PER_ORBIT];
+        Vector3 scratch = new Vector3();
+        for (OrbitalElements orbit : orbits) {
+            OrbitPath.sample(orbit, x, y, z, POINTS_PER_ORBIT);
+            for (int i = 0; i < POINTS_PER_ORBIT; i++) {
+                int next = (i + 1) % POINTS_PER_ORBIT;
+                int first = vertices.size();
+                Ribbon.addSegment(vertices, triangleIndices);
+                // Same frame mapping as the planets, the orbit's Z axis is the scene's up.
+                Ribbon.setSegment(vertices, first,
+                        x[i] * metersPerUnit, z[i] * metersPerUnit, -y[i] * metersPerUnit,
+                        x[next] * metersPerUnit, z[next] * metersPerUnit, -y[next] * metersPerUnit,
+                        halfWidth, scratch);
+            }
+        }
+
+        Submesh submesh = Submesh.builder()
+                .setTriangleIndices(triangleIndices)
+                .setMaterial(material)
+                .build();
+        RenderableDefinition definition = RenderableDefinition.builder()
+                .setVertices(vertices)
+                .setSubmeshes(Collections.singletonList(submesh))
+                .build();
+        return ModelRenderable.builder()
+                .setSource(definition)
+                .build()
+                .thenApply(
+                        (renderable) -> {
+                            renderable.setShadowCaster(false);
+                            renderable.setShadowReceiver(false);
+                            // The ellipses surround the planets, they must not take their taps.
+                            renderable.setCollisionShape(null);
+                            return renderable;
+                        });
+    }
+}
@@ -0,0 +1,145 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.trail.TrailBuffer;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+import com.google.ar.sceneform.rendering.RenderableDefinition;
+import com.google.ar.sceneform.rendering.RenderableDefinition.Submesh;
+import com.google.ar.sceneform.rendering.Vertex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single renderable with the fading trails of every body of a {@link TrailBuffer}.
+ *
+ * <p>Every slot of the buffer has one ribbon segment per body, and each block of slots is a submesh.
+ * A frame only moves the segments of the slots the buffer marks dirty, and the trail fades by
+ * handing the blocks materials of falling opacity by their age when the head moves on to another
+ * block, so the vertices written per frame grow with the new samples, not the trail length.
+ *
+ * <p>Sceneform has no partial vertex buffer updates, {@code updateFromDefinition} uploads the whole
+ * mesh. Its size is fixed by the buffer's capacity and it is only uploaded in frames that reach a
+ * new tick.
+ */
+class OrbitTrailMesh {
+    private final TrailBuffer trail;
+    private final float metersPerUnit;
+    private final float halfWidth;
+    private final Material[] blockMaterials;
+
+    private RenderableDefinition definition;
+    private List<Vertex> vertices;
+    private CompletableFuture<ModelRenderable> renderableStage;
+    private ModelRenderable trailRenderable;
+    private int headBlock = -1;
+
+    // Reused every frame, Vertex copies the position it is given.
+    private final Vector3 scratchPosition = new Vector3();
+
+    /**
+     * @param metersPerUnit - scale from the trail's distance unit to meters.
+     * @param width - width of the drawn lines in meters.
+     * @param blockMaterials - material of the blocks by age, from the newest to the oldest, one per
+     *     block of the buffer.
+     */
+    public OrbitTrailMesh(TrailBuffer trail, float metersPerUnit, float width, Material... blockMaterials) {
+        if (blockMaterials.length != trail.getBlockCount()) {
+            throw new IllegalArgumentException("One material per trail block needed");
+        }
+        this.trail = trail;
+        this.metersPerUnit = metersPerUnit;
+        this.halfWidth = width * 0.5f;
+        this.blockMaterials = blockMaterials;
+    }
+
+    /** Returns the trail renderable, building it on the first call. */
+    public CompletableFuture<ModelRenderable> getRenderable() {
+        if (renderableStage == null) {
+            renderableStage = build();
+        }
+        return renderableStage;
+    }
+
+    /** Moves the trails on to the given simulation time. Does nothing within the same tick. */
+    public void update(double time) {
+        if (trailRenderable == null || !trail.update(time)) {
+            return;
+        }
+        for (int i = 0; i < trail.getDirtyCount(); i++) {
+            writeSlot(trail.getDirtySlot(i));
+        }
+        trail.clearDirty();
+        int newHeadBlock = trail.getHeadBlock();
+        if (newHeadBlock != headBlock) {
+            headBlock = newHeadBlock;
+            List<Submesh> submeshes = definition.getSubmeshes();
+            for (int block = 0; block < submeshes.size(); block++) {
+                submeshes.get(block).setMaterial(blockMaterials[trail.getBlockAge(block)]);
+            }
+        }
+        trailRenderable.updateFromDefinition(definition);
+    }
+
+    private CompletableFuture<ModelRenderable> build() {
+        int bodyCount = trail.getBodyCount();
+        int segmentCount = trail.getCapacity() * bodyCount;
+        vertices = new ArrayList<>(segmentCount * Ribbon.VERTICES_PER_SEGMENT);
+        List<Submesh> submeshes = new ArrayList<>(trail.getBlockCount());
+        for (int block = 0; block < trail.getBlockCount(); block++) {
+            List<Integer> triangleIndices = new ArrayList<>(trail.getBlockSize() * bodyCount * 12);
+            for (int i = 0; i < trail.getBlockSize() * bodyCount; i++) {
+                Ribbon.addSegment(vertices, triangleIndices);
+            }
+            submeshes.add(Submesh.builder()
+                    .setTriangleIndices(triangleIndices)
+                    .setMaterial(blockMaterials[block])
+                    .build());
+        }
+        definition = RenderableDefinition.builder()
+                .setVertices(vertices)
+                .setSubmeshes(submeshes)
+                .build();
+
+        return ModelRenderable.builder()
+                .setSource(definition)
+                .build()
+                .thenApply(
+                        (renderable) -> {
+                            renderable.setShadowCaster(false);
+                            renderable.setShadowReceiver(false);
+                            // The trails cross the planets, they must not take their taps.
+                            renderable.setCollisionShape(null);
+                            trailRenderable = renderable;
+                            return renderable;
+                        });
+    }
+
+    /** Writes or hides the segment of every body in the slot. */
+    private void writeSlot(int slot) {
+        int bodyCount = trail.getBodyCount();
+        int firstVertex = slot * bodyCount * Ribbon.VERTICES_PER_SEGMENT;
+        if (!trail.isSegmentVisible(slot)) {
+            for (int body = 0; body < bodyCount; body++) {
+                Ribbon.collapseSegment(vertices, firstVertex + body * Ribbon.VERTICES_PER_SEGMENT, scratchPosition);
+            }
+            return;
+        }
+        float[] x = trail.getX();
+        float[] y = trail.getY();
+        float[] z = trail.getZ();
+        int previousSlot = trail.getPreviousSlot(slot);
+        float s = metersPerUnit;
+        for (int body = 0; body < bodyCount; body++) {
+            int from = trail.index(previousSlot, body);
+            int to = trail.index(slot, body);
+            // Same frame mapping as the planets, the trail's Z axis is the scene's up.
+            Ribbon.setSegment(vertices, firstVertex + body * Ribbon.VERTICES_PER_SEGMENT,
+                    x[from] * s, z[from] * s, -y[from] * s,
+                    x[to] * s, z[to] * s, -y[to] * s,
+                    halfWidth, scratchPosition);
+        }
+    }
+}
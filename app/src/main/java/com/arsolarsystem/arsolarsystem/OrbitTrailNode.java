@@ -0,0 +1,39 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+
+/**
+ * Node that shows an {@link OrbitTrailMesh}. Every placed solar system has its own trail node while
+ * the mesh, and the cost of moving the trails on, is shared between them.
+ */
+class OrbitTrailNode extends Node {
+    private final OrbitTrailMesh trailMesh;
+    private final OrbitalClock orbitalClock;
+
+    public OrbitTrailNode(OrbitTrailMesh trailMesh, OrbitalClock orbitalClock) {
+        this.trailMesh = trailMesh;
+        this.orbitalClock = orbitalClock;
+    }
+
+    @Override
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public void onActivate() {
+        if (getRenderable() != null) {
+            return;
+        }
+        trailMesh.getRenderable()
+                .thenAccept(this::setRenderable)
+                .exceptionally(
+                        (throwable) -> {
+                            throw new AssertionError("Could not create trail renderable.", throwable);
+                        });
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        long start = FrameProfiler.start();
+        trailMesh.update(orbitalClock.getOrbitSeconds());
+        FrameProfiler.end(FrameProfiler.SECTION_TRAILS, start);
+    }
+}
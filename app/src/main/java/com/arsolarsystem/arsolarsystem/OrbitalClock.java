@@ -0,0 +1,319 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+import com.arsolarsystem.arsolarsystem.ephemeris.ChebyshevEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+import com.arsolarsystem.arsolarsystem.simulation.OrbitSimulation;
+import com.arsolarsystem.arsolarsystem.simulation.SimulatedBelt;
+import com.arsolarsystem.arsolarsystem.simulation.SimulationCalendar;
+import com.arsolarsystem.arsolarsystem.simulation.SimulationSnapshot;
+import com.google.ar.sceneform.Camera;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.Renderable;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Single simulation clock that drives every orbit and spin of the solar system.
+ *
+ * <p>Orbits are solved by an {@link OrbitSimulation} stepping at a fixed rate on its own thread.
+ * Once per frame, from the Scene's update listener, the clock writes the latest snapshot into the
+ * registered nodes, blending the last two steps by how far the frame is into the next one. The
+ * speed multipliers in {@link SolarSettings} only change how fast simulation time advances, so
+ * motion stays smooth at any speed.
+ *
+ * <p>Nodes that share the same {@link OrbitalElements} instance share one simulated body, so every
+ * placed copy of the solar system costs one Kepler solve per body, not per node.
+ *
+ * <p>With flattened orbits every orbit node is a direct child of the star and the clock adds up the
+ * positions of the bodies it goes around, once per body and frame. Moons then no longer sit under
+ * their planets, so moving a planet doesn't dirty the transforms of a whole subtree.
+ *
+ * <p>Spins are not node rotations. The spinning models use the materials in sampledata/materials,
+ * which turn their textures around the model by a {@code spinTurns} parameter, so spinning bodies
+ * keep static transforms. Materials belong to a renderable, which every copy of a body shares, so a
+ * frame writes one value per material however many bodies show it.
+ *
+ * <p>The clock also updates the camera's view frustum once per frame for the nodes to test against.
+ */
+class OrbitalClock implements Scene.OnUpdateListener {
+    private static final int INITIAL_CAPACITY = 16;
+    // Twice the usual frame rate, so every frame has a snapshot at most half a frame old.
+    private static final double SIMULATION_STEP_SECONDS = 1.0 / 120.0;
+    // Material parameter of the spinning materials, the fraction of a turn from 0 to 1.
+    private static final String SPIN_PARAMETER = "spinTurns";
+
+    private final SolarSettings solarSettings;
+    private final SimulationCalendar calendar;
+    private final float metersPerUnit;
+    private final boolean flattenOrbits;
+
+    private final OrbitSimulation simulation = new OrbitSimulation(SIMULATION_STEP_SECONDS);
+    private final Map<OrbitalElements, Integer> bodyIndices = new IdentityHashMap<>();
+    // Body each body goes around, -1 for the star. Parents always have the lower index.
+    private int[] bodyParents = new int[INITIAL_CAPACITY];
+
+    // Blended position of every body this frame, relative to the body it goes around or, with
+    // flattened orbits, to the star. In the ephemeris frame and units.
+    private float[] bodyX = new float[INITIAL_CAPACITY];
+    private float[] bodyY = new float[INITIAL_CAPACITY];
+    private float[] bodyZ = new float[INITIAL_CAPACITY];
+    private int blendedBodyCount = 0;
+
+    private Node[] orbitNodes = new Node[INITIAL_CAPACITY];
+    private int[] orbitBodies = new int[INITIAL_CAPACITY];
+    private int orbitCount = 0;
+
+    private Material[] spinMaterials = new Material[INITIAL_CAPACITY];
+    private float[] spinDegreesPerSecond = new float[INITIAL_CAPACITY];
+    private int spinCount = 0;
+
+    // Snapshot written into the nodes this frame and how far the frame is past it.
+    private SimulationSnapshot snapshot;
+    private float alpha = 1.0f;
+
+    private Camera camera;
+    private final ViewFrustum viewFrustum = new ViewFrustum();
+
+    // Reused every frame, Node copies the values it is given.
+    private final Vector3 scratchPosition = new Vector3();
+
+    /**
+     * @param calendar - converts dates to orbit time, built from the catalog's Earth.
+     * @param metersPerUnit - scale from the semi-major axis unit of the orbital elements to meters.
+     * @param flattenOrbits - whether orbit nodes are positioned relative to the star instead of the
+     *     body they go around.
+     */
+    public OrbitalClock(
+            SolarSettings solarSettings, SimulationCalendar calendar, float metersPerUnit, boolean flattenOrbits) {
+        this.solarSettings = solarSettings;
+        this.calendar = calendar;
+        this.metersPerUnit = metersPerUnit;
+        this.flattenOrbits = flattenOrbits;
+        this.snapshot = simulation.getLatest();
+    }
+
+    /** Starts advancing simulation time. */
+    public void start() {
+        simulation.start();
+    }
+
+    /** Stops advancing simulation time, the nodes keep their last positions. */
+    public void stop() {
+        simulation.stop();
+    }
+
+    /** Changes the real time between simulation steps, see {@link OrbitSimulation#setStepSeconds}. */
+    public void setSimulationStepSeconds(double stepSeconds) {
+        simulation.setStepSeconds(stepSeconds);
+    }
+
+    /** Interpolates the orbits the table covers instead of solving them, see {@link OrbitSimulation}. */
+    public void setEphemerisTable(ChebyshevEphemeris table) {
+        simulation.setEphemerisTable(table);
+    }
+
+    /** Sets the camera whose view frustum {@link #isVisible} tests against. */
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Returns whether a sphere in world space is at least partly inside the camera's view this
+     * frame. Everything counts as visible until a camera is set.
+     */
+    public boolean isVisible(float x, float y, float z, float radius) {
+        return viewFrustum.intersectsSphere(x, y, z, radius);
+    }
+
+    /** Returns whether orbit nodes must be children of the star rather than of their parent body. */
+    public boolean isFlattened() {
+        return flattenOrbits;
+    }
+
+    /**
+     * Starts driving the local position of the node along the given orbit, from the next snapshot
+     * that includes the orbit. The mean motion of the elements is in degrees per second at a speed
+     * multiplier of 1.
+     *
+     * @param around - elements of the body the orbit goes around, already added, or null for the
+     *     star. With flattened orbits the node is placed relative to the star, otherwise relative to
+     *     its parent, which must then be the node of that body.
+     */
+    public void addOrbit(Node node, OrbitalElements elements, OrbitalElements around) {
+        int parent = -1;
+        if (around != null) {
+            Integer parentBody = bodyIndices.get(around);
+            if (parentBody == null) {
+                throw new IllegalArgumentException("Orbit goes around a body that was never added");
+            }
+            parent = parentBody;
+        }
+        Integer body = bodyIndices.get(elements);
+        if (body == null) {
+            body = simulation.addBody(elements);
+            bodyIndices.put(elements, body);
+            if (body >= bodyParents.length) {
+                int capacity = bodyParents.length * 2;
+                bodyParents = Arrays.copyOf(bodyParents, capacity);
+                bodyX = Arrays.copyOf(bodyX, capacity);
+                bodyY = Arrays.copyOf(bodyY, capacity);
+                bodyZ = Arrays.copyOf(bodyZ, capacity);
+            }
+            bodyParents[body] = parent;
+        }
+        if (orbitCount == orbitNodes.length) {
+            int capacity = orbitCount * 2;
+            orbitNodes = Arrays.copyOf(orbitNodes, capacity);
+            orbitBodies = Arrays.copyOf(orbitBodies, capacity);
+        }
+        orbitNodes[orbitCount] = node;
+        orbitBodies[orbitCount] = body;
+        orbitCount++;
+        writeOrbit(orbitCount - 1);
+    }
+
+    /**
+     * Solves the belt on the simulation thread from now on, see {@link SimulatedBelt}.
+     *
+     * @param minimumMove - distance in the belt's units its bodies may drift before it is solved
+     *     again.
+     */
+    public SimulatedBelt addBelt(AsteroidBelt belt, double minimumMove) {
+        return simulation.addBelt(belt, minimumMove);
+    }
+
+    /**
+     * Starts spinning every node that shows the renderable around its Y axis. Materials without the
+     * spin parameter, like the rings, are left as they are.
+     */
+    public void addSpin(Renderable renderable, float degreesPerSecond) {
+        for (int submesh = 0; submesh < renderable.getSubmeshCount(); submesh++) {
+            if (spinCount == spinMaterials.length) {
+                int capacity = spinCount * 2;
+                spinMaterials = Arrays.copyOf(spinMaterials, capacity);
+                spinDegreesPerSecond = Arrays.copyOf(spinDegreesPerSecond, capacity);
+            }
+            spinMaterials[spinCount] = renderable.getMaterial(submesh);
+            spinDegreesPerSecond[spinCount] = degreesPerSecond;
+            spinCount++;
+            writeSpin(spinCount - 1);
+        }
+    }
+
+    /**
+     * Writes where the body on the given orbit is this frame, relative to the star, in the ephemeris
+     * frame and units. Returns false if the orbit was never added or is not in a snapshot yet.
+     */
+    public boolean getPositionFromStar(OrbitalElements elements, float[] position) {
+        Integer body = bodyIndices.get(elements);
+        if (body == null || body >= blendedBodyCount) {
+            return false;
+        }
+        position[0] = bodyX[body];
+        position[1] = bodyY[body];
+        position[2] = bodyZ[body];
+        if (!flattenOrbits) {
+            for (int parent = bodyParents[body]; parent >= 0; parent = bodyParents[parent]) {
+                position[0] += bodyX[parent];
+                position[1] += bodyY[parent];
+                position[2] += bodyZ[parent];
+            }
+        }
+        return true;
+    }
+
+    /** Simulation time of the orbits, in seconds at a speed multiplier of 1. */
+    public double getOrbitSeconds() {
+        return snapshot.getOrbitSeconds(alpha);
+    }
+
+    /** Date shown this frame, in Unix milliseconds. See {@link SimulationCalendar}. */
+    public long getDateMillis() {
+        return calendar.toEpochMillis(getOrbitSeconds());
+    }
+
+    /** Jumps to a date, in Unix milliseconds, from the next simulation step on. */
+    public void seekToDate(long epochMillis) {
+        simulation.seekTo(calendar.toOrbitSeconds(epochMillis));
+    }
+
+    /** Jumps forward by the given number of days, or back if negative. */
+    public void scrubDays(double days) {
+        simulation.seekBy(calendar.daysToOrbitSeconds(days));
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        long start = FrameProfiler.start();
+        simulation.setSpeedMultipliers(
+                solarSettings.getOrbitSpeedMultiplier(), solarSettings.getRotationSpeedMultiplier());
+        snapshot = simulation.getLatest();
+        alpha = snapshot.getAlpha(System.nanoTime());
+        if (camera != null) {
+            viewFrustum.update(camera.getProjectionMatrix().data, camera.getViewMatrix().data);
+        }
+        blendBodies();
+        for (int i = 0; i < orbitCount; i++) {
+            writeOrbit(i);
+        }
+        for (int i = 0; i < spinCount; i++) {
+            writeSpin(i);
+        }
+        FrameProfiler.end(FrameProfiler.SECTION_CLOCK, start);
+    }
+
+    /**
+     * Blends the position of every body once, however many nodes show it. Parents come before their
+     * children, so with flattened orbits each body only adds the finished position of its parent.
+     */
+    private void blendBodies() {
+        // Bodies added after this snapshot was taken are left for the next one.
+        blendedBodyCount = snapshot.getBodyCount();
+        for (int body = 0; body < blendedBodyCount; body++) {
+            float x = lerp(snapshot.getPreviousX()[body], snapshot.getX()[body]);
+            float y = lerp(snapshot.getPreviousY()[body], snapshot.getY()[body]);
+            float z = lerp(snapshot.getPreviousZ()[body], snapshot.getZ()[body]);
+            int parent = bodyParents[body];
+            if (flattenOrbits && parent >= 0) {
+                x += bodyX[parent];
+                y += bodyY[parent];
+                z += bodyZ[parent];
+            }
+            bodyX[body] = x;
+            bodyY[body] = y;
+            bodyZ[body] = z;
+        }
+    }
+
+    private void writeOrbit(int index) {
+        int body = orbitBodies[index];
+        if (body >= blendedBodyCount) {
+            // Added after this snapshot was taken, the next one will have it.
+            return;
+        }
+        float x = bodyX[body];
+        float y = bodyY[body];
+        float z = bodyZ[body];
+        // The ephemeris frame has Z as the orbit normal, the scene has Y up. Mapping Y to -Z keeps
+        // orbits counter-clockwise when seen from above.
+        scratchPosition.set(x * metersPerUnit, z * metersPerUnit, -y * metersPerUnit);
+        orbitNodes[index].setLocalPosition(scratchPosition);
+    }
+
+    private void writeSpin(int index) {
+        // Wrapped in double precision, spin time grows without bound.
+        double turns = spinDegreesPerSecond[index] * snapshot.getSpinSeconds(alpha) / 360.0;
+        spinMaterials[index].setFloat(SPIN_PARAMETER, (float) (turns - Math.floor(turns)));
+    }
+
+    private float lerp(float previous, float current) {
+        return previous + (current - previous) * alpha;
+    }
+}
@@ -56,33 +56,40 @@ public static void dispalyError(Context context,String errorMsg , Throwable exce
 }
 
     /**
-     * Creates an ARCore session. This checks for the CAMERA permission, and if granted, checks the
-     * state of the ARCore installation. If there is a problem an exception is thrown. Care must be
-     * taken to update the installRequested flag as needed to avoid an infinite checking loop. It
-     * should be set to true if null is returned from this method, and called again when the
-     * application is resumed.
+     * Checks for the CAMERA permission, and if granted, checks the state of the ARCore installation.
+     * Returns true if a session can be created. If there is a problem an exception is thrown. Care
+     * must be taken to update the installRequested flag as needed to avoid an infinite checking
+     * loop. It should be set to true if false is returned from this method, and called again when
+     * the application is resumed. Call it on the main thread, it may start the ARCore install.
      *
      * @param activity - the activity currently active.
      * @param installRequested - the indicator for ARCore that when checking the state of ARCore, if
      *     an installation was already requested. This is true if this method previously returned
-     *     null. and the camera permission has been granted.
+     *     false. and the camera permission has been granted.
      */
-    public static Session createARSession(Activity activity , boolean installRequested) throws UnavailableException {
-        Session session = null;
-        // if we have the camera permission, create the session
-        if (hasCameraPermission(activity)) {
-            switch (ArCoreApk.getInstance().requestInstall(activity, !installRequested)) {
-                case INSTALL_REQUESTED:
-                    return null;
-                case INSTALLED:
-                    break;
-            }
-            session = new Session(activity);
-            // IMPORTANT!!!  ArSceneView requires the `LATEST_CAMERA_IMAGE` non-blocking update mode.
-            Config config = new Config(session);
-            config.setUpdateMode(Config.UpdateMode.LATEST_CAMERA_IMAGE);
-            session.configure(config);
+    public static boolean isARCoreReady(Activity activity, boolean installRequested) throws UnavailableException {
+        if (!hasCameraPermission(activity)) {
+            return false;
+        }
+        switch (ArCoreApk.getInstance().requestInstall(activity, !installRequested)) {
+            case INSTALL_REQUESTED:
+                return false;
+            case INSTALLED:
+                break;
         }
+        return true;
+    }
+
+    /**
+     * Creates and configures an ARCore session. This is slow, call it off the main thread once
+     * {@link #isARCoreReady(Activity, boolean)} returned true.
+     */
+    public static Session createARSession(Context context) throws UnavailableException {
+        Session session = new Session(context);
+        // IMPORTANT!!!  ArSceneView requires the `LATEST_CAMERA_IMAGE` non-blocking update mode.
+        Config config = new Config(session);
+        config.setUpdateMode(Config.UpdateMode.LATEST_CAMERA_IMAGE);
+        session.configure(config);
         return session;
     }
 
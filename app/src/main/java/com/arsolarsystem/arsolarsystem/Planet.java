@@ -15,11 +15,9 @@
  */
 package com.arsolarsystem.arsolarsystem;
 
-import android.content.Context;
-import android.view.MotionEvent;
 import android.widget.TextView;
+import com.google.ar.sceneform.Camera;
 import com.google.ar.sceneform.FrameTime;
-import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
@@ -29,41 +27,75 @@ import com.google.ar.sceneform.rendering.ViewRenderable;
 /**
  * Node that represents a planet.
  *
- * <p>The planet creates two child nodes when it is activated:
+ * <p>The planet has up to two child nodes:
  *
  * <ul>
- *   <li>The visual of the planet, rotates along it's own axis and renders the planet.
+ *   <li>The visual of the planet, renders the planet at its scale. Created when the planet is
+ *       activated.
  *   <li>An info card, renders an Android View that displays the name of the planerendt. This can be
- *       toggled on and off.
+ *       toggled on and off. The view is taken from the shared {@link InfoCardPool} when the card is
+ *       shown and given back when it is hidden. Created the first time the card is shown.
  * </ul>
  *
- * The planet is rendered by a child instead of this node so that the spinning of the planet doesn't
- * make the info card spin as well.
+ * The planet is rendered by a child instead of this node so that the scale of the planet doesn't
+ * apply to the info card. When the {@link OrbitalClock} flattens orbits the planet renders itself
+ * instead, one node per planet, and the card undoes the planet's scale. The spin is done by the
+ * planet's materials, see {@link OrbitalClock#addSpin}, so no node of the planet rotates.
+ *
+ * <p>The smaller the planet is on screen the less detailed the renderable it draws, see
+ * {@link #setLevelRenderable}. The level of detail and the card are left alone while they are
+ * outside the camera's view.
+ *
+ * <p>The planet's renderables have no collision shape, taps reach it through the {@link BodyPicker}.
  */
-public class Planet extends Node implements Node.OnTapListener {
+public class Planet extends Node {
     private final String planetName;
     private final float planetScale;
-    private final ModelRenderable planetRenderable;
+    private final OrbitalClock orbitalClock;
     private final SolarSettings solarSettings;
 
     private Node infoCard;
-    private RotatingNode planetVisual;
-    private final Context context;
+    private ViewRenderable infoCardRenderable;
+    // True from the tap that shows the card until the tap that hides it, the card may still be
+    // waiting for its view in between.
+    private boolean infoCardRequested = false;
+    private Node planetVisual;
+    private final InfoCardPool infoCardPool;
 
     private static final float INFO_CARD_Y_POS_COEFF = 0.55f;
+    // Generous bound of the card view around its center, in meters.
+    private static final float INFO_CARD_RADIUS = 0.15f;
+
+    // Radius of the planet models before planetScale is applied.
+    private static final float MODEL_RADIUS = 0.5f;
+
+    // Level 0 is the planet's model, level 1 the same model with textures of at most 128 pixels and
+    // level 2 a flat coloured sphere. Sizes are the projected radius as a fraction of half the
+    // viewport height. On phone screens level 1 starts at a radius of 50 to 80 pixels and level 2 at
+    // 6 to 10.
+    static final int LOD_REDUCED_TEXTURES = 1;
+    static final int LOD_FLAT = 2;
+    private static final LodSelector LOD_SELECTOR = new LodSelector(1.25f, 0.08f, 0.01f);
+    private final LevelOfDetail<ModelRenderable> levelOfDetail = new LevelOfDetail<>(LOD_SELECTOR);
+
+    // Reused every frame so that turning the info card towards the camera doesn't allocate.
+    private final float[] cardRotation = new float[4];
+    private final Quaternion cardLocalRotation = new Quaternion();
+    private int framesSinceCardUpdate = 0;
 
     public Planet(
-            Context context,
+            InfoCardPool infoCardPool,
             String planetName,
             float planetScale,
             ModelRenderable planetRenderable,
+            OrbitalClock orbitalClock,
             SolarSettings solarSettings) {
-        this.context = context;
+        this.infoCardPool = infoCardPool;
         this.planetName = planetName;
         this.planetScale = planetScale;
-        this.planetRenderable = planetRenderable;
+        levelOfDetail.setFull(planetRenderable);
+        this.orbitalClock = orbitalClock;
         this.solarSettings = solarSettings;
-        setOnTapListener(this);
     }
 
     @Override
@@ -74,50 +106,111 @@ public class Planet extends Node implements Node.OnTapListener {
             throw new IllegalStateException("Scene is null!");
         }
 
-        if (infoCard == null) {
-            infoCard = new Node();
-            infoCard.setParent(this);
-            infoCard.setEnabled(false);
-            infoCard.setLocalPosition(new Vector3(0.0f, planetScale * INFO_CARD_Y_POS_COEFF, 0.0f));
+        if (planetVisual == null) {
+            if (orbitalClock.isFlattened()) {
+                planetVisual = this;
+            } else {
+                planetVisual = new Node();
+                planetVisual.setParent(this);
+            }
+            planetVisual.setRenderable(levelOfDetail.getShown());
+            planetVisual.setLocalScale(new Vector3(planetScale, planetScale, planetScale));
+        }
+    }
 
-            ViewRenderable.builder()
-                    .setView(context, R.layout.planet_card_view)
-                    .build()
-                    .thenAccept(
-                            (renderable) -> {
-                                infoCard.setRenderable(renderable);
-                                TextView textView = (TextView) renderable.getView();
-                                textView.setText(planetName);
-                            })
-                    .exceptionally(
-                            (throwable) -> {
-                                throw new AssertionError("Could not load plane card view.", throwable);
-                            });
+    /**
+     * Replaces the renderable of the planet, used to swap the placeholder for the real model once
+     * it has loaded.
+     */
+    public void setPlanetRenderable(ModelRenderable planetRenderable) {
+        levelOfDetail.setFull(planetRenderable);
+        if (planetVisual != null) {
+            planetVisual.setRenderable(levelOfDetail.getShown());
         }
+    }
 
-        if (planetVisual == null) {
-            planetVisual = new RotatingNode(solarSettings, false);
-            planetVisual.setParent(this);
-            planetVisual.setRenderable(planetRenderable);
-            planetVisual.setLocalScale(new Vector3(planetScale, planetScale, planetScale));
+    /**
+     * Sets the renderable of a level of detail below the full model, {@link #LOD_REDUCED_TEXTURES}
+     * or {@link #LOD_FLAT}. Levels without one draw the next more detailed renderable.
+     */
+    public void setLevelRenderable(int level, ModelRenderable renderable) {
+        levelOfDetail.setLevel(level, renderable);
+        if (planetVisual != null) {
+            planetVisual.setRenderable(levelOfDetail.getShown());
         }
     }
 
     @Override
-    public void onTap(HitTestResult hitTestResult, MotionEvent motionEvent) {
-        if (infoCard == null) {
+    public void onDeactivate() {
+        hideInfoCard();
+    }
+
+    /** Shows the info card, or hides it when it is shown. */
+    public void toggleInfoCard() {
+        if (planetVisual == null) {
             return;
         }
 
-        infoCard.setEnabled(!infoCard.isEnabled());
+        if (infoCardRequested) {
+            hideInfoCard();
+        } else {
+            showInfoCard();
+        }
     }
 
-    @Override
-    public void onUpdate(FrameTime frameTime) {
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void showInfoCard() {
+        infoCardRequested = true;
         if (infoCard == null) {
+            createInfoCard();
+        }
+        infoCardPool.acquire()
+                .thenAccept(
+                        (renderable) -> {
+                            // The card may have been hidden again while the view was inflating.
+                            if (!infoCardRequested || infoCardRenderable != null) {
+                                infoCardPool.release(renderable);
+                                return;
+                            }
+                            infoCardRenderable = renderable;
+                            TextView textView = (TextView) renderable.getView();
+                            textView.setText(planetName);
+                            infoCard.setRenderable(renderable);
+                            infoCard.setEnabled(true);
+                        })
+                .exceptionally(
+                        (throwable) -> {
+                            throw new AssertionError("Could not load plane card view.", throwable);
+                        });
+    }
+
+    private void createInfoCard() {
+        infoCard = new Node();
+        infoCard.setParent(this);
+        infoCard.setEnabled(false);
+        if (planetVisual == this) {
+            // This node is scaled by planetScale, the card is not.
+            float inverseScale = 1.0f / planetScale;
+            infoCard.setLocalScale(new Vector3(inverseScale, inverseScale, inverseScale));
+            infoCard.setLocalPosition(new Vector3(0.0f, INFO_CARD_Y_POS_COEFF, 0.0f));
+        } else {
+            infoCard.setLocalPosition(new Vector3(0.0f, planetScale * INFO_CARD_Y_POS_COEFF, 0.0f));
+        }
+    }
+
+    private void hideInfoCard() {
+        infoCardRequested = false;
+        if (infoCardRenderable == null) {
             return;
         }
+        infoCard.setEnabled(false);
+        infoCard.setRenderable(null);
+        infoCardPool.release(infoCardRenderable);
+        infoCardRenderable = null;
+    }
 
+    @Override
+    public void onUpdate(FrameTime frameTime) {
         // Typically, getScene() will never return null because onUpdate() is only called when the node
         // is in the scene.
         // However, if onUpdate is called explicitly or if the node is removed from the scene on a
@@ -125,10 +218,50 @@ public class Planet extends Node implements Node.OnTapListener {
         if (getScene() == null) {
             return;
         }
-        Vector3 cameraPosition = getScene().getCamera().getWorldPosition();
-        Vector3 cardPosition = infoCard.getWorldPosition();
-        Vector3 direction = Vector3.subtract(cameraPosition, cardPosition);
-        Quaternion lookRotation = Quaternion.lookRotation(direction, Vector3.up());
-        infoCard.setWorldRotation(lookRotation);
+        long start = FrameProfiler.start();
+        Camera camera = getScene().getCamera();
+        // Read the translations straight out of the world matrices, getWorldPosition() returns a copy.
+        float[] cameraMatrix = camera.getWorldModelMatrix().data;
+        updateLevelOfDetail(camera, cameraMatrix);
+        updateInfoCard(cameraMatrix);
+        FrameProfiler.end(FrameProfiler.SECTION_PLANETS, start);
+    }
+
+    private void updateLevelOfDetail(Camera camera, float[] cameraMatrix) {
+        if (planetVisual == null) {
+            return;
+        }
+        float[] planetMatrix = getWorldModelMatrix().data;
+        if (!orbitalClock.isVisible(planetMatrix[12], planetMatrix[13], planetMatrix[14], planetScale * MODEL_RADIUS)) {
+            // Picked again on the first frame the planet is back in view.
+            return;
+        }
+        // The anchor is never scaled so planetScale is the world scale.
+        float radius = solarSettings.getLodBias() * planetScale * MODEL_RADIUS;
+        if (levelOfDetail.update(cameraMatrix, planetMatrix, radius, camera.getProjectionMatrix().data[5])) {
+            planetVisual.setRenderable(levelOfDetail.getShown());
+        }
+    }
+
+    private void updateInfoCard(float[] cameraMatrix) {
+        // Hidden cards don't need to face the camera.
+        if (infoCard == null || !infoCard.isEnabled()) {
+            return;
+        }
+        // At lower quality the card turns less often, the camera rarely moves far in a few frames.
+        if (++framesSinceCardUpdate < solarSettings.getCardUpdateInterval()) {
+            return;
+        }
+        framesSinceCardUpdate = 0;
+        float[] card = infoCard.getWorldModelMatrix().data;
+        if (!orbitalClock.isVisible(card[12], card[13], card[14], INFO_CARD_RADIUS)) {
+            return;
+        }
+        // Planets never rotate and anchors only turn about the vertical, as towardCamera() needs.
+        if (!Billboard.towardCamera(cameraMatrix, card, getWorldModelMatrix().data, cardRotation)) {
+            return;
+        }
+        cardLocalRotation.set(cardRotation[0], cardRotation[1], cardRotation[2], cardRotation[3]);
+        infoCard.setLocalRotation(cardLocalRotation);
     }
 }
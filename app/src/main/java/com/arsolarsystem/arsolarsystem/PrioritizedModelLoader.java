@@ -0,0 +1,149 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import com.google.ar.sceneform.rendering.ModelRenderable;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads model assets in priority order with a small number of loads in flight.
+ *
+ * <p>Every asset gets its future as soon as it is queued, so callers can attach to a model that has
+ * not started loading yet. Assets are named by their full variant and loaded from the variant the
+ * {@link AssetVariantSelector} picked for the device. Models are stored uncompressed in the APK, see
+ * build.gradle, so they are memory mapped from it instead of being inflated on every launch.
+ * Sceneform completes its builds on the main thread, which is also where this class is used, so no
+ * locking is needed.
+ */
+class PrioritizedModelLoader {
+    // Loading everything at once makes the first models wait for the last ones. Two loads keep the
+    // decoder busy while still finishing the high priority assets first.
+    private static final int MAX_CONCURRENT_LOADS = 2;
+
+    private final Context context;
+    private final AssetVariantSelector variants;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private final Map<String, CompletableFuture<ModelRenderable>> futures = new HashMap<>();
+    private int inFlight = 0;
+
+    public PrioritizedModelLoader(Context context, AssetVariantSelector variants) {
+        this.context = context;
+        this.variants = variants;
+    }
+
+    /** Queues assets behind the ones already queued. Earlier assets start loading first. */
+    public void enqueue(String... assets) {
+        for (String asset : assets) {
+            if (futures.containsKey(asset)) {
+                continue;
+            }
+            futures.put(asset, new CompletableFuture<>());
+            pending.add(asset);
+        }
+        startNext();
+    }
+
+    /** Returns the future of a queued asset. */
+    public CompletableFuture<ModelRenderable> get(String asset) {
+        CompletableFuture<ModelRenderable> future = futures.get(asset);
+        if (future == null) {
+            throw new IllegalArgumentException("Asset was never queued: " + asset);
+        }
+        return future;
+    }
+
+    /** Returns a future that completes once every queued asset has loaded, or one has failed. */
+    public CompletableFuture<Void> getAll() {
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]));
+    }
+
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void startNext() {
+        while (inFlight < MAX_CONCURRENT_LOADS && !pending.isEmpty()) {
+            String asset = pending.poll();
+            CompletableFuture<ModelRenderable> result = futures.get(asset);
+            String source = variants.resolve(asset);
+            inFlight++;
+            long start = System.nanoTime();
+            // Sceneform calls the source on its loading thread.
+            ModelRenderable.builder()
+                    .setSource(context, () -> openMapped(source))
+                    .build()
+                    .handle(
+                            (renderable, throwable) -> {
+                                inFlight--;
+                                FrameProfiler.recordLoad(source, System.nanoTime() - start);
+                                if (throwable != null) {
+                                    PermissionHelper.dispalyError(context, "Unable to load " + source, throwable);
+                                    result.completeExceptionally(throwable);
+                                } else {
+                                    // Every model is a body, taps on them go through the BodyPicker.
+                                    renderable.setCollisionShape(null);
+                                    result.complete(renderable);
+                                }
+                                startNext();
+                                return null;
+                            });
+        }
+    }
+
+    /** Returns a stream over a memory map of an uncompressed asset, nothing is inflated or copied. */
+    private InputStream openMapped(String asset) throws IOException {
+        try (AssetFileDescriptor descriptor = context.getAssets().openFd(asset);
+                FileInputStream input = descriptor.createInputStream();
+                FileChannel channel = input.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            return new ByteBufferInputStream(channel.map(
+                    FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+        }
+    }
+
+    /** Stream over a buffer, reads are plain copies out of the mapping. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0L, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.arsolarsystem.arsolarsystem;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+import android.util.Log;
+
+import com.arsolarsystem.arsolarsystem.quality.QualityGovernor;
+import com.arsolarsystem.arsolarsystem.quality.QualityLevel;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds frame times and the battery state to a {@link QualityGovernor} and applies the level it
+ * picks to the scene.
+ *
+ * <p>The frame times come from the Scene's update deltas. The battery is read from the sticky
+ * battery broadcast every few seconds; its temperature stands in for the thermal status, which
+ * needs API 29.
+ */
+class QualityMonitor implements Scene.OnUpdateListener, QualityGovernor.OnQualityChangedListener {
+    private static final String TAG = "QualityMonitor";
+    private static final long TARGET_FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final long DEVICE_STATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Context context;
+    private final SolarSettings solarSettings;
+    private final OrbitalClock orbitalClock;
+    private final BeltMesh[] beltMeshes;
+    private final PowerManager powerManager;
+    private final QualityGovernor governor =
+            new QualityGovernor(TARGET_FRAME_NANOS, QualityLevel.defaultLevels());
+    private long nextDeviceStateNanos = 0L;
+
+    public QualityMonitor(
+            Context context, SolarSettings solarSettings, OrbitalClock orbitalClock, BeltMesh... beltMeshes) {
+        this.context = context;
+        this.solarSettings = solarSettings;
+        this.orbitalClock = orbitalClock;
+        this.beltMeshes = beltMeshes;
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        governor.setOnQualityChangedListener(this);
+        onQualityChanged(governor.getLevel());
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        long now = System.nanoTime();
+        governor.onFrame(frameTime.getDeltaTime(TimeUnit.NANOSECONDS), now);
+        if (now - nextDeviceStateNanos >= 0L) {
+            nextDeviceStateNanos = now + DEVICE_STATE_INTERVAL_NANOS;
+            readDeviceState(now);
+        }
+    }
+
+    @Override
+    public void onQualityChanged(QualityLevel level) {
+        Log.i(TAG, "onQualityChanged: " + level);
+        solarSettings.setLodBias(level.getLodBias());
+        solarSettings.setCardUpdateInterval(level.getCardUpdateInterval());
+        orbitalClock.setSimulationStepSeconds(level.getSimulationStepSeconds());
+        for (BeltMesh beltMesh : beltMeshes) {
+            beltMesh.setVisibleFraction(level.getBeltFraction());
+        }
+    }
+
+    private void readDeviceState(long now) {
+        // Passing a null receiver only returns the last sticky broadcast, nothing is registered.
+        Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery == null) {
+            return;
+        }
+        float celsius = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0) / 10.0f;
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        float fraction = level >= 0 && scale > 0 ? (float) level / scale : 1.0f;
+        boolean isCharging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+        boolean isPowerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+        governor.onDeviceState(celsius, fraction, isCharging, isPowerSaveMode, now);
+    }
+}
@@ -0,0 +1,72 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Vertex;
+
+import java.util.List;
+
+/**
+ * Flat ribbon segments for drawing lines, which Sceneform has no primitive for.
+ *
+ * <p>A segment is a quad of four vertices of its own, lying in the horizontal plane across the line,
+ * with triangles facing both up and down so it shows from above and below the orbits. Owning its
+ * vertices lets a segment be moved or hidden without touching its neighbours.
+ */
+final class Ribbon {
+    static final int VERTICES_PER_SEGMENT = 4;
+    private static final int[] SEGMENT_TRIANGLES = {0, 1, 2, 2, 1, 3, 0, 2, 1, 2, 3, 1};
+    private static final float EPSILON = 1e-9f;
+
+    private Ribbon() {
+    }
+
+    /** Adds the vertices and triangles of a segment, collapsed until it is set. */
+    static void addSegment(List<Vertex> vertices, List<Integer> triangleIndices) {
+        int first = vertices.size();
+        for (int i = 0; i < VERTICES_PER_SEGMENT; i++) {
+            vertices.add(Vertex.builder()
+                    .setPosition(Vector3.zero())
+                    .setNormal(Vector3.up())
+                    .build());
+        }
+        for (int index : SEGMENT_TRIANGLES) {
+            triangleIndices.add(first + index);
+        }
+    }
+
+    /**
+     * Moves a segment to run from A to B, in scene space.
+     *
+     * @param first - first vertex of the segment.
+     * @param scratch - reused for the positions, Vertex copies them.
+     */
+    static void setSegment(List<Vertex> vertices, int first,
+            float ax, float ay, float az, float bx, float by, float bz, float halfWidth, Vector3 scratch) {
+        // Across the line in the horizontal plane: direction x up, with up = (0, 1, 0).
+        float sideX = -(bz - az);
+        float sideZ = bx - ax;
+        float length = (float) Math.sqrt(sideX * sideX + sideZ * sideZ);
+        if (length < EPSILON) {
+            collapseSegment(vertices, first, scratch);
+            return;
+        }
+        sideX *= halfWidth / length;
+        sideZ *= halfWidth / length;
+        scratch.set(ax - sideX, ay, az - sideZ);
+        vertices.get(first).setPosition(scratch);
+        scratch.set(ax + sideX, ay, az + sideZ);
+        vertices.get(first + 1).setPosition(scratch);
+        scratch.set(bx - sideX, by, bz - sideZ);
+        vertices.get(first + 2).setPosition(scratch);
+        scratch.set(bx + sideX, by, bz + sideZ);
+        vertices.get(first + 3).setPosition(scratch);
+    }
+
+    /** Moves every vertex of a segment to the origin, so it draws nothing. */
+    static void collapseSegment(List<Vertex> vertices, int first, Vector3 scratch) {
+        scratch.set(0.0f, 0.0f, 0.0f);
+        for (int i = 0; i < VERTICES_PER_SEGMENT; i++) {
+            vertices.get(first + i).setPosition(scratch);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+import com.arsolarsystem.arsolarsystem.nbody.GravitySandbox;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Renderable;
+
+/**
+ * Node that shows the bodies flung into one placed solar system, see {@link GravitySandbox}.
+ *
+ * <p>The node sits on the star, and every frame it anchors the bodies of the system where the
+ * {@link OrbitalClock} put them and steps the sandbox by the orbit time that passed, so flung bodies
+ * follow the speed multiplier like the orbits do and run backwards with them. Seeks and scrubs
+ * jump further than a frame should step, so the flung bodies wait those out.
+ *
+ * <p>The sandbox works in the ephemeris frame and units, the node maps positions the way the clock
+ * does.
+ */
+class SandboxNode extends Node {
+    // Orbit time a frame can step at most, a few frames at the fastest speed.
+    private static final double MAX_FRAME_ORBIT_SECONDS = 0.5;
+
+    private final GravitySandbox sandbox;
+    private final OrbitalClock orbitalClock;
+    // Orbit of every anchored body, null for the star at the origin.
+    private final OrbitalElements[] orbits;
+    private final float metersPerUnit;
+    private final double flungMass;
+    private final Node[] flungNodes;
+
+    private double lastOrbitSeconds;
+
+    // Reused every frame, Node copies the values it is given.
+    private final float[] scratchBodyPosition = new float[3];
+    private final Vector3 scratchPosition = new Vector3();
+
+    /**
+     * @param orbits - orbit of every anchored body of the sandbox, in its order, null for the star.
+     * @param flungRenderable - drawn for every flung body, at the given scale.
+     * @param metersPerUnit - scale from the ephemeris units to meters, as given to the clock.
+     * @param flungMass - mass of every flung body.
+     */
+    public SandboxNode(GravitySandbox sandbox, OrbitalClock orbitalClock, OrbitalElements[] orbits,
+                       Renderable flungRenderable, float flungScale, float metersPerUnit, double flungMass) {
+        this.sandbox = sandbox;
+        this.orbitalClock = orbitalClock;
+        this.orbits = orbits;
+        this.metersPerUnit = metersPerUnit;
+        this.flungMass = flungMass;
+        this.lastOrbitSeconds = orbitalClock.getOrbitSeconds();
+        flungNodes = new Node[sandbox.getMaxFlungBodies()];
+        for (int slot = 0; slot < flungNodes.length; slot++) {
+            Node flung = new Node();
+            flung.setParent(this);
+            flung.setRenderable(flungRenderable);
+            flung.setLocalScale(new Vector3(flungScale, flungScale, flungScale));
+            flung.setEnabled(false);
+            flungNodes[slot] = flung;
+        }
+    }
+
+    /**
+     * Flings a body in from a point in world space, along a world direction, at a speed in ephemeris
+     * units per orbit second.
+     */
+    public void fling(Vector3 worldPosition, Vector3 worldDirection, double speed) {
+        Vector3 position = worldToLocalPoint(worldPosition);
+        Vector3 direction = worldToLocalDirection(worldDirection).normalized();
+        anchorBodies();
+        // The inverse of the clock's mapping, scene Y up back to the orbit normal Z.
+        int slot = sandbox.fling(flungMass,
+                position.x / metersPerUnit, -position.z / metersPerUnit, position.y / metersPerUnit,
+                direction.x * speed, -direction.z * speed, direction.y * speed);
+        flungNodes[slot].setEnabled(true);
+        writeFlung(slot);
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        double orbitSeconds = orbitalClock.getOrbitSeconds();
+        double dt = orbitSeconds - lastOrbitSeconds;
+        lastOrbitSeconds = orbitSeconds;
+        if (!sandbox.hasFlungBodies()) {
+            return;
+        }
+        long start = FrameProfiler.start();
+        anchorBodies();
+        if (Math.abs(dt) <= MAX_FRAME_ORBIT_SECONDS) {
+            sandbox.advance(dt);
+        }
+        for (int slot = 0; slot < flungNodes.length; slot++) {
+            if (sandbox.isActive(slot)) {
+                writeFlung(slot);
+            } else if (flungNodes[slot].isEnabled()) {
+                flungNodes[slot].setEnabled(false);
+            }
+        }
+        FrameProfiler.end(FrameProfiler.SECTION_SANDBOX, start);
+    }
+
+    private void anchorBodies() {
+        for (int body = 0; body < orbits.length; body++) {
+            // Bodies the clock has no position for yet keep the last one.
+            if (orbits[body] != null && orbitalClock.getPositionFromStar(orbits[body], scratchBodyPosition)) {
+                sandbox.setAnchoredPosition(body, scratchBodyPosition[0], scratchBodyPosition[1], scratchBodyPosition[2]);
+            }
+        }
+    }
+
+    private void writeFlung(int slot) {
+        scratchPosition.set(
+                (float) sandbox.getX(slot) * metersPerUnit,
+                (float) sandbox.getZ(slot) * metersPerUnit,
+                (float) -sandbox.getY(slot) * metersPerUnit);
+        flungNodes[slot].setLocalPosition(scratchPosition);
+    }
+}
@@ -1,18 +1,36 @@
 package com.arsolarsystem.arsolarsystem;
 
+import android.app.ActivityManager;
+import android.app.DatePickerDialog;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.net.Uri;
 import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
 import android.support.design.widget.Snackbar;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.os.Debug;
 import android.util.Log;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.WindowManager;
+import android.widget.CheckBox;
 import android.widget.SeekBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+import com.arsolarsystem.arsolarsystem.catalog.BodyTable;
+import com.arsolarsystem.arsolarsystem.catalog.CatalogReader;
+import com.arsolarsystem.arsolarsystem.ephemeris.ChebyshevEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+import com.arsolarsystem.arsolarsystem.nbody.BarnesHutIntegrator;
+import com.arsolarsystem.arsolarsystem.nbody.GravitySandbox;
+import com.arsolarsystem.arsolarsystem.simulation.SimulationCalendar;
+import com.arsolarsystem.arsolarsystem.trail.TrailBuffer;
 import com.google.ar.core.Anchor;
 import com.google.ar.core.Frame;
 import com.google.ar.core.HitResult;
@@ -28,12 +46,33 @@ import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.collision.Ray;
 import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Color;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.MaterialFactory;
 import com.google.ar.sceneform.rendering.ModelRenderable;
+import com.google.ar.sceneform.rendering.ShapeFactory;
 import com.google.ar.sceneform.rendering.ViewRenderable;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 public class SolarActivity extends AppCompatActivity {
     private static final int RC_PERMISSION = 0x123;
@@ -44,40 +83,185 @@ public class SolarActivity extends AppCompatActivity {
 
     private ArSceneView arSceneView;
 
+    // Creates the ARCore session off the main thread. Handed to the next activity on a
+    // configuration change, with the session it holds.
+    private ArSessionLoader sessionLoader;
+
+    // Frame trace entries for the time to the first tracked frame. Cold starts create a session and
+    // count from onCreate, warm ones attach or resume an existing session and count from onResume.
+    private static final String COLD_START_TRACE = "session_cold_first_tracked_frame";
+    private static final String WARM_START_TRACE = "session_warm_first_tracked_frame";
+    private long createdNanos;
+    private FirstTrackedFrameTracer firstFrameTracer;
+
+    // True between onResume and onPause, the session is only attached and resumed while it is.
+    private boolean isActivityResumed = false;
+
+    private FrameStatsHud frameStatsHud;
+
+    // Resolves taps on the bodies of every placed system.
+    private BodyPicker bodyPicker;
+
+    private SurfaceDetector surfaceDetector;
+
+    private PrioritizedModelLoader modelLoader;
+
+    // Set once the models have loaded in this process. Startup times go into the frame trace as
+    // cold before that, and warm for activities created after it, which find the APK's mapped
+    // models already in the page cache.
+    private static boolean hasLoadedModelsInProcess = false;
+
+    // The bundled catalog uses the real eccentricity, inclination, longitude of the ascending node,
+    // argument of periapsis and J2000 mean anomaly. Distances (AU) and speeds (degrees per second)
+    // are compressed so the whole system fits on a table.
+    private static final String CATALOG = "solar_system.json";
+
+    // Chebyshev tables of the catalog bodies, written by ephemeris-tables.gradle. Stored
+    // uncompressed, so the table is mapped straight from the APK.
+    private static final String EPHEMERIS_TABLE = "solar_system.eph";
+
+    // Bodies of the system, read once and shared by every placed copy so the orbital clock solves
+    // each orbit once per frame.
+    private BodyTable bodies;
+
+    // Every model of the catalog, in the order it is loaded.
+    private String[] modelAssets;
+
+    // Info card views are inflated on first use and shared between the planets.
+    private InfoCardPool infoCardPool;
+
     private ModelRenderable sunRenderable;
-    private ModelRenderable mercuryRenderable;
-    private ModelRenderable venusRenderable;
-    private ModelRenderable earthRenderable;
-    private ModelRenderable lunaRenderable;
-    private ModelRenderable marsRenderable;
-    private ModelRenderable jupiterRenderable;
-    private ModelRenderable saturnRenderable;
-    private ModelRenderable uranusRenderable;
-    private ModelRenderable neptuneRenderable;
+
+    // Shown in place of a planet until its model has loaded.
+    private ModelRenderable placeholderRenderable;
 
     private ViewRenderable solarControlsRenderable;
 
-    //True once scene is loaded
-    private boolean hasFinishedLoading = false;
+    // The orbit speed bar goes from a year per second backwards to a year per second forwards and
+    // stands still in the middle.
+    private static final double MAX_DAYS_PER_SECOND = 365.0;
+    // Days jumped per step of the scrub bar, a drag across all of it is close to three years.
+    private static final double SCRUB_DAYS_PER_STEP = 10.0;
+    // Every change of the shown date redraws the controls view, so it is refreshed at most this
+    // often.
+    private static final long DATE_REFRESH_NANOS = 250_000_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
 
-    //True once the scene has been placed
-    private boolean hasPlacedsolarSystem = false;
+    // Models with textures of at most 128 pixels, built by asset-variants.gradle, for planets that
+    // are small on screen. Under this directory with the name of the full model.
+    private static final String LOD_ASSET_DIR = "lod/";
+
+    // Flat coloured spheres by asset for planets a few pixels big, shared by every copy of a planet.
+    private final Map<String, CompletableFuture<ModelRenderable>> lowDetailStages = new HashMap<>();
+
+    //True once the models needed for placement are loaded, planets may still be loading.
+    private boolean hasFinishedLoading = false;
 
     // Astronomical units to meters ratio. Used for positioning the planets of the solar system.
     private static final float AU_TO_METERS = 0.5f;
 
-    private SolarSettings solarSettings = new SolarSettings();
+    // Classroom setups place several systems, all sharing renderables and the orbital clock.
+    private static final int MAX_SOLAR_SYSTEMS = 16;
+    private int placedSolarSystems = 0;
+
+    // Belt bodies between Mars and Jupiter and beyond Neptune, on the same compressed scale as the
+    // planets. Their speeds follow Kepler's third law from Earth's 29 degrees per second.
+    private static final int ASTEROID_BELT_BODIES = 1500;
+    private static final int KUIPER_BELT_BODIES = 1000;
+    private static final float BELT_MEAN_MOTION_AT_1_AU = 29f;
+    private static final float BELT_BODY_RADIUS = 0.004f;
+    // Belts are solved again once a body may have moved half the radius of the largest body, in AU.
+    private static final float BELT_MINIMUM_MOVE = 0.5f * BELT_BODY_RADIUS / AU_TO_METERS;
+    private BeltMesh asteroidBeltMesh;
+    private BeltMesh kuiperBeltMesh;
+
+    // Orbit ellipses, one shared mesh per body that has something going around it, built once
+    // per catalog. Null for bodies without orbits around them.
+    private static final float ORBIT_PATH_WIDTH = 0.002f;
+    private OrbitPathMesh[] orbitPathMeshes;
+
+    // Trails of the last 64 to 80 ticks of every body, a tick every 1/16 orbit second. The oldest
+    // blocks fade out.
+    private static final double TRAIL_TICK_SECONDS = 1.0 / 16.0;
+    private static final int TRAIL_BLOCK_SIZE = 16;
+    private static final float[] TRAIL_BLOCK_ALPHAS = {0.8f, 0.6f, 0.4f, 0.25f, 0.1f};
+    private static final float TRAIL_WIDTH = 0.004f;
+    private OrbitTrailMesh orbitTrailMesh;
+
+    // Spin of the planet models in degrees per second of spin time, turned by their materials.
+    private static final float PLANET_SPIN_DEGREES_PER_SECOND = 90.0f;
+
+    // Radius of the placeholder sphere, matches the unit sized planet models.
+    private static final float PLACEHOLDER_RADIUS = 0.5f;
+
+    // Flinging on the screen throws a body into the placed system the fling aims closest to, see
+    // SandboxNode. Flung bodies weigh as much as the Earth and show as placeholder spheres a little
+    // smaller than the Moon. G makes the Earth's orbit Keplerian, in AU and orbit seconds.
+    private static final int MAX_FLUNG_BODIES = 32;
+    private static final double FLUNG_BODY_MASS = 3.0e-6;
+    private static final float FLUNG_BODY_SCALE = 0.015f;
+    private static final double SANDBOX_MAX_STEP_SECONDS = 1.0 / 120.0;
+    private static final int SANDBOX_MAX_SUBSTEPS = 16;
+    // Keeps close passes by the planet models, a few hundredths of an AU across, from slinging
+    // bodies out at absurd speeds.
+    private static final double SANDBOX_SOFTENING = 0.05;
+    private static final double SANDBOX_THETA = 0.5;
+    // Bodies further out than this, about twice Neptune's orbit, are dropped.
+    private static final double SANDBOX_ESCAPE_RADIUS = 12.0;
+    // A fling this fast on screen throws at the Earth's orbital speed, up to a few times that.
+    private static final float FLING_PIXELS_PER_EARTH_SPEED = 2000f;
+    private static final float FLING_MAX_EARTH_SPEEDS = 3f;
+    // The body is thrown toward where the finger would be this much later.
+    private static final float FLING_AIM_SECONDS = 0.1f;
+    private double sandboxGravitationalConstant;
+    private double earthOrbitalSpeed;
+    private double[] bodyMasses;
+    private OrbitalElements[] bodyOrbits;
+    private final List<SandboxNode> sandboxNodes = new ArrayList<>();
+
+    // Built once the catalog is read, the calendar follows its Earth.
+    private SolarSettings solarSettings;
+
+    // One node per planet, placed relative to the Sun, instead of a planet and visual node nested
+    // under the body each planet goes around. Kept switchable to compare the two layouts.
+    private static final boolean FLATTEN_ORBITS = true;
+
+    // Drives every orbit and planet spin from one per-frame tick.
+    private OrbitalClock orbitalClock;
 
     // CompletableFuture requires api level 24
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdNanos = System.nanoTime();
         setContentView(R.layout.activity_solar);
         if (!PermissionHelper.checkIsSupportedDeviceOrFinish(this)) {
             // Not a supported device;
             return;
         }
         arSceneView = findViewById(R.id.ar_scene_view);
+        sessionLoader = (ArSessionLoader) getLastCustomNonConfigurationInstance();
+        if (sessionLoader == null) {
+            sessionLoader = new ArSessionLoader(this);
+        }
+
+        bodies = loadCatalog();
+        if (bodies == null) {
+            finish();
+            return;
+        }
+        int earth = bodies.indexOf("Earth");
+        if (earth < 0) {
+            PermissionHelper.dispalyError(this, CATALOG + " has no Earth to keep the calendar by", null);
+            finish();
+            return;
+        }
+        SimulationCalendar calendar = new SimulationCalendar(bodies.getOrbit(earth));
+        solarSettings = new SolarSettings(calendar);
+        orbitalClock = new OrbitalClock(solarSettings, calendar, AU_TO_METERS, FLATTEN_ORBITS);
+        modelAssets = bodies.getDistinctAssets();
+        initializeSandbox(earth);
+        orbitalClock.setEphemerisTable(loadEphemerisTable());
 
         //It initilize models
         initializeModels();
@@ -90,6 +274,11 @@ public class SolarActivity extends AppCompatActivity {
                 return true;
             }
 
+            @Override
+            public boolean onFling(MotionEvent start, MotionEvent end, float velocityX, float velocityY) {
+                return onFlingBody(end, velocityX, velocityY);
+            }
+
             @Override
             public boolean onDown(MotionEvent e) {
                 return true;
@@ -100,9 +289,10 @@ public class SolarActivity extends AppCompatActivity {
         arSceneView.getScene().setOnTouchListener(new Scene.OnTouchListener() {
             @Override
             public boolean onSceneTouch(HitTestResult hitTestResult, MotionEvent motionEvent) {
-                // If the solar system hasn't been placed yet, detect a tap and then check to see if
-                // the tap occurred on an ARCore plane to place the solar system.
-                if (!hasPlacedsolarSystem) {
+                // If the touch didn't hit a node, detect a tap and then check to see if the tap
+                // picked a body or occurred on an ARCore plane to place another solar system.
+                // Bodies have no collision shapes, only the controls are hit by Sceneform.
+                if (hitTestResult.getNode() == null) {
                     return gestureDetector.onTouchEvent(motionEvent);
                 }
                 // Otherwise return false so that the touch event can propagate to the scene.
@@ -110,59 +300,154 @@ public class SolarActivity extends AppCompatActivity {
             }
         });
 
-        // Set an update listener on the Scene that will hide the loading message once a Plane is
-        // detected.
-        arSceneView.getScene().addOnUpdateListener(new Scene.OnUpdateListener() {
-            @Override
-            public void onUpdate(FrameTime frameTime) {
-                if (loadindMessageSnackbar == null) {
-                    return;
-                }
-                Frame frame = arSceneView.getArFrame();
-                if (frame == null) {
-                    return;
-                }
-                if (frame.getCamera().getTrackingState() != TrackingState.TRACKING) {
-                    return;
-                }
-                for (Plane plane : frame.getUpdatedTrackables(Plane.class)) {
-                    if (plane.getTrackingState() == TrackingState.TRACKING) {
-                        hideLoadingMessage();
-                    }
-                }
-            }
-        });
+        // The stats HUD closes each frame, so it has to run before every other update listener.
+        frameStatsHud = new FrameStatsHud(findViewById(R.id.frameStatsText));
+        arSceneView.getScene().addOnUpdateListener(frameStatsHud);
+        orbitalClock.setCamera(arSceneView.getScene().getCamera());
+        arSceneView.getScene().addOnUpdateListener(orbitalClock);
+        // After the clock, so the picker sees the bodies where they are drawn.
+        bodyPicker = new BodyPicker(arSceneView);
+        arSceneView.getScene().addOnUpdateListener(bodyPicker);
+        firstFrameTracer = new FirstTrackedFrameTracer(arSceneView);
+
+        // Hide the loading message once a Plane is detected. The detector stops listening to frame
+        // updates as soon as a surface is ready or the system is placed.
+        surfaceDetector = new SurfaceDetector(arSceneView);
+        surfaceDetector.addOnSurfaceReadyListener(this::hideLoadingMessage);
 
         // Lastly request CAMERA permission which is required by ARCore.
         PermissionHelper.requestCameraPermission(this, RC_PERMISSION);
     }
 
+    /** Reads the bundled catalog, returns null and shows an error if it can not be read. */
+    private BodyTable loadCatalog() {
+        long start = System.nanoTime();
+        try (Reader catalog = new InputStreamReader(getAssets().open(CATALOG), StandardCharsets.UTF_8)) {
+            BodyTable table = CatalogReader.read(catalog);
+            FrameProfiler.recordLoad(CATALOG, System.nanoTime() - start);
+            return table;
+        } catch (IOException e) {
+            PermissionHelper.dispalyError(this, "Unable to read " + CATALOG, e);
+            return null;
+        }
+    }
+
+    /** Takes the masses of the sandbox from the catalog and its units from the Earth's orbit. */
+    private void initializeSandbox(int earth) {
+        OrbitalElements earthOrbit = bodies.getOrbit(earth);
+        sandboxGravitationalConstant = GravitySandbox.gravitationalConstant(
+                bodies.getMass(0), earthOrbit.getSemiMajorAxis(), earthOrbit.getMeanMotion());
+        earthOrbitalSpeed = Math.toRadians(Math.abs(earthOrbit.getMeanMotion())) * earthOrbit.getSemiMajorAxis();
+        bodyMasses = new double[bodies.getCount()];
+        bodyOrbits = new OrbitalElements[bodies.getCount()];
+        for (int body = 0; body < bodies.getCount(); body++) {
+            bodyMasses[body] = bodies.getMass(body);
+            bodyOrbits[body] = bodies.getOrbit(body);
+        }
+    }
+
+    /**
+     * Maps the bundled ephemeris table, returns null if there is none and the orbits are solved
+     * instead.
+     */
+    private ChebyshevEphemeris loadEphemerisTable() {
+        long start = System.nanoTime();
+        try (AssetFileDescriptor descriptor = getAssets().openFd(EPHEMERIS_TABLE);
+                FileInputStream input = descriptor.createInputStream();
+                FileChannel channel = input.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            ChebyshevEphemeris table = new ChebyshevEphemeris(channel.map(
+                    FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+            FrameProfiler.recordLoad(EPHEMERIS_TABLE, System.nanoTime() - start);
+            return table;
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "loadEphemerisTable: Solving orbits without a table", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the asset manifest and picks the model variants for this device. Without a manifest the
+     * full models are used.
+     */
+    private AssetVariantSelector loadAssetVariants() {
+        AssetVariantSelector variants;
+        try (Reader manifest = new InputStreamReader(
+                getAssets().open(AssetVariantSelector.MANIFEST), StandardCharsets.UTF_8)) {
+            variants = AssetVariantSelector.parse(manifest);
+        } catch (IOException e) {
+            Log.w(TAG, "loadAssetVariants: Unable to read the asset manifest", e);
+            return AssetVariantSelector.empty();
+        }
+        ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        variants.select(activityManager.getDeviceConfigurationInfo().reqGlEsVersion,
+                memoryInfo.totalMem,
+                activityManager.isLowRamDevice(),
+                modelAssets);
+        return variants;
+    }
+
     private void initializeModels() {
-        //Build all the Planets Model
-        CompletableFuture<ModelRenderable> sunStage = ModelRenderable.builder().setSource(this, Uri.parse("Sol.sfb")).build();
-        CompletableFuture<ModelRenderable> mercuryStage = ModelRenderable.builder().setSource(this, Uri.parse("Mercury.sfb")).build();
-        CompletableFuture<ModelRenderable> venusStage = ModelRenderable.builder().setSource(this, Uri.parse("Venus.sfb")).build();
-        CompletableFuture<ModelRenderable> earthStage = ModelRenderable.builder().setSource(this, Uri.parse("Earth.sfb")).build();
-        CompletableFuture<ModelRenderable> lunaStage = ModelRenderable.builder().setSource(this, Uri.parse("Luna.sfb")).build();
-        CompletableFuture<ModelRenderable> marsStage = ModelRenderable.builder().setSource(this, Uri.parse("Mars.sfb")).build();
-        CompletableFuture<ModelRenderable> jupiterStage = ModelRenderable.builder().setSource(this, Uri.parse("Jupiter.sfb")).build();
-        CompletableFuture<ModelRenderable> saturnStage = ModelRenderable.builder().setSource(this, Uri.parse("Saturn.sfb")).build();
-        CompletableFuture<ModelRenderable> uranusStage = ModelRenderable.builder().setSource(this, Uri.parse("Uranus.sfb")).build();
-        CompletableFuture<ModelRenderable> neptuneStage = ModelRenderable.builder().setSource(this, Uri.parse("Neptune.sfb")).build();
+        long loadStart = System.nanoTime();
+        AssetVariantSelector variants = loadAssetVariants();
+        String startup = hasLoadedModelsInProcess ? "startup_warm" : "startup_cold";
+
+        // Queue the models by priority, the Sun first and then the planets from the inside out.
+        // Only the Sun is needed to place the system, planets attach as their models arrive.
+        modelLoader = new PrioritizedModelLoader(this, variants);
+        infoCardPool = new InfoCardPool(this);
+        modelLoader.enqueue(modelAssets);
+        // The reduced levels of detail of the planets are small and only needed far away, they come
+        // after every full model.
+        List<String> lodAssets = new ArrayList<>();
+        for (int body = 1; body < bodies.getCount(); body++) {
+            String lodAsset = LOD_ASSET_DIR + bodies.getAsset(body);
+            if (!lodAssets.contains(lodAsset)) {
+                lodAssets.add(lodAsset);
+            }
+        }
+        modelLoader.enqueue(lodAssets.toArray(new String[0]));
+        // Materials are shared by every copy of a model, so each model is spun once for all of them.
+        // The Sun doesn't spin.
+        for (String asset : modelAssets) {
+            if (!asset.equals(bodies.getAsset(0))) {
+                modelLoader.get(asset).thenAccept(
+                        renderable -> orbitalClock.addSpin(renderable, PLANET_SPIN_DEGREES_PER_SECOND));
+            }
+        }
+        for (String asset : lodAssets) {
+            modelLoader.get(asset).thenAccept(
+                    renderable -> orbitalClock.addSpin(renderable, PLANET_SPIN_DEGREES_PER_SECOND));
+        }
+        modelLoader.getAll().handle((aVoid, throwable) -> {
+            hasLoadedModelsInProcess = true;
+            FrameProfiler.recordLoad(startup + "_all_models", System.nanoTime() - loadStart);
+            return null;
+        });
+        CompletableFuture<ModelRenderable> sunStage = modelLoader.get(bodies.getAsset(0));
 
         CompletableFuture<ViewRenderable> solarControlsStage = ViewRenderable.builder().setView(this, R.layout.solar_controls).build();
 
-        CompletableFuture.allOf(sunStage,
-                mercuryStage,
-                venusStage,
-                earthStage,
-                lunaStage,
-                marsStage,
-                jupiterStage,
-                saturnStage,
-                uranusStage,
-                neptuneStage,
-                solarControlsStage)
+        CompletableFuture<Material> beltMaterialStage = MaterialFactory.makeOpaqueWithColor(this, new Color(0.45f, 0.42f, 0.38f));
+
+        CompletableFuture<Material> placeholderMaterialStage = MaterialFactory.makeOpaqueWithColor(this, new Color(0.6f, 0.6f, 0.6f));
+
+        CompletableFuture<Material> orbitPathMaterialStage =
+                MaterialFactory.makeTransparentWithColor(this, new Color(0.6f, 0.7f, 0.9f, 0.35f));
+        List<CompletableFuture<Material>> trailMaterialStages = new ArrayList<>();
+        for (float alpha : TRAIL_BLOCK_ALPHAS) {
+            trailMaterialStages.add(MaterialFactory.makeTransparentWithColor(this, new Color(0.9f, 0.9f, 1.0f, alpha)));
+        }
+
+        List<CompletableFuture<?>> placementStages = new ArrayList<>(trailMaterialStages);
+        placementStages.add(sunStage);
+        placementStages.add(solarControlsStage);
+        placementStages.add(beltMaterialStage);
+        placementStages.add(placeholderMaterialStage);
+        placementStages.add(orbitPathMaterialStage);
+        CompletableFuture.allOf(placementStages.toArray(new CompletableFuture<?>[0]))
                 .handle((aVoid, throwable) -> {
                     // When you build a Renderable, Sceneform loads its resources in the background while
                     // returning a CompletableFuture. Call handle(), thenAccept(), or check isDone()
@@ -173,19 +458,35 @@ public class SolarActivity extends AppCompatActivity {
                     }
                     try {
                         sunRenderable = sunStage.get();
-                        mercuryRenderable = mercuryStage.get();
-                        venusRenderable = venusStage.get();
-                        earthRenderable = earthStage.get();
-                        lunaRenderable = lunaStage.get();
-                        marsRenderable = marsStage.get();
-                        jupiterRenderable = jupiterStage.get();
-                        saturnRenderable = saturnStage.get();
-                        uranusRenderable = uranusStage.get();
-                        neptuneRenderable = neptuneStage.get();
                         solarControlsRenderable = solarControlsStage.get();
-
-                        //Everything finished loading successfully.
+                        bindSolarControls(solarControlsRenderable.getView());
+                        Material beltMaterial = beltMaterialStage.get();
+                        asteroidBeltMesh = new BeltMesh(
+                                orbitalClock.addBelt(
+                                        new AsteroidBelt(ASTEROID_BELT_BODIES, 1.7f, 2.0f, 0.15f, 10f, BELT_MEAN_MOTION_AT_1_AU, 1L),
+                                        BELT_MINIMUM_MOVE),
+                                AU_TO_METERS, BELT_BODY_RADIUS, beltMaterial);
+                        kuiperBeltMesh = new BeltMesh(
+                                orbitalClock.addBelt(
+                                        new AsteroidBelt(KUIPER_BELT_BODIES, 6.5f, 7.5f, 0.2f, 20f, BELT_MEAN_MOTION_AT_1_AU, 2L),
+                                        BELT_MINIMUM_MOVE),
+                                AU_TO_METERS, BELT_BODY_RADIUS, beltMaterial);
+                        // Steps quality down as the phone heats up over a long session, now that
+                        // the belts it scales exist.
+                        arSceneView.getScene().addOnUpdateListener(
+                                new QualityMonitor(this, solarSettings, orbitalClock, asteroidBeltMesh, kuiperBeltMesh));
+                        placeholderRenderable = ShapeFactory.makeSphere(PLACEHOLDER_RADIUS, Vector3.zero(), placeholderMaterialStage.get());
+                        placeholderRenderable.setCollisionShape(null);
+                        orbitPathMeshes = createOrbitPathMeshes(orbitPathMaterialStage.get());
+                        Material[] trailMaterials = new Material[trailMaterialStages.size()];
+                        for (int i = 0; i < trailMaterials.length; i++) {
+                            trailMaterials[i] = trailMaterialStages.get(i).get();
+                        }
+                        orbitTrailMesh = new OrbitTrailMesh(createTrailBuffer(), AU_TO_METERS, TRAIL_WIDTH, trailMaterials);
+
+                        //Everything needed for placement finished loading successfully.
                         hasFinishedLoading = true;
+                        FrameProfiler.recordLoad(startup + "_placeable", System.nanoTime() - loadStart);
 
                         Toast.makeText(this, "Renderables Initialized Successfully", Toast.LENGTH_SHORT).show();
                         Log.i(TAG, "onCreate: Models loading Successfully");
@@ -203,22 +504,55 @@ public class SolarActivity extends AppCompatActivity {
         if (arSceneView == null) {
             return;
         }
+        isActivityResumed = true;
         if (arSceneView.getSession() == null) {
             // If the session wasn't created yet, don't resume rendering.
             // This can happen if ARCore needs to be updated or permissions are not granted yet.
             try {
-                Session session = PermissionHelper.createARSession(this, installRequired);
-                if (session == null) {
+                if (!PermissionHelper.isARCoreReady(this, installRequired)) {
                     installRequired = PermissionHelper.hasCameraPermission(this);
                     return;
-                } else {
-                    arSceneView.setupSession(session);
                 }
             } catch (UnavailableException e) {
                 PermissionHelper.handleSessionException(this, e);
+                return;
+            }
+            // Creating the session froze the first frames on the main thread, it is created on the
+            // loader's thread and the scene resumes once it is attached.
+            if (sessionLoader.hasSession()) {
+                firstFrameTracer.start(WARM_START_TRACE, System.nanoTime());
+            } else {
+                firstFrameTracer.start(COLD_START_TRACE, createdNanos);
+            }
+            sessionLoader.load().whenCompleteAsync(this::onSessionLoaded, this::runOnUiThread);
+            return;
+        }
+
+        firstFrameTracer.start(WARM_START_TRACE, System.nanoTime());
+        resumeScene();
+    }
+
+    /** Attaches the session the loader created and resumes the scene, on the main thread. */
+    private void onSessionLoaded(Session session, Throwable throwable) {
+        if (throwable != null) {
+            firstFrameTracer.cancel();
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause instanceof UnavailableException) {
+                PermissionHelper.handleSessionException(this, (UnavailableException) cause);
+            } else {
+                PermissionHelper.dispalyError(this, "Failed to create AR Session", cause);
             }
+            return;
+        }
+        // Paused while the session was created, or attached by an earlier resume.
+        if (!isActivityResumed || arSceneView.getSession() != null) {
+            return;
         }
+        arSceneView.setupSession(session);
+        resumeScene();
+    }
 
+    private void resumeScene() {
         try {
             arSceneView.resume();
         } catch (CameraNotAvailableException e) {
@@ -226,7 +560,9 @@ public class SolarActivity extends AppCompatActivity {
             finish();
             return;
         }
-        if (arSceneView != null) {
+        orbitalClock.start();
+        if (!surfaceDetector.isPlaced()) {
+            surfaceDetector.start();
             showLoadingMessage();
         }
     }
@@ -234,9 +570,26 @@ public class SolarActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
+        isActivityResumed = false;
+        if (firstFrameTracer != null) {
+            // Time in the background is not startup time.
+            firstFrameTracer.cancel();
+        }
         if (arSceneView != null) {
             arSceneView.pause();
         }
+        if (orbitalClock != null) {
+            orbitalClock.stop();
+        }
+        if (frameStatsHud != null) {
+            frameStatsHud.writeTrace(this);
+        }
+    }
+
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        // The recreated activity attaches the same session instead of creating another.
+        return sessionLoader;
     }
 
     @Override
@@ -245,6 +598,14 @@ public class SolarActivity extends AppCompatActivity {
         if (arSceneView != null) {
             arSceneView.destroy();
         }
+        if (frameStatsHud != null) {
+            frameStatsHud.close();
+        }
+        // ArSceneView leaves closing the session to the app. Keep it when the activity is only
+        // recreated for a configuration change.
+        if (sessionLoader != null && !isChangingConfigurations()) {
+            sessionLoader.close();
+        }
     }
 
     @Override
@@ -281,13 +642,73 @@ public class SolarActivity extends AppCompatActivity {
         if (!hasFinishedLoading) {
             Toast.makeText(this, "Move your Phone", Toast.LENGTH_SHORT).show();
             //We cant do anything yet
+            return;
         }
-        Frame frame = arSceneView.getArFrame();
-        if (frame != null) {
-            if (!hasPlacedsolarSystem && tryPlaceSolarSystem(tap, frame)) {
-                hasPlacedsolarSystem = true;
+        if (bodyPicker.pick(tap)) {
+            return;
+        }
+        placeSolarSystem(tap);
+    }
+
+    /**
+     * Throws a body into the placed system closest to where the fling aims, returns whether one was
+     * thrown.
+     */
+    private boolean onFlingBody(MotionEvent end, float velocityX, float velocityY) {
+        if (!hasFinishedLoading || sandboxNodes.isEmpty()) {
+            return false;
+        }
+        Ray ray = arSceneView.getScene().getCamera().screenPointToRay(
+                end.getX() + velocityX * FLING_AIM_SECONDS, end.getY() + velocityY * FLING_AIM_SECONDS);
+        SandboxNode target = null;
+        float closest = Float.MAX_VALUE;
+        for (SandboxNode sandbox : sandboxNodes) {
+            Vector3 toSystem = Vector3.subtract(sandbox.getWorldPosition(), ray.getOrigin());
+            float along = Vector3.dot(toSystem, ray.getDirection());
+            if (along <= 0.0f) {
+                continue;
             }
+            float distance = Vector3.subtract(toSystem, ray.getDirection().scaled(along)).length();
+            if (distance < closest) {
+                closest = distance;
+                target = sandbox;
+            }
+        }
+        if (target == null) {
+            return false;
         }
+        float earthSpeeds = Math.min((float) Math.hypot(velocityX, velocityY) / FLING_PIXELS_PER_EARTH_SPEED,
+                FLING_MAX_EARTH_SPEEDS);
+        target.fling(ray.getOrigin(), ray.getDirection(), earthSpeeds * earthOrbitalSpeed);
+        return true;
+    }
+
+    /**
+     * Places another solar system on the plane under the tap, returns whether one was placed. Also
+     * used by SolarSystemMemoryTest to place systems without going through the picker.
+     */
+    @VisibleForTesting
+    boolean placeSolarSystem(MotionEvent tap) {
+        Frame frame = arSceneView.getArFrame();
+        if (frame == null || placedSolarSystems >= MAX_SOLAR_SYSTEMS || !tryPlaceSolarSystem(tap, frame)) {
+            return false;
+        }
+        placedSolarSystems++;
+        surfaceDetector.markPlaced();
+        hideLoadingMessage();
+        logMemoryUsage();
+        return true;
+    }
+
+    /** Returns whether everything needed to place a solar system has loaded. */
+    @VisibleForTesting
+    boolean hasFinishedLoading() {
+        return hasFinishedLoading;
+    }
+
+    @VisibleForTesting
+    int getPlacedSolarSystems() {
+        return placedSolarSystems;
     }
 
     private boolean tryPlaceSolarSystem(MotionEvent tap, Frame frame) {
@@ -318,21 +739,148 @@ public class SolarActivity extends AppCompatActivity {
         Node sunVisual = new Node();
         sunVisual.setParent(sun);
         sunVisual.setRenderable(sunRenderable);
-        sunVisual.setLocalScale(new Vector3(0.5f, 0.5f, 0.5f));
+        float sunScale = bodies.getScale(0);
+        sunVisual.setLocalScale(new Vector3(sunScale, sunScale, sunScale));
 
         Node solarControl = new Node();
         solarControl.setParent(sun);
         solarControl.setRenderable(solarControlsRenderable);
         solarControl.setLocalPosition(new Vector3(0.0f, 0.25f, 0.0f));
 
-        View solarControlView = solarControlsRenderable.getView();
+        //Toggle the Solar Controls on and off by tapping the Sun.
+        bodyPicker.add(sun, sunScale * PLACEHOLDER_RADIUS, () -> solarControl.setEnabled(!solarControl.isEnabled()));
+
+        // The catalog lists parents before their children, so one pass builds the whole tree.
+        Node[] bodyNodes = new Node[bodies.getCount()];
+        bodyNodes[0] = sun;
+        for (int body = 1; body < bodies.getCount(); body++) {
+            Node parent = FLATTEN_ORBITS ? sun : bodyNodes[bodies.getParent(body)];
+            bodyNodes[body] = createPlanet(body, parent);
+        }
+
+        // Ellipses of the orbits around the Sun are fixed to it. Those around a planet follow it,
+        // with flattened orbits on a node the clock moves like the planet, otherwise on the planet.
+        for (int body = 0; body < bodies.getCount(); body++) {
+            if (orbitPathMeshes[body] == null) {
+                continue;
+            }
+            Node orbitPaths = new Node();
+            if (body == 0) {
+                orbitPaths.setParent(sun);
+            } else if (FLATTEN_ORBITS) {
+                orbitPaths.setParent(sun);
+                orbitalClock.addOrbit(orbitPaths, bodies.getOrbit(body), bodies.getOrbit(bodies.getParent(body)));
+            } else {
+                orbitPaths.setParent(bodyNodes[body]);
+            }
+            orbitPathMeshes[body].getRenderable().thenAccept(orbitPaths::setRenderable);
+        }
+        Node trails = new OrbitTrailNode(orbitTrailMesh, orbitalClock);
+        trails.setParent(sun);
+
+        // Every body of a belt is drawn by one shared batched renderable.
+        Node asteroids = new BeltNode(asteroidBeltMesh);
+        asteroids.setParent(sun);
+        Node kuiperObjects = new BeltNode(kuiperBeltMesh);
+        kuiperObjects.setParent(sun);
+
+        BarnesHutIntegrator integrator = new BarnesHutIntegrator(
+                ForkJoinPool.commonPool(), sandboxGravitationalConstant, SANDBOX_SOFTENING, SANDBOX_THETA);
+        GravitySandbox sandbox = new GravitySandbox(integrator, bodyMasses, MAX_FLUNG_BODIES,
+                SANDBOX_MAX_STEP_SECONDS, SANDBOX_MAX_SUBSTEPS, SANDBOX_ESCAPE_RADIUS);
+        SandboxNode sandboxNode = new SandboxNode(sandbox, orbitalClock, bodyOrbits,
+                placeholderRenderable, FLUNG_BODY_SCALE, AU_TO_METERS, FLUNG_BODY_MASS);
+        sandboxNode.setParent(sun);
+        sandboxNodes.add(sandboxNode);
+        return base;
+    }
+
+    /** Builds the orbit ellipse mesh of every body that has orbits going around it. */
+    private OrbitPathMesh[] createOrbitPathMeshes(Material material) {
+        List<List<OrbitalElements>> orbitsAround = new ArrayList<>();
+        for (int body = 0; body < bodies.getCount(); body++) {
+            orbitsAround.add(new ArrayList<>());
+        }
+        for (int body = 1; body < bodies.getCount(); body++) {
+            orbitsAround.get(bodies.getParent(body)).add(bodies.getOrbit(body));
+        }
+        OrbitPathMesh[] meshes = new OrbitPathMesh[bodies.getCount()];
+        for (int body = 0; body < bodies.getCount(); body++) {
+            if (!orbitsAround.get(body).isEmpty()) {
+                meshes[body] = new OrbitPathMesh(orbitsAround.get(body), AU_TO_METERS, ORBIT_PATH_WIDTH, material);
+            }
+        }
+        return meshes;
+    }
+
+    /** Trail buffer of every body but the Sun, trail body i is catalog body i + 1. */
+    private TrailBuffer createTrailBuffer() {
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        int[] parents = new int[bodies.getCount() - 1];
+        for (int body = 1; body < bodies.getCount(); body++) {
+            ephemeris.addBody(bodies.getOrbit(body));
+            parents[body - 1] = bodies.getParent(body) - 1;
+        }
+        return new TrailBuffer(ephemeris, parents, TRAIL_TICK_SECONDS, TRAIL_BLOCK_ALPHAS.length, TRAIL_BLOCK_SIZE);
+    }
+
+    /**
+     * Hooks the controls view up to the settings. Every placed system shows this same view, so this
+     * happens once when it is loaded.
+     */
+    private void bindSolarControls(View solarControlView) {
+        // Dates are shown and picked in UTC, the time scale of the orbital elements.
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        TextView dateButton = solarControlView.findViewById(R.id.dateButton);
+        dateButton.setOnClickListener(view -> showDatePicker());
+        long[] shownDay = {Long.MIN_VALUE};
+        long[] lastRefresh = {0L};
+        arSceneView.getScene().addOnUpdateListener(frameTime -> {
+            long now = System.nanoTime();
+            if (now - lastRefresh[0] < DATE_REFRESH_NANOS) {
+                return;
+            }
+            lastRefresh[0] = now;
+            long dateMillis = orbitalClock.getDateMillis();
+            long day = Math.floorDiv(dateMillis, MILLIS_PER_DAY);
+            if (day != shownDay[0]) {
+                shownDay[0] = day;
+                dateButton.setText(dateFormat.format(dateMillis));
+            }
+        });
+
+        // Moves time by how far the thumb moved, and springs back to the middle once let go.
+        SeekBar scrubBar = solarControlView.findViewById(R.id.scrubBar);
+        int[] scrubProgress = {scrubBar.getProgress()};
+        scrubBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                if (fromUser) {
+                    orbitalClock.scrubDays((progress - scrubProgress[0]) * SCRUB_DAYS_PER_STEP);
+                }
+                scrubProgress[0] = progress;
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                seekBar.setProgress(seekBar.getMax() / 2);
+            }
+        });
+
+        TextView orbitHeader = solarControlView.findViewById(R.id.orbitHeader);
         SeekBar orbitSpeedbar = solarControlView.findViewById(R.id.orbitSpeedBar);
-        orbitSpeedbar.setProgress((int) (solarSettings.getOrbitSpeedMultiplier() * 10.0f));
+        int stillProgress = orbitSpeedbar.getMax() / 2;
         orbitSpeedbar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                float ratio = (float) progress / (float) orbitSpeedbar.getMax();
-                solarSettings.setOrbitSpeedMultiplier(ratio * 10.0f);
+                double daysPerSecond = (double) (progress - stillProgress) / stillProgress * MAX_DAYS_PER_SECOND;
+                solarSettings.setOrbitDaysPerSecond(daysPerSecond);
+                orbitHeader.setText(String.format(Locale.US, "Days / Second: %.0f", daysPerSecond));
             }
 
             @Override
@@ -344,9 +892,11 @@ public class SolarActivity extends AppCompatActivity {
 
             }
         });
+        orbitSpeedbar.setProgress(stillProgress
+                + (int) Math.round(solarSettings.getOrbitDaysPerSecond() / MAX_DAYS_PER_SECOND * stillProgress));
 
         SeekBar rotationSpeedbar = solarControlView.findViewById(R.id.rotationSpeedBar);
-        orbitSpeedbar.setProgress((int) (solarSettings.getRotationSpeedMultiplier() * 10.0f));
+        rotationSpeedbar.setProgress((int) (solarSettings.getRotationSpeedMultiplier() * 10.0f));
         rotationSpeedbar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
@@ -366,45 +916,60 @@ public class SolarActivity extends AppCompatActivity {
             }
         });
 
-        //Toggle the Solar Controls on and off by tapping the Sun.
-        sun.setOnTapListener((hitTestResult, motionEvent) -> solarControl.setEnabled(!solarControl.isEnabled()));
-
-        createPlanet("Mercury", sun, 0.4f, 47f, mercuryRenderable, 0.019f);
-        createPlanet("Venus", sun, 0.7f, 35f, venusRenderable, 0.0475f);
-
-        Node earth = createPlanet("Earth", sun, 1.0f, 29f, earthRenderable, 0.05f);
-
-        createPlanet("Moon", earth, 0.15f, 100f, lunaRenderable, 0.018f);
-
-        createPlanet("Mars", sun, 1.5f, 24f, marsRenderable, 0.0265f);
-
-        createPlanet("Jupiter", sun, 2.2f, 13f, jupiterRenderable, 0.16f);
-
-        createPlanet("Saturn", sun, 3.5f, 9f, saturnRenderable, 0.1325f);
+        CheckBox frameStatsToggle = solarControlView.findViewById(R.id.frameStatsToggle);
+        frameStatsToggle.setOnCheckedChangeListener((buttonView, isChecked) -> frameStatsHud.setVisible(isChecked));
+    }
 
-        createPlanet("Uranus", sun, 5.2f, 7f, uranusRenderable, 0.1f);
+    /** Picks a date, starting from the one shown, and jumps the orbits to it. */
+    private void showDatePicker() {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(orbitalClock.getDateMillis());
+        new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            calendar.clear();
+            // Noon, the time of day of the J2000 epoch.
+            calendar.set(year, month, dayOfMonth, 12, 0);
+            orbitalClock.seekToDate(calendar.getTimeInMillis());
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+    }
 
-        createPlanet("Neptune", sun, 6.1f, 5f, neptuneRenderable, 0.074f);
-        return base;
+    /** Logs heap and native memory, used to compare the cost of placing more solar systems. */
+    private void logMemoryUsage() {
+        Runtime runtime = Runtime.getRuntime();
+        long heapKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        long nativeKb = Debug.getNativeHeapAllocatedSize() / 1024;
+        Log.i(TAG, "logMemoryUsage: " + placedSolarSystems + " systems placed, heap " + heapKb
+                + " KB, native " + nativeKb + " KB");
     }
 
-    private Node createPlanet(String name,
-                             Node parent,
-                             float auFromParent,
-                             float orbitDegreePerSecond,
-                             ModelRenderable renderable,
-                             float planetScale) {
-        // Orbit is a rotating node with no renderable positioned at the sun.
-        // The planet is positioned relative to the orbit so that it appears to rotate around the sun.
-        // This is done instead of making the sun rotate so each planet can orbit at its own speed.
-        RotatingNode orbit = new RotatingNode(solarSettings,true);
-        orbit.setDegreePerSecond(orbitDegreePerSecond);
-        orbit.setParent(parent);
-
-        // Create the planet and position it relative to the sun.
-        Planet planet = new Planet(this, name, planetScale, renderable, solarSettings);
-        planet.setParent(orbit);
-        planet.setLocalPosition(new Vector3(auFromParent * AU_TO_METERS, 0.0f, 0.0f));
+    private Node createPlanet(int body, Node parent) {
+        // The planet is positioned relative to its parent by the orbital clock, which solves the
+        // orbit every frame so that each planet moves at its own speed.
+        // Until its model has loaded the planet shows the placeholder sphere. If the model is
+        // already loaded it is swapped in right away.
+        Planet planet = new Planet(infoCardPool, bodies.getName(body), bodies.getScale(body), placeholderRenderable, orbitalClock, solarSettings);
+        planet.setParent(parent);
+        // The star has no orbit, so planets around it get null.
+        orbitalClock.addOrbit(planet, bodies.getOrbit(body), bodies.getOrbit(bodies.getParent(body)));
+        bodyPicker.add(planet, bodies.getScale(body) * PLACEHOLDER_RADIUS, planet::toggleInfoCard);
+        String asset = bodies.getAsset(body);
+        modelLoader.get(asset).thenAccept(planet::setPlanetRenderable);
+        modelLoader.get(LOD_ASSET_DIR + asset)
+                .thenAccept(renderable -> planet.setLevelRenderable(Planet.LOD_REDUCED_TEXTURES, renderable));
+
+        // Plain coloured sphere shown instead of the model when the planet is only a few pixels big.
+        CompletableFuture<ModelRenderable> lowDetailStage = lowDetailStages.get(asset);
+        if (lowDetailStage == null) {
+            Color lowDetailColor = new Color(bodies.getRed(body), bodies.getGreen(body), bodies.getBlue(body));
+            lowDetailStage = MaterialFactory.makeOpaqueWithColor(this, lowDetailColor)
+                    .thenApply(
+                            material -> {
+                                ModelRenderable sphere = ShapeFactory.makeSphere(PLACEHOLDER_RADIUS, Vector3.zero(), material);
+                                sphere.setCollisionShape(null);
+                                return sphere;
+                            });
+            lowDetailStages.put(asset, lowDetailStage);
+        }
+        lowDetailStage.thenAccept(renderable -> planet.setLevelRenderable(Planet.LOD_FLAT, renderable));
         return planet;
     }
 
@@ -1,9 +1,19 @@
 package com.arsolarsystem.arsolarsystem;
 
+import com.arsolarsystem.arsolarsystem.simulation.SimulationCalendar;
+
 public class SolarSettings {
 
+    private final SimulationCalendar calendar;
     private float orbitSpeedMultiplier = 1.0f;
     private float rotationSpeedMultiplier = 1.0f;
+    // Set by the quality governor, see QualityLevel.
+    private float lodBias = 1.0f;
+    private int cardUpdateInterval = 1;
+
+    public SolarSettings(SimulationCalendar calendar) {
+        this.calendar = calendar;
+    }
 
     public float getOrbitSpeedMultiplier() {
         return orbitSpeedMultiplier;
@@ -13,6 +23,15 @@ public class SolarSettings {
         this.orbitSpeedMultiplier = orbitSpeedMultiplier;
     }
 
+    /** Days that pass per second of real time, negative while playing backwards. */
+    public double getOrbitDaysPerSecond() {
+        return orbitSpeedMultiplier * calendar.getDaysPerOrbitSecond();
+    }
+
+    public void setOrbitDaysPerSecond(double daysPerSecond) {
+        this.orbitSpeedMultiplier = calendar.speedMultiplierForDaysPerSecond(daysPerSecond);
+    }
+
     public float getRotationSpeedMultiplier() {
         return rotationSpeedMultiplier;
     }
@@ -20,4 +39,20 @@ public class SolarSettings {
     public void setRotationSpeedMultiplier(float rotationSpeedMultiplier) {
         this.rotationSpeedMultiplier = rotationSpeedMultiplier;
     }
+
+    public float getLodBias() {
+        return lodBias;
+    }
+
+    public void setLodBias(float lodBias) {
+        this.lodBias = lodBias;
+    }
+
+    public int getCardUpdateInterval() {
+        return cardUpdateInterval;
+    }
+
+    public void setCardUpdateInterval(int cardUpdateInterval) {
+        this.cardUpdateInterval = cardUpdateInterval;
+    }
 }
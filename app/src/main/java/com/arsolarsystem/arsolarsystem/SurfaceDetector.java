@@ -0,0 +1,115 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.google.ar.core.Frame;
+import com.google.ar.core.Plane;
+import com.google.ar.core.TrackingState;
+import com.google.ar.sceneform.ArSceneView;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Watches ARCore frames for a tracked plane until one is found.
+ *
+ * <p>The detector only listens to Scene updates while it is searching. Once a surface is ready, or
+ * the solar system has been placed, it removes itself so no per-frame work is left behind.
+ */
+class SurfaceDetector implements Scene.OnUpdateListener {
+    /** Called on the main thread when a tracked surface becomes available. */
+    interface OnSurfaceReadyListener {
+        void onSurfaceReady();
+    }
+
+    private enum State {
+        IDLE,
+        SEARCHING,
+        SURFACE_READY,
+        PLACED
+    }
+
+    private final ArSceneView arSceneView;
+    private final List<OnSurfaceReadyListener> listeners = new ArrayList<>();
+    private State state = State.IDLE;
+    private boolean isRegistered = false;
+
+    public SurfaceDetector(ArSceneView arSceneView) {
+        this.arSceneView = arSceneView;
+    }
+
+    /** Adds a listener. It is called right away if a surface is already ready. */
+    public void addOnSurfaceReadyListener(OnSurfaceReadyListener listener) {
+        listeners.add(listener);
+        if (state == State.SURFACE_READY) {
+            listener.onSurfaceReady();
+        }
+    }
+
+    /** Starts searching for a surface, unless the system has already been placed. */
+    public void start() {
+        if (state == State.SEARCHING || state == State.PLACED) {
+            return;
+        }
+        state = State.SEARCHING;
+        if (!isRegistered) {
+            isRegistered = true;
+            arSceneView.getScene().addOnUpdateListener(this);
+        }
+    }
+
+    /** Stops searching for good, the solar system has been placed. */
+    public void markPlaced() {
+        state = State.PLACED;
+        stopListening();
+    }
+
+    public boolean isPlaced() {
+        return state == State.PLACED;
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        if (state != State.SEARCHING) {
+            return;
+        }
+        long start = FrameProfiler.start();
+        boolean found = hasTrackedPlane();
+        FrameProfiler.end(FrameProfiler.SECTION_PLANE_DETECTION, start);
+        if (!found) {
+            return;
+        }
+        state = State.SURFACE_READY;
+        stopListening();
+        for (OnSurfaceReadyListener listener : listeners) {
+            listener.onSurfaceReady();
+        }
+    }
+
+    private boolean hasTrackedPlane() {
+        Frame frame = arSceneView.getArFrame();
+        if (frame == null) {
+            return false;
+        }
+        if (frame.getCamera().getTrackingState() != TrackingState.TRACKING) {
+            return false;
+        }
+        for (Plane plane : frame.getUpdatedTrackables(Plane.class)) {
+            if (plane.getTrackingState() == TrackingState.TRACKING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void stopListening() {
+        // The Scene iterates its listeners while calling onUpdate, so the removal is posted instead
+        // of done in place. A search restarted in the meantime keeps the listener.
+        arSceneView.post(() -> {
+            if (isRegistered && state != State.SEARCHING) {
+                isRegistered = false;
+                arSceneView.getScene().removeOnUpdateListener(this);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.arsolarsystem.arsolarsystem;
+
+/**
+ * Allocation free bounding sphere test against the camera's view frustum.
+ *
+ * <p>Matrices are column major, the layout of Sceneform's {@code Matrix.data}. The six planes are
+ * taken from the rows of projection * view, so {@link #update} is cheap enough to call every frame.
+ */
+final class ViewFrustum {
+    private static final int PLANES = 6;
+
+    private final float[] viewProjection = new float[16];
+    // a, b, c, d of each plane, normalized and facing into the frustum.
+    private final float[] planes = new float[PLANES * 4];
+    private boolean isValid = false;
+
+    /** Takes the planes from the camera's current matrices. */
+    void update(float[] projection, float[] view) {
+        for (int column = 0; column < 4; column++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0.0f;
+                for (int k = 0; k < 4; k++) {
+                    sum += projection[k * 4 + row] * view[column * 4 + k];
+                }
+                viewProjection[column * 4 + row] = sum;
+            }
+        }
+        float[] m = viewProjection;
+        // Left, right, bottom, top, near and far: the last row plus or minus each of the others.
+        int plane = 0;
+        for (int row = 0; row < 3; row++) {
+            for (int sign = 1; sign >= -1; sign -= 2) {
+                setPlane(plane++,
+                        m[3] + sign * m[row],
+                        m[7] + sign * m[4 + row],
+                        m[11] + sign * m[8 + row],
+                        m[15] + sign * m[12 + row]);
+            }
+        }
+        isValid = true;
+    }
+
+    /**
+     * Returns false only if the sphere is entirely outside one of the planes. Spheres near a corner
+     * may pass while being outside, which only costs an update that wasn't needed. Everything is
+     * visible until the first {@link #update}.
+     */
+    boolean intersectsSphere(float x, float y, float z, float radius) {
+        if (!isValid) {
+            return true;
+        }
+        for (int i = 0; i < PLANES * 4; i += 4) {
+            if (planes[i] * x + planes[i + 1] * y + planes[i + 2] * z + planes[i + 3] < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setPlane(int plane, float a, float b, float c, float d) {
+        float length = (float) Math.sqrt(a * a + b * b + c * c);
+        int offset = plane * 4;
+        planes[offset] = a / length;
+        planes[offset + 1] = b / length;
+        planes[offset + 2] = c / length;
+        planes[offset + 3] = d / length;
+    }
+}
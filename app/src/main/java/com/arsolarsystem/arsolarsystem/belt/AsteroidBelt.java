@@ -0,0 +1,85 @@
+package com.arsolarsystem.arsolarsystem.belt;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import java.util.Random;
+
+/**
+ * A ring of small bodies on randomised Keplerian orbits.
+ *
+ * <p>The belt keeps no positions of its own. Callers solve it into their own parallel primitive
+ * arrays, so a belt of any size costs one {@link KeplerEphemeris} pass per solve and no per-body
+ * objects.
+ */
+public class AsteroidBelt {
+    private final KeplerEphemeris ephemeris = new KeplerEphemeris();
+    private final float[] sizes;
+    private final double maxSpeed;
+
+    /**
+     * @param bodyCount - number of bodies in the belt.
+     * @param innerRadius - smallest semi-major axis.
+     * @param outerRadius - largest semi-major axis.
+     * @param maxEccentricity - eccentricities are spread uniformly below this value.
+     * @param maxInclination - inclinations in degrees are spread uniformly below this value.
+     * @param meanMotionAtUnitRadius - mean motion at a semi-major axis of 1, other radii follow
+     *     Kepler's third law.
+     * @param seed - seed for the random elements so the belt looks the same on every launch.
+     */
+    public AsteroidBelt(
+            int bodyCount,
+            float innerRadius,
+            float outerRadius,
+            float maxEccentricity,
+            float maxInclination,
+            float meanMotionAtUnitRadius,
+            long seed) {
+        Random random = new Random(seed);
+        sizes = new float[bodyCount];
+        double fastest = 0.0;
+        for (int i = 0; i < bodyCount; i++) {
+            float semiMajorAxis = innerRadius + random.nextFloat() * (outerRadius - innerRadius);
+            float eccentricity = random.nextFloat() * maxEccentricity;
+            float meanMotion = meanMotionAtUnitRadius / (float) Math.pow(semiMajorAxis, 1.5);
+            ephemeris.addBody(new OrbitalElements(
+                    semiMajorAxis,
+                    eccentricity,
+                    random.nextFloat() * maxInclination,
+                    random.nextFloat() * 360.0f,
+                    random.nextFloat() * 360.0f,
+                    random.nextFloat() * 360.0f,
+                    meanMotion));
+            // Bodies are fastest at periapsis.
+            fastest = Math.max(fastest, Math.toRadians(meanMotion) * semiMajorAxis
+                    * Math.sqrt((1.0 + eccentricity) / (1.0 - eccentricity)));
+            // Mostly small bodies with a few larger ones.
+            float size = random.nextFloat();
+            sizes[i] = 0.4f + 0.6f * size * size;
+        }
+        maxSpeed = fastest;
+    }
+
+    /**
+     * Writes the position of the first bodies at the given simulation time into the given arrays,
+     * relative to the belt's parent in the reference frame of {@link KeplerEphemeris}. Bodies are in
+     * random order, so any prefix is spread over the whole belt. Safe to call from any thread.
+     */
+    public void computePositions(double time, int bodyCount, float[] outX, float[] outY, float[] outZ) {
+        ephemeris.computePositions(time, outX, outY, outZ, Math.min(bodyCount, sizes.length));
+    }
+
+    /** Fastest any body moves, in distance units per second of simulation time. */
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public int getBodyCount() {
+        return sizes.length;
+    }
+
+    /** Relative size of each body, between 0.4 and 1. */
+    public float[] getSizes() {
+        return sizes;
+    }
+}
@@ -0,0 +1,110 @@
+package com.arsolarsystem.arsolarsystem.catalog;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Bodies of a planetary system in flat parallel arrays, as read by {@link CatalogReader}.
+ *
+ * <p>Body 0 is the star at the center. Every other body orbits a parent that comes before it, so
+ * walking the table in order always visits a parent before its children. The orbital elements are
+ * created once per table, which lets every placed copy of the system share them.
+ */
+public class BodyTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int count = 0;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private OrbitalElements[] orbits = new OrbitalElements[INITIAL_CAPACITY];
+    private String[] assets = new String[INITIAL_CAPACITY];
+    private float[] scales = new float[INITIAL_CAPACITY];
+    private double[] masses = new double[INITIAL_CAPACITY];
+    // Low detail colors, red, green and blue of each body in a row.
+    private float[] colors = new float[INITIAL_CAPACITY * 3];
+
+    public int getCount() {
+        return count;
+    }
+
+    public String getName(int body) {
+        return names[body];
+    }
+
+    /** Index of the body this one orbits, -1 for the star. */
+    public int getParent(int body) {
+        return parents[body];
+    }
+
+    /** Orbit around the parent, null for the star. */
+    public OrbitalElements getOrbit(int body) {
+        return orbits[body];
+    }
+
+    /** Model asset of the body. */
+    public String getAsset(int body) {
+        return assets[body];
+    }
+
+    /** Size of the body's model relative to its unit sized source model. */
+    public float getScale(int body) {
+        return scales[body];
+    }
+
+    /** Mass of the body in solar masses, 0 if the catalog gives none. */
+    public double getMass(int body) {
+        return masses[body];
+    }
+
+    public float getRed(int body) {
+        return colors[body * 3];
+    }
+
+    public float getGreen(int body) {
+        return colors[body * 3 + 1];
+    }
+
+    public float getBlue(int body) {
+        return colors[body * 3 + 2];
+    }
+
+    /** Index of the body with the given name, -1 if there is none. */
+    public int indexOf(String name) {
+        for (int body = 0; body < count; body++) {
+            if (names[body].equals(name)) {
+                return body;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns every model asset once, in the order of the first body using it. */
+    public String[] getDistinctAssets() {
+        Set<String> distinct = new LinkedHashSet<>(Arrays.asList(assets).subList(0, count));
+        return distinct.toArray(new String[0]);
+    }
+
+    int add(String name, int parent, OrbitalElements orbit, String asset, float scale, double mass, float[] color) {
+        if (count == names.length) {
+            int capacity = count * 2;
+            names = Arrays.copyOf(names, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            orbits = Arrays.copyOf(orbits, capacity);
+            assets = Arrays.copyOf(assets, capacity);
+            scales = Arrays.copyOf(scales, capacity);
+            masses = Arrays.copyOf(masses, capacity);
+            colors = Arrays.copyOf(colors, capacity * 3);
+        }
+        names[count] = name;
+        parents[count] = parent;
+        orbits[count] = orbit;
+        assets[count] = asset;
+        scales[count] = scale;
+        masses[count] = mass;
+        System.arraycopy(color, 0, colors, count * 3, 3);
+        return count++;
+    }
+}
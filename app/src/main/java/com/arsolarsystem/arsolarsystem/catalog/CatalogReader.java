@@ -0,0 +1,143 @@
+package com.arsolarsystem.arsolarsystem.catalog;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a planetary system catalog into a {@link BodyTable}.
+ *
+ * <p>A catalog is a JSON object with a {@code bodies} array. The first body is the star, every
+ * other body names a parent listed before it and has an {@code orbit} of seven numbers in the order
+ * of the {@link OrbitalElements} constructor. The optional {@code mass} is in solar masses:
+ *
+ * <pre>
+ * {"bodies": [
+ *   {"name": "Sun", "asset": "Sol.sfb", "scale": 0.5, "mass": 1.0},
+ *   {"name": "Earth", "parent": "Sun", "asset": "Earth.sfb", "scale": 0.05, "mass": 3.003e-6,
+ *    "color": [0.3, 0.5, 0.8], "orbit": [1.0, 0.0167, 0.0, 348.739, 114.208, 358.617, 29]}
+ * ]}
+ * </pre>
+ *
+ * The catalog is streamed in one pass, unknown fields are skipped.
+ */
+public final class CatalogReader {
+    private static final float[] DEFAULT_COLOR = {0.6f, 0.6f, 0.6f};
+
+    private CatalogReader() {
+    }
+
+    public static BodyTable read(Reader catalog) throws IOException {
+        JsonPullParser parser = new JsonPullParser(catalog);
+        BodyTable table = new BodyTable();
+        Map<String, Integer> indices = new HashMap<>();
+        parser.beginObject();
+        while (parser.hasNext()) {
+            if (parser.nextName().equals("bodies")) {
+                parser.beginArray();
+                while (parser.hasNext()) {
+                    readBody(parser, table, indices);
+                }
+                parser.endArray();
+            } else {
+                parser.skipValue();
+            }
+        }
+        parser.endObject();
+        if (table.getCount() == 0) {
+            throw parser.error("Catalog has no bodies");
+        }
+        return table;
+    }
+
+    private static void readBody(JsonPullParser parser, BodyTable table, Map<String, Integer> indices)
+            throws IOException {
+        String name = null;
+        String parent = null;
+        String asset = null;
+        float scale = 1.0f;
+        double mass = 0.0;
+        float[] color = DEFAULT_COLOR;
+        OrbitalElements orbit = null;
+
+        parser.beginObject();
+        while (parser.hasNext()) {
+            switch (parser.nextName()) {
+                case "name":
+                    name = parser.nextString();
+                    break;
+                case "parent":
+                    parent = parser.nextString();
+                    break;
+                case "asset":
+                    asset = parser.nextString();
+                    break;
+                case "scale":
+                    scale = (float) parser.nextDouble();
+                    break;
+                case "mass":
+                    mass = parser.nextDouble();
+                    if (!(mass >= 0.0)) {
+                        throw parser.error("Mass must not be negative: " + mass);
+                    }
+                    break;
+                case "color":
+                    color = readNumbers(parser, 3);
+                    break;
+                case "orbit": {
+                    float[] elements = readNumbers(parser, 7);
+                    try {
+                        orbit = new OrbitalElements(elements[0], elements[1], elements[2], elements[3],
+                                elements[4], elements[5], elements[6]);
+                    } catch (IllegalArgumentException e) {
+                        throw parser.error(e.getMessage());
+                    }
+                    break;
+                }
+                default:
+                    parser.skipValue();
+                    break;
+            }
+        }
+        parser.endObject();
+
+        if (name == null || asset == null) {
+            throw parser.error("Body needs a name and an asset");
+        }
+        if (indices.containsKey(name)) {
+            throw parser.error("Duplicate body " + name);
+        }
+        int parentIndex = -1;
+        if (table.getCount() == 0) {
+            if (parent != null || orbit != null) {
+                throw parser.error("The first body is the star and has no parent or orbit: " + name);
+            }
+        } else {
+            Integer index = parent != null ? indices.get(parent) : null;
+            if (index == null || orbit == null) {
+                throw parser.error("Body needs an orbit and a parent listed before it: " + name);
+            }
+            parentIndex = index;
+        }
+        indices.put(name, table.add(name, parentIndex, orbit, asset, scale, mass, color));
+    }
+
+    private static float[] readNumbers(JsonPullParser parser, int count) throws IOException {
+        float[] numbers = new float[count];
+        parser.beginArray();
+        for (int i = 0; i < count; i++) {
+            if (!parser.hasNext()) {
+                throw parser.error("Expected " + count + " numbers");
+            }
+            numbers[i] = (float) parser.nextDouble();
+        }
+        if (parser.hasNext()) {
+            throw parser.error("Expected " + count + " numbers");
+        }
+        parser.endArray();
+        return numbers;
+    }
+}
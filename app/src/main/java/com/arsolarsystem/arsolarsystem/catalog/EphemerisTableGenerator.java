@@ -0,0 +1,60 @@
+package com.arsolarsystem.arsolarsystem.catalog;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.ChebyshevTableWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the Chebyshev ephemeris table of every orbiting body of a catalog, in catalog order.
+ *
+ * <p>Run at build time by {@code ephemeris-tables.gradle}:
+ *
+ * <pre>
+ * EphemerisTableGenerator catalog.json table.eph
+ * </pre>
+ *
+ * Each orbit is fitted once from the epoch of the elements, orbit time 0, and repeats from there,
+ * so the table covers every date the simulation can reach.
+ */
+public final class EphemerisTableGenerator {
+    // Four segments of eight coefficients per orbit keep every catalog body within 2e-5 of its
+    // semi-major axis of the Kepler solution, see ChebyshevEphemerisBenchmark.
+    public static final int SEGMENTS_PER_ORBIT = 4;
+    public static final int COEFFICIENT_COUNT = 8;
+
+    private EphemerisTableGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: EphemerisTableGenerator catalog.json table.eph");
+            System.exit(2);
+        }
+        BodyTable bodies;
+        try (Reader catalog = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+            bodies = CatalogReader.read(catalog);
+        }
+        ChebyshevTableWriter writer = createWriter(bodies);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+            writer.write(0.0, out);
+        }
+    }
+
+    /** Returns a writer with every body of the table except the star. */
+    public static ChebyshevTableWriter createWriter(BodyTable bodies) {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(SEGMENTS_PER_ORBIT, COEFFICIENT_COUNT);
+        for (int body = 0; body < bodies.getCount(); body++) {
+            if (bodies.getOrbit(body) != null) {
+                writer.addBody(bodies.getOrbit(body));
+            }
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,174 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Positions of bodies interpolated from a precomputed table of Chebyshev polynomials.
+ *
+ * <p>The table splits one orbit of each body into equal segments and stores, per segment, the
+ * Chebyshev coefficients of its X, Y and Z position, the way the JPL development ephemerides do.
+ * Keplerian orbits repeat exactly, so times outside the fitted orbit wrap around to it and the
+ * table covers every simulation time, at any speed or date. Tables are written by
+ * {@link ChebyshevTableWriter}; the layout is little endian:
+ *
+ * <pre>
+ * int    magic, {@link #MAGIC}
+ * int    version, {@link #VERSION}
+ * int    body count
+ * double epoch, the time every body's first segment starts at
+ * per body:
+ *   float[7] orbital elements the body was fitted from, in constructor order
+ *   double   segment length
+ *   int      segment count
+ *   int      coefficient count, N
+ *   int      offset of the first segment
+ * per body and segment: float[N] X, float[N] Y, float[N] Z
+ * </pre>
+ *
+ * <p>Coefficients are read straight from the buffer, which may be a memory map of the table, and a
+ * position is one Clenshaw recurrence per axis, so nothing is allocated or copied per call.
+ * Positions are relative to the parent body in the frame of the elements, like
+ * {@link KeplerEphemeris}.
+ *
+ * <p>Immutable once constructed and safe to use from several threads.
+ */
+public final class ChebyshevEphemeris {
+    /** First four bytes of a table, "CHEB" read as a little endian int. */
+    public static final int MAGIC = 0x42454843;
+    public static final int VERSION = 2;
+
+    static final int HEADER_BYTES = 20;
+    static final int BODY_RECORD_BYTES = 48;
+    static final int ELEMENT_COUNT = 7;
+
+    private final ByteBuffer table;
+    private final double epoch;
+    private final int bodyCount;
+
+    private final float[] elements;
+    private final double[] segmentSeconds;
+    private final int[] segmentCount;
+    private final int[] coefficientCount;
+    private final int[] dataOffset;
+
+    /**
+     * Reads the header of a table. The coefficients stay in the buffer and are read on every call,
+     * so the buffer must not change afterwards.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a complete table.
+     */
+    public ChebyshevEphemeris(ByteBuffer buffer) {
+        table = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        table.position(0);
+        if (table.limit() < HEADER_BYTES || table.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a Chebyshev ephemeris table");
+        }
+        if (table.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported table version: " + table.getInt(4));
+        }
+        bodyCount = table.getInt(8);
+        epoch = table.getDouble(12);
+        if (bodyCount < 0 || HEADER_BYTES + (long) bodyCount * BODY_RECORD_BYTES > table.limit()) {
+            throw new IllegalArgumentException("Truncated table header");
+        }
+
+        elements = new float[bodyCount * ELEMENT_COUNT];
+        segmentSeconds = new double[bodyCount];
+        segmentCount = new int[bodyCount];
+        coefficientCount = new int[bodyCount];
+        dataOffset = new int[bodyCount];
+        for (int body = 0; body < bodyCount; body++) {
+            int record = HEADER_BYTES + body * BODY_RECORD_BYTES;
+            for (int i = 0; i < ELEMENT_COUNT; i++) {
+                elements[body * ELEMENT_COUNT + i] = table.getFloat(record + i * 4);
+            }
+            segmentSeconds[body] = table.getDouble(record + 28);
+            segmentCount[body] = table.getInt(record + 36);
+            coefficientCount[body] = table.getInt(record + 40);
+            dataOffset[body] = table.getInt(record + 44);
+            long end = dataOffset[body] + 12L * segmentCount[body] * coefficientCount[body];
+            if (segmentCount[body] <= 0 || coefficientCount[body] <= 0 || dataOffset[body] < 0
+                    || end > table.limit()) {
+                throw new IllegalArgumentException("Truncated coefficients of body " + body);
+            }
+        }
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public double getEpoch() {
+        return epoch;
+    }
+
+    /** Returns the simulation time one orbit of a table body takes, the span of its segments. */
+    public double getPeriod(int body) {
+        return segmentSeconds[body] * segmentCount[body];
+    }
+
+    /**
+     * Returns the table body fitted from elements equal to the given ones, or -1 if the table has
+     * none, in which case the body has to be solved some other way.
+     */
+    public int findBody(OrbitalElements orbit) {
+        for (int body = 0; body < bodyCount; body++) {
+            int i = body * ELEMENT_COUNT;
+            if (elements[i] == orbit.getSemiMajorAxis()
+                    && elements[i + 1] == orbit.getEccentricity()
+                    && elements[i + 2] == orbit.getInclination()
+                    && elements[i + 3] == orbit.getLongitudeOfNode()
+                    && elements[i + 4] == orbit.getArgumentOfPeriapsis()
+                    && elements[i + 5] == orbit.getMeanAnomalyAtEpoch()
+                    && elements[i + 6] == orbit.getMeanMotion()) {
+                return body;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the position of every table body at the given time into the buffers, which must hold
+     * at least {@link #getBodyCount()} entries.
+     */
+    public void computePositions(double time, float[] x, float[] y, float[] z) {
+        for (int body = 0; body < bodyCount; body++) {
+            computePosition(body, time, x, y, z, body);
+        }
+    }
+
+    /**
+     * Writes the position of a table body at the given time into one entry of the buffers. Times
+     * outside the fitted orbit are wrapped into it by whole orbits.
+     *
+     * @param index - entry of the buffers to write.
+     */
+    public void computePosition(int body, double time, float[] x, float[] y, float[] z, int index) {
+        int count = segmentCount[body];
+        double segments = (time - epoch) / segmentSeconds[body];
+        segments -= Math.floor(segments / count) * count;
+        // Rounding can leave a time just short of a whole orbit at the end of the last segment.
+        int segment = Math.min((int) segments, count - 1);
+        // Time within the segment, mapped to the -1 to 1 domain of the polynomials.
+        double tau = 2.0 * (segments - segment) - 1.0;
+        int n = coefficientCount[body];
+        int offset = dataOffset[body] + segment * n * 12;
+        x[index] = (float) evaluate(offset, n, tau);
+        y[index] = (float) evaluate(offset + n * 4, n, tau);
+        z[index] = (float) evaluate(offset + n * 8, n, tau);
+    }
+
+    /** Sums the Chebyshev series at the given offset with Clenshaw's recurrence. */
+    private double evaluate(int offset, int n, double tau) {
+        double twoTau = 2.0 * tau;
+        double b1 = 0.0;
+        double b2 = 0.0;
+        for (int k = n - 1; k > 0; k--) {
+            double b = twoTau * b1 - b2 + table.getFloat(offset + k * 4);
+            b2 = b1;
+            b1 = b;
+        }
+        return tau * b1 - b2 + table.getFloat(offset);
+    }
+}
@@ -0,0 +1,133 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fits Keplerian orbits with Chebyshev polynomials and writes them as a table for
+ * {@link ChebyshevEphemeris}.
+ *
+ * <p>Every body gets one orbit split into the same number of segments, so fast moons get short
+ * segments and outer planets long ones, and each segment is interpolated at the Chebyshev nodes,
+ * which keeps the error close to the best polynomial of that degree. The table reads later orbits
+ * by wrapping around, so its size does not depend on the time it covers. Runs at build time, see
+ * {@code ephemeris-tables.gradle}.
+ */
+public final class ChebyshevTableWriter {
+    private final int segmentsPerOrbit;
+    private final int coefficientCount;
+    private final List<OrbitalElements> bodies = new ArrayList<>();
+
+    /**
+     * @param segmentsPerOrbit - segments fitted to one orbit of a body.
+     * @param coefficientCount - coefficients per axis and segment, one more than the degree.
+     */
+    public ChebyshevTableWriter(int segmentsPerOrbit, int coefficientCount) {
+        if (segmentsPerOrbit <= 0 || coefficientCount <= 0) {
+            throw new IllegalArgumentException("Segments and coefficients must be positive");
+        }
+        this.segmentsPerOrbit = segmentsPerOrbit;
+        this.coefficientCount = coefficientCount;
+    }
+
+    /** Adds a body, its index in the table is the number of bodies added before it. */
+    public int addBody(OrbitalElements elements) {
+        bodies.add(elements);
+        return bodies.size() - 1;
+    }
+
+    /** Fits one orbit of every body from the given simulation time and writes the table. */
+    public void write(double epoch, OutputStream out) throws IOException {
+        out.write(fit(epoch).array());
+    }
+
+    /** Fits one orbit of every body from the given simulation time into a table in memory. */
+    public ByteBuffer fit(double epoch) {
+        int bodyCount = bodies.size();
+        KeplerEphemeris kepler = new KeplerEphemeris();
+        int[] segments = new int[bodyCount];
+        double[] segmentSeconds = new double[bodyCount];
+        int size = ChebyshevEphemeris.HEADER_BYTES + bodyCount * ChebyshevEphemeris.BODY_RECORD_BYTES;
+        for (int body = 0; body < bodyCount; body++) {
+            OrbitalElements elements = bodies.get(body);
+            kepler.addBody(elements);
+            float meanMotion = Math.abs(elements.getMeanMotion());
+            if (meanMotion > 0.0f) {
+                segments[body] = segmentsPerOrbit;
+                segmentSeconds[body] = 360.0 / meanMotion / segmentsPerOrbit;
+            } else {
+                // Never moves, one segment of any length holds it.
+                segments[body] = 1;
+                segmentSeconds[body] = 1.0;
+            }
+            size += 12 * segments[body] * coefficientCount;
+        }
+
+        ByteBuffer table = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(ChebyshevEphemeris.MAGIC);
+        table.putInt(ChebyshevEphemeris.VERSION);
+        table.putInt(bodyCount);
+        table.putDouble(epoch);
+        int offset = ChebyshevEphemeris.HEADER_BYTES + bodyCount * ChebyshevEphemeris.BODY_RECORD_BYTES;
+        for (int body = 0; body < bodyCount; body++) {
+            OrbitalElements elements = bodies.get(body);
+            table.putFloat(elements.getSemiMajorAxis());
+            table.putFloat(elements.getEccentricity());
+            table.putFloat(elements.getInclination());
+            table.putFloat(elements.getLongitudeOfNode());
+            table.putFloat(elements.getArgumentOfPeriapsis());
+            table.putFloat(elements.getMeanAnomalyAtEpoch());
+            table.putFloat(elements.getMeanMotion());
+            table.putDouble(segmentSeconds[body]);
+            table.putInt(segments[body]);
+            table.putInt(coefficientCount);
+            table.putInt(offset);
+            offset += 12 * segments[body] * coefficientCount;
+        }
+
+        int n = coefficientCount;
+        float[] x = new float[bodyCount];
+        float[] y = new float[bodyCount];
+        float[] z = new float[bodyCount];
+        double[] sampleX = new double[n];
+        double[] sampleY = new double[n];
+        double[] sampleZ = new double[n];
+        for (int body = 0; body < bodyCount; body++) {
+            for (int segment = 0; segment < segments[body]; segment++) {
+                double segmentStart = epoch + segment * segmentSeconds[body];
+                for (int j = 0; j < n; j++) {
+                    double tau = Math.cos(Math.PI * (j + 0.5) / n);
+                    kepler.computePosition(body, segmentStart + (tau + 1.0) * 0.5 * segmentSeconds[body], x, y, z);
+                    sampleX[j] = x[body];
+                    sampleY[j] = y[body];
+                    sampleZ[j] = z[body];
+                }
+                putCoefficients(table, sampleX);
+                putCoefficients(table, sampleY);
+                putCoefficients(table, sampleZ);
+            }
+        }
+        table.flip();
+        return table;
+    }
+
+    /**
+     * Puts the coefficients of the polynomial through samples taken at the Chebyshev nodes, with the
+     * first coefficient halved so the series is a plain sum.
+     */
+    private static void putCoefficients(ByteBuffer table, double[] samples) {
+        int n = samples.length;
+        for (int k = 0; k < n; k++) {
+            double sum = 0.0;
+            for (int j = 0; j < n; j++) {
+                sum += samples[j] * Math.cos(Math.PI * k * (j + 0.5) / n);
+            }
+            double coefficient = 2.0 * sum / n;
+            table.putFloat((float) (k == 0 ? 0.5 * coefficient : coefficient));
+        }
+    }
+}
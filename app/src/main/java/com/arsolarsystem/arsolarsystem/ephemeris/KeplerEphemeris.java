@@ -0,0 +1,140 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import java.util.Arrays;
+
+/**
+ * Computes positions of bodies on Keplerian orbits.
+ *
+ * <p>Elements are stored as parallel primitive arrays and the orientation of each orbit is
+ * precomputed when the body is added, so {@link #computePositions} is one straight loop with no
+ * allocation. The number of Newton iterations is fixed per body from its eccentricity.
+ *
+ * <p>Positions are relative to the parent body in the reference frame of the elements: X points to
+ * the reference direction, Z is the orbit normal of a zero inclination orbit.
+ */
+public class KeplerEphemeris {
+    /** Highest eccentricity the fixed iteration count converges for. */
+    public static final float MAX_ECCENTRICITY = 0.9f;
+
+    private static final double TWO_PI = 2.0 * Math.PI;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int count = 0;
+
+    private double[] meanAnomalyAtEpoch = new double[INITIAL_CAPACITY];
+    private double[] meanMotion = new double[INITIAL_CAPACITY];
+    private double[] eccentricity = new double[INITIAL_CAPACITY];
+    private int[] keplerIterations = new int[INITIAL_CAPACITY];
+    private double[] semiMajorAxis = new double[INITIAL_CAPACITY];
+    private double[] semiMinorAxis = new double[INITIAL_CAPACITY];
+
+    // Unit vectors towards periapsis (P) and 90 degrees ahead of it in the orbit plane (Q).
+    private double[] px = new double[INITIAL_CAPACITY];
+    private double[] py = new double[INITIAL_CAPACITY];
+    private double[] pz = new double[INITIAL_CAPACITY];
+    private double[] qx = new double[INITIAL_CAPACITY];
+    private double[] qy = new double[INITIAL_CAPACITY];
+    private double[] qz = new double[INITIAL_CAPACITY];
+
+    /** Adds a body and returns its index in the position buffers. */
+    public int addBody(OrbitalElements elements) {
+        if (count == semiMajorAxis.length) {
+            grow(count * 2);
+        }
+        int index = count++;
+
+        double e = elements.getEccentricity();
+        double a = elements.getSemiMajorAxis();
+        meanAnomalyAtEpoch[index] = Math.toRadians(elements.getMeanAnomalyAtEpoch());
+        meanMotion[index] = Math.toRadians(elements.getMeanMotion());
+        eccentricity[index] = e;
+        keplerIterations[index] = iterationsFor(e);
+        semiMajorAxis[index] = a;
+        semiMinorAxis[index] = a * Math.sqrt(1.0 - e * e);
+
+        double cosNode = Math.cos(Math.toRadians(elements.getLongitudeOfNode()));
+        double sinNode = Math.sin(Math.toRadians(elements.getLongitudeOfNode()));
+        double cosPeri = Math.cos(Math.toRadians(elements.getArgumentOfPeriapsis()));
+        double sinPeri = Math.sin(Math.toRadians(elements.getArgumentOfPeriapsis()));
+        double cosIncl = Math.cos(Math.toRadians(elements.getInclination()));
+        double sinIncl = Math.sin(Math.toRadians(elements.getInclination()));
+
+        px[index] = cosPeri * cosNode - sinPeri * sinNode * cosIncl;
+        py[index] = cosPeri * sinNode + sinPeri * cosNode * cosIncl;
+        pz[index] = sinPeri * sinIncl;
+        qx[index] = -sinPeri * cosNode - cosPeri * sinNode * cosIncl;
+        qy[index] = -sinPeri * sinNode + cosPeri * cosNode * cosIncl;
+        qz[index] = cosPeri * sinIncl;
+        return index;
+    }
+
+    public int getBodyCount() {
+        return count;
+    }
+
+    /**
+     * Writes the position of every body at the given simulation time into the buffers. Each buffer
+     * must hold at least {@link #getBodyCount()} entries.
+     */
+    public void computePositions(double time, float[] x, float[] y, float[] z) {
+        computePositions(time, x, y, z, count);
+    }
+
+    /** Like {@link #computePositions(double, float[], float[], float[])} for the first bodies only. */
+    public void computePositions(double time, float[] x, float[] y, float[] z, int bodyCount) {
+        for (int i = 0; i < bodyCount; i++) {
+            computePosition(i, time, x, y, z);
+        }
+    }
+
+    /** Writes the position of one body at the given simulation time into its entry of the buffers. */
+    public void computePosition(int body, double time, float[] x, float[] y, float[] z) {
+        double m = meanAnomalyAtEpoch[body] + meanMotion[body] * time;
+        m -= TWO_PI * Math.floor(m / TWO_PI);
+        double e = eccentricity[body];
+
+        // Solve Kepler's equation M = E - e sin(E) for the eccentric anomaly.
+        double ea = m + e * Math.sin(m);
+        for (int k = keplerIterations[body]; k > 0; k--) {
+            ea -= (ea - e * Math.sin(ea) - m) / (1.0 - e * Math.cos(ea));
+        }
+
+        double inPlaneX = semiMajorAxis[body] * (Math.cos(ea) - e);
+        double inPlaneY = semiMinorAxis[body] * Math.sin(ea);
+        x[body] = (float) (inPlaneX * px[body] + inPlaneY * qx[body]);
+        y[body] = (float) (inPlaneX * py[body] + inPlaneY * qy[body]);
+        z[body] = (float) (inPlaneX * pz[body] + inPlaneY * qz[body]);
+    }
+
+    /**
+     * Newton iterations needed to solve Kepler's equation to 1e-10 radians for every mean anomaly,
+     * starting from E = M + e sin(M).
+     */
+    private static int iterationsFor(double eccentricity) {
+        if (eccentricity < 0.15) {
+            return 2;
+        } else if (eccentricity < 0.5) {
+            return 3;
+        } else if (eccentricity < 0.75) {
+            return 4;
+        } else if (eccentricity < 0.85) {
+            return 5;
+        }
+        return 6;
+    }
+
+    private void grow(int capacity) {
+        meanAnomalyAtEpoch = Arrays.copyOf(meanAnomalyAtEpoch, capacity);
+        meanMotion = Arrays.copyOf(meanMotion, capacity);
+        eccentricity = Arrays.copyOf(eccentricity, capacity);
+        keplerIterations = Arrays.copyOf(keplerIterations, capacity);
+        semiMajorAxis = Arrays.copyOf(semiMajorAxis, capacity);
+        semiMinorAxis = Arrays.copyOf(semiMinorAxis, capacity);
+        px = Arrays.copyOf(px, capacity);
+        py = Arrays.copyOf(py, capacity);
+        pz = Arrays.copyOf(pz, capacity);
+        qx = Arrays.copyOf(qx, capacity);
+        qy = Arrays.copyOf(qy, capacity);
+        qz = Arrays.copyOf(qz, capacity);
+    }
+}
@@ -0,0 +1,70 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+/**
+ * Keplerian elements of an orbit around a parent body.
+ *
+ * <p>Angles are in degrees. The mean motion is in degrees per unit of simulation time and the
+ * semi-major axis is in whatever distance unit the caller scales the positions by.
+ */
+public final class OrbitalElements {
+    private final float semiMajorAxis;
+    private final float eccentricity;
+    private final float inclination;
+    private final float longitudeOfNode;
+    private final float argumentOfPeriapsis;
+    private final float meanAnomalyAtEpoch;
+    private final float meanMotion;
+
+    public OrbitalElements(
+            float semiMajorAxis,
+            float eccentricity,
+            float inclination,
+            float longitudeOfNode,
+            float argumentOfPeriapsis,
+            float meanAnomalyAtEpoch,
+            float meanMotion) {
+        if (eccentricity < 0.0f || eccentricity > KeplerEphemeris.MAX_ECCENTRICITY) {
+            throw new IllegalArgumentException("Unsupported eccentricity: " + eccentricity);
+        }
+        this.semiMajorAxis = semiMajorAxis;
+        this.eccentricity = eccentricity;
+        this.inclination = inclination;
+        this.longitudeOfNode = longitudeOfNode;
+        this.argumentOfPeriapsis = argumentOfPeriapsis;
+        this.meanAnomalyAtEpoch = meanAnomalyAtEpoch;
+        this.meanMotion = meanMotion;
+    }
+
+    /** Circular orbit in the reference plane, the shape the original scene used. */
+    public static OrbitalElements circular(float radius, float meanMotion) {
+        return new OrbitalElements(radius, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, meanMotion);
+    }
+
+    public float getSemiMajorAxis() {
+        return semiMajorAxis;
+    }
+
+    public float getEccentricity() {
+        return eccentricity;
+    }
+
+    public float getInclination() {
+        return inclination;
+    }
+
+    public float getLongitudeOfNode() {
+        return longitudeOfNode;
+    }
+
+    public float getArgumentOfPeriapsis() {
+        return argumentOfPeriapsis;
+    }
+
+    public float getMeanAnomalyAtEpoch() {
+        return meanAnomalyAtEpoch;
+    }
+
+    public float getMeanMotion() {
+        return meanMotion;
+    }
+}
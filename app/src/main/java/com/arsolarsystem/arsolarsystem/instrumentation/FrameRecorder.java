@@ -0,0 +1,179 @@
+package com.arsolarsystem.arsolarsystem.instrumentation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Records frame times and per-section timings in fixed size ring buffers.
+ *
+ * <p>Recording never allocates: timings go into primitive arrays sized up front and percentiles
+ * come from a histogram that is kept up to date as frames enter and leave the ring. Only
+ * {@link #copy} and {@link #writeTrace} allocate, and they are meant to run off the per-frame path.
+ *
+ * <p>Not thread safe, record and read from the same thread. To read from another thread, hand it a
+ * {@link #copy}.
+ */
+public class FrameRecorder {
+    // Histogram buckets of 100 microseconds up to 100 ms, longer frames share the last bucket.
+    private static final long BUCKET_NANOS = 100_000L;
+    private static final int BUCKET_COUNT = 1001;
+
+    private static final int MAX_LOADS = 64;
+
+    private final String[] sectionNames;
+    private final int capacity;
+
+    private final long[] frameNanos;
+    private final long[] frameIndices;
+    // Section timings of every recorded frame, laid out as [slot * sectionCount + section].
+    private final long[] sectionNanos;
+    private final long[] openSectionNanos;
+    private final int[] histogram = new int[BUCKET_COUNT];
+
+    private int head = 0;
+    private int size = 0;
+    private long frameIndex = 0;
+
+    private final String[] loadNames = new String[MAX_LOADS];
+    private final long[] loadNanos = new long[MAX_LOADS];
+    private int loadCount = 0;
+
+    /**
+     * @param capacity - number of most recent frames kept.
+     * @param sectionNames - names of the timed sections, a section is referred to by its index.
+     */
+    public FrameRecorder(int capacity, String... sectionNames) {
+        this.capacity = capacity;
+        this.sectionNames = sectionNames;
+        frameNanos = new long[capacity];
+        frameIndices = new long[capacity];
+        sectionNanos = new long[capacity * sectionNames.length];
+        openSectionNanos = new long[sectionNames.length];
+    }
+
+    private FrameRecorder(FrameRecorder source) {
+        capacity = source.capacity;
+        sectionNames = source.sectionNames;
+        frameNanos = source.frameNanos.clone();
+        frameIndices = source.frameIndices.clone();
+        sectionNanos = source.sectionNanos.clone();
+        openSectionNanos = source.openSectionNanos.clone();
+        System.arraycopy(source.histogram, 0, histogram, 0, BUCKET_COUNT);
+        head = source.head;
+        size = source.size;
+        frameIndex = source.frameIndex;
+        System.arraycopy(source.loadNames, 0, loadNames, 0, MAX_LOADS);
+        System.arraycopy(source.loadNanos, 0, loadNanos, 0, MAX_LOADS);
+        loadCount = source.loadCount;
+    }
+
+    /**
+     * Returns a copy of everything recorded so far. The copy does not change as this recorder goes
+     * on recording, so another thread can write it out.
+     */
+    public FrameRecorder copy() {
+        return new FrameRecorder(this);
+    }
+
+    /** Adds time spent in a section during the current frame. */
+    public void addSectionTime(int section, long nanos) {
+        openSectionNanos[section] += nanos;
+    }
+
+    /** Closes the current frame with its total duration. */
+    public void endFrame(long nanos) {
+        if (size == capacity) {
+            histogram[bucketOf(frameNanos[head])]--;
+        } else {
+            size++;
+        }
+        frameNanos[head] = nanos;
+        frameIndices[head] = frameIndex++;
+        histogram[bucketOf(nanos)]++;
+        int sectionCount = sectionNames.length;
+        System.arraycopy(openSectionNanos, 0, sectionNanos, head * sectionCount, sectionCount);
+        Arrays.fill(openSectionNanos, 0L);
+        head = (head + 1) % capacity;
+    }
+
+    /** Records how long an asset took to load. Loads past the first 64 are dropped. */
+    public void recordLoad(String name, long nanos) {
+        if (loadCount == MAX_LOADS) {
+            return;
+        }
+        loadNames[loadCount] = name;
+        loadNanos[loadCount] = nanos;
+        loadCount++;
+    }
+
+    /** Number of frames currently held, at most the capacity. */
+    public int getFrameCount() {
+        return size;
+    }
+
+    /**
+     * Returns the frame time below which the given fraction of recorded frames fall, rounded up to
+     * 100 microseconds. Returns 0 if no frame was recorded.
+     */
+    public long getPercentileNanos(double fraction) {
+        if (size == 0) {
+            return 0L;
+        }
+        int target = Math.max(1, (int) Math.ceil(fraction * size));
+        int seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= target) {
+                return (bucket + 1) * BUCKET_NANOS;
+            }
+        }
+        return BUCKET_COUNT * BUCKET_NANOS;
+    }
+
+    /** Average time per frame spent in a section over the recorded frames. */
+    public long getAverageSectionNanos(int section) {
+        if (size == 0) {
+            return 0L;
+        }
+        long total = 0L;
+        int sectionCount = sectionNames.length;
+        for (int slot = 0; slot < size; slot++) {
+            total += sectionNanos[slot * sectionCount + section];
+        }
+        return total / size;
+    }
+
+    /**
+     * Writes the recorded loads and frames, oldest frame first, as CSV. Each frame row has the
+     * frame index, the frame time and the time of every section, all in microseconds.
+     */
+    public void writeTrace(Writer out) throws IOException {
+        out.write("# load,asset,micros\n");
+        for (int i = 0; i < loadCount; i++) {
+            out.write("load," + loadNames[i] + "," + loadNanos[i] / 1_000L + "\n");
+        }
+        StringBuilder header = new StringBuilder("frame,frame_us");
+        for (String name : sectionNames) {
+            header.append(',').append(name).append("_us");
+        }
+        out.write(header.append('\n').toString());
+
+        int sectionCount = sectionNames.length;
+        int oldest = size == capacity ? head : 0;
+        for (int i = 0; i < size; i++) {
+            int slot = (oldest + i) % capacity;
+            StringBuilder row = new StringBuilder();
+            row.append(frameIndices[slot]).append(',').append(frameNanos[slot] / 1_000L);
+            for (int section = 0; section < sectionCount; section++) {
+                row.append(',').append(sectionNanos[slot * sectionCount + section] / 1_000L);
+            }
+            out.write(row.append('\n').toString());
+        }
+    }
+
+    private static int bucketOf(long nanos) {
+        long bucket = nanos / BUCKET_NANOS;
+        return bucket >= BUCKET_COUNT ? BUCKET_COUNT - 1 : (int) Math.max(0L, bucket);
+    }
+}
@@ -0,0 +1,98 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Steps an {@link NBodySystem} under mutual gravity, O(n log n) per step through a
+ * {@link BarnesHutTree} rebuilt each step, with the forces computed on a fork/join pool.
+ *
+ * <p>Each step is kick-drift-kick leapfrog: half a step of velocity from the current accelerations,
+ * a full step of position, new accelerations, and the other half of the velocity. The scheme is
+ * symplectic and time reversible, so the energy of a bound system wobbles instead of drifting away
+ * over many orbits, which a plain Euler step would not manage. The accelerations of a step are kept
+ * for the first kick of the next one, leaving one force pass per step.
+ *
+ * <p>Forces are softened by Plummer's length, keeping close passes from flinging bodies out at
+ * absurd speeds. A theta of 0 opens every cell and gives the direct sum, about 0.5 is the usual
+ * trade of accuracy for speed.
+ */
+public class BarnesHutIntegrator {
+    private final ForkJoinPool pool;
+    private final double softening;
+    private final double gravitationalConstant;
+    private final BarnesHutTree tree;
+    // The system and body count the accelerations in the arrays were computed for.
+    private NBodySystem acceleratedSystem;
+    private int acceleratedCount = -1;
+
+    /**
+     * @param pool - runs the force pass, ForkJoinPool.commonPool() unless the caller wants fewer
+     *             cores busy.
+     * @param gravitationalConstant - G in the units of the system.
+     * @param softening - Plummer softening length, 0 for Newton's law as is.
+     * @param theta - opening angle, larger is faster and less accurate.
+     */
+    public BarnesHutIntegrator(ForkJoinPool pool, double gravitationalConstant, double softening, double theta) {
+        if (!(theta >= 0.0)) {
+            throw new IllegalArgumentException("Theta must not be negative");
+        }
+        this.pool = pool;
+        this.gravitationalConstant = gravitationalConstant;
+        this.softening = softening;
+        this.tree = new BarnesHutTree(gravitationalConstant, softening, theta);
+    }
+
+    public double getGravitationalConstant() {
+        return gravitationalConstant;
+    }
+
+    public double getSoftening() {
+        return softening;
+    }
+
+    /** Recomputes the acceleration of every body from the current positions. */
+    public void computeAccelerations(NBodySystem system) {
+        tree.build(system);
+        tree.computeAccelerations(system, pool);
+        acceleratedSystem = system;
+        acceleratedCount = system.getCount();
+    }
+
+    /** Advances the system by dt, which may be negative to run it backwards. */
+    public void step(NBodySystem system, double dt) {
+        // Bodies added since the last step have no acceleration yet, and everyone else now feels them.
+        if (system != acceleratedSystem || system.getCount() != acceleratedCount) {
+            computeAccelerations(system);
+        }
+        int count = system.getCount();
+        double halfDt = 0.5 * dt;
+        kick(system, count, halfDt);
+        double[] x = system.getX();
+        double[] y = system.getY();
+        double[] z = system.getZ();
+        double[] vx = system.getVelocityX();
+        double[] vy = system.getVelocityY();
+        double[] vz = system.getVelocityZ();
+        for (int i = 0; i < count; i++) {
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            z[i] += vz[i] * dt;
+        }
+        computeAccelerations(system);
+        kick(system, count, halfDt);
+    }
+
+    private static void kick(NBodySystem system, int count, double dt) {
+        double[] vx = system.getVelocityX();
+        double[] vy = system.getVelocityY();
+        double[] vz = system.getVelocityZ();
+        double[] ax = system.getAccelerationX();
+        double[] ay = system.getAccelerationY();
+        double[] az = system.getAccelerationZ();
+        for (int i = 0; i < count; i++) {
+            vx[i] += ax[i] * dt;
+            vy[i] += ay[i] * dt;
+            vz[i] += az[i] * dt;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Barnes-Hut octree over the bodies of an {@link NBodySystem}, in flat arrays.
+ *
+ * <p>Bodies are inserted one at a time, splitting a leaf when a second body lands in it. Children
+ * are always created after their parent, so the masses and centers of mass are summed in one pass
+ * from the last node back to the root. Bodies that are still together at {@link #MAX_DEPTH} share a
+ * leaf, which keeps coincident bodies from splitting forever.
+ *
+ * <p>The acceleration of a body treats a cell as a point mass at its center of mass once the cell's
+ * size is less than theta times the distance to it and the body is outside it. Bodies are split into
+ * ranges over a fork/join pool, each range walking the tree with a stack of its own. The tree is
+ * built on the calling thread, building is far cheaper than the force pass.
+ */
+final class BarnesHutTree {
+    static final int MAX_DEPTH = 48;
+    // Bodies per fork/join task, enough work to outweigh the task.
+    private static final int BODIES_PER_TASK = 256;
+    private static final int STACK_SIZE = 7 * MAX_DEPTH + 8;
+    private static final int INTERNAL = -1;
+    private static final int INITIAL_NODES = 64;
+
+    private final double gravitationalConstant;
+    private final double softening2;
+    private final double theta2;
+
+    private double[] centerX = new double[INITIAL_NODES];
+    private double[] centerY = new double[INITIAL_NODES];
+    private double[] centerZ = new double[INITIAL_NODES];
+    private double[] halfSize = new double[INITIAL_NODES];
+    private double[] nodeMass = new double[INITIAL_NODES];
+    private double[] massX = new double[INITIAL_NODES];
+    private double[] massY = new double[INITIAL_NODES];
+    private double[] massZ = new double[INITIAL_NODES];
+    // Eight per node. 0 is no child, the root is never anyone's child.
+    private int[] children = new int[INITIAL_NODES * 8];
+    // First body of a leaf, INTERNAL for cells with children.
+    private int[] leafBody = new int[INITIAL_NODES];
+    private int nodeCount = 0;
+    // Next body in the same leaf, -1 for the last.
+    private int[] nextInLeaf = new int[0];
+
+    // The system the tree was last built over.
+    private double[] bodyMass;
+    private double[] bodyX;
+    private double[] bodyY;
+    private double[] bodyZ;
+
+    BarnesHutTree(double gravitationalConstant, double softening, double theta) {
+        this.gravitationalConstant = gravitationalConstant;
+        this.softening2 = softening * softening;
+        this.theta2 = theta * theta;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    void build(NBodySystem system) {
+        int count = system.getCount();
+        bodyMass = system.getMass();
+        bodyX = system.getX();
+        bodyY = system.getY();
+        bodyZ = system.getZ();
+        nodeCount = 0;
+        if (count == 0) {
+            return;
+        }
+        if (nextInLeaf.length < count) {
+            nextInLeaf = new int[bodyMass.length];
+        }
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, bodyX[i]);
+            minY = Math.min(minY, bodyY[i]);
+            minZ = Math.min(minZ, bodyZ[i]);
+            maxX = Math.max(maxX, bodyX[i]);
+            maxY = Math.max(maxY, bodyY[i]);
+            maxZ = Math.max(maxZ, bodyZ[i]);
+        }
+        double half = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) * 0.5;
+        // Slightly larger so bodies on the far faces still fall inside.
+        half = half * (1.0 + 1e-9) + Double.MIN_NORMAL;
+        int root = allocateNode();
+        centerX[root] = (minX + maxX) * 0.5;
+        centerY[root] = (minY + maxY) * 0.5;
+        centerZ[root] = (minZ + maxZ) * 0.5;
+        halfSize[root] = half;
+        leafBody[root] = 0;
+        nextInLeaf[0] = -1;
+        for (int i = 1; i < count; i++) {
+            insert(i);
+        }
+        summarize();
+    }
+
+    /** Writes the acceleration of every body of the system the tree was built over. */
+    void computeAccelerations(NBodySystem system, ForkJoinPool pool) {
+        int count = system.getCount();
+        if (count == 0) {
+            return;
+        }
+        pool.invoke(new ForceTask(system, 0, count));
+    }
+
+    private void insert(int body) {
+        int node = 0;
+        int depth = 0;
+        while (true) {
+            if (leafBody[node] != INTERNAL) {
+                if (depth >= MAX_DEPTH) {
+                    nextInLeaf[body] = leafBody[node];
+                    leafBody[node] = body;
+                    return;
+                }
+                // Split the leaf, its body moves down into a child and this body follows below.
+                int resident = leafBody[node];
+                leafBody[node] = INTERNAL;
+                int octant = octant(node, resident);
+                // Into a local first, creating the leaf may replace the children array.
+                int leaf = createLeaf(node, octant, resident);
+                children[node * 8 + octant] = leaf;
+            }
+            int octant = octant(node, body);
+            int child = children[node * 8 + octant];
+            if (child == 0) {
+                int leaf = createLeaf(node, octant, body);
+                children[node * 8 + octant] = leaf;
+                return;
+            }
+            node = child;
+            depth++;
+        }
+    }
+
+    private int octant(int node, int body) {
+        return (bodyX[body] >= centerX[node] ? 1 : 0)
+                | (bodyY[body] >= centerY[node] ? 2 : 0)
+                | (bodyZ[body] >= centerZ[node] ? 4 : 0);
+    }
+
+    private int createLeaf(int parent, int octant, int body) {
+        int node = allocateNode();
+        double quarter = halfSize[parent] * 0.5;
+        centerX[node] = centerX[parent] + ((octant & 1) != 0 ? quarter : -quarter);
+        centerY[node] = centerY[parent] + ((octant & 2) != 0 ? quarter : -quarter);
+        centerZ[node] = centerZ[parent] + ((octant & 4) != 0 ? quarter : -quarter);
+        halfSize[node] = quarter;
+        leafBody[node] = body;
+        nextInLeaf[body] = -1;
+        return node;
+    }
+
+    private int allocateNode() {
+        if (nodeCount == leafBody.length) {
+            int capacity = nodeCount * 2;
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            centerZ = Arrays.copyOf(centerZ, capacity);
+            halfSize = Arrays.copyOf(halfSize, capacity);
+            nodeMass = Arrays.copyOf(nodeMass, capacity);
+            massX = Arrays.copyOf(massX, capacity);
+            massY = Arrays.copyOf(massY, capacity);
+            massZ = Arrays.copyOf(massZ, capacity);
+            children = Arrays.copyOf(children, capacity * 8);
+            leafBody = Arrays.copyOf(leafBody, capacity);
+        }
+        Arrays.fill(children, nodeCount * 8, nodeCount * 8 + 8, 0);
+        return nodeCount++;
+    }
+
+    /** Sums the mass and center of mass of every cell, children before parents. */
+    private void summarize() {
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            double m = 0.0;
+            double sx = 0.0;
+            double sy = 0.0;
+            double sz = 0.0;
+            if (leafBody[node] != INTERNAL) {
+                for (int body = leafBody[node]; body >= 0; body = nextInLeaf[body]) {
+                    m += bodyMass[body];
+                    sx += bodyMass[body] * bodyX[body];
+                    sy += bodyMass[body] * bodyY[body];
+                    sz += bodyMass[body] * bodyZ[body];
+                }
+            } else {
+                for (int i = node * 8; i < node * 8 + 8; i++) {
+                    int child = children[i];
+                    if (child != 0) {
+                        m += nodeMass[child];
+                        sx += nodeMass[child] * massX[child];
+                        sy += nodeMass[child] * massY[child];
+                        sz += nodeMass[child] * massZ[child];
+                    }
+                }
+            }
+            nodeMass[node] = m;
+            if (m > 0.0) {
+                massX[node] = sx / m;
+                massY[node] = sy / m;
+                massZ[node] = sz / m;
+            } else {
+                // Massless bodies only, pulls nothing.
+                massX[node] = centerX[node];
+                massY[node] = centerY[node];
+                massZ[node] = centerZ[node];
+            }
+        }
+    }
+
+    private void accelerate(int body, int[] stack, double[] ax, double[] ay, double[] az) {
+        double px = bodyX[body];
+        double py = bodyY[body];
+        double pz = bodyZ[body];
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumZ = 0.0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (leafBody[node] != INTERNAL) {
+                for (int other = leafBody[node]; other >= 0; other = nextInLeaf[other]) {
+                    if (other == body) {
+                        continue;
+                    }
+                    double dx = bodyX[other] - px;
+                    double dy = bodyY[other] - py;
+                    double dz = bodyZ[other] - pz;
+                    double r2 = dx * dx + dy * dy + dz * dz + softening2;
+                    double scale = bodyMass[other] / (r2 * Math.sqrt(r2));
+                    sumX += dx * scale;
+                    sumY += dy * scale;
+                    sumZ += dz * scale;
+                }
+                continue;
+            }
+            double dx = massX[node] - px;
+            double dy = massY[node] - py;
+            double dz = massZ[node] - pz;
+            double distance2 = dx * dx + dy * dy + dz * dz;
+            double half = halfSize[node];
+            double size = 2.0 * half;
+            boolean outside = Math.abs(px - centerX[node]) > half
+                    || Math.abs(py - centerY[node]) > half
+                    || Math.abs(pz - centerZ[node]) > half;
+            if (outside && size * size < theta2 * distance2) {
+                double r2 = distance2 + softening2;
+                double scale = nodeMass[node] / (r2 * Math.sqrt(r2));
+                sumX += dx * scale;
+                sumY += dy * scale;
+                sumZ += dz * scale;
+                continue;
+            }
+            for (int i = node * 8; i < node * 8 + 8; i++) {
+                if (children[i] != 0) {
+                    stack[top++] = children[i];
+                }
+            }
+        }
+        ax[body] = gravitationalConstant * sumX;
+        ay[body] = gravitationalConstant * sumY;
+        az[body] = gravitationalConstant * sumZ;
+    }
+
+    private final class ForceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final NBodySystem system;
+        private final int start;
+        private final int end;
+
+        ForceTask(NBodySystem system, int start, int end) {
+            this.system = system;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= BODIES_PER_TASK) {
+                int[] stack = new int[STACK_SIZE];
+                double[] ax = system.getAccelerationX();
+                double[] ay = system.getAccelerationY();
+                double[] az = system.getAccelerationZ();
+                for (int body = start; body < end; body++) {
+                    accelerate(body, stack, ax, ay, az);
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new ForceTask(system, start, middle), new ForceTask(system, middle, end));
+        }
+    }
+}
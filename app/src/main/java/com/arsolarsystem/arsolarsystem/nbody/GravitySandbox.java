@@ -0,0 +1,198 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import java.util.Arrays;
+
+/**
+ * Bodies flung into a planetary system, pulled by every body of the system and by each other.
+ *
+ * <p>The bodies of the system are anchored: the caller moves them along their orbits every frame
+ * and the sandbox holds them there while it steps. The catalog's mean motions are compressed for
+ * viewing rather than Keplerian, so under real gravity the planets would drift off the orbits that
+ * are drawn. Anchored bodies still pull the flung ones, which get slung around the star and kicked
+ * by close passes of the planets, but nothing flung moves a planet.
+ *
+ * <p>Flung bodies live in a fixed number of slots. A body that leaves the escape radius frees its
+ * slot, and once every slot is taken the next fling replaces the oldest body.
+ *
+ * <p>Units are up to the caller, as for {@link NBodySystem}. Not thread safe.
+ */
+public class GravitySandbox {
+    private final BarnesHutIntegrator integrator;
+    private final NBodySystem system = new NBodySystem();
+    private final int anchoredCount;
+    private final int maxFlungBodies;
+    private final double maxStep;
+    private final int maxSubsteps;
+    private final double escapeRadius;
+
+    // Where each anchored body is held this frame.
+    private final double[] anchorX;
+    private final double[] anchorY;
+    private final double[] anchorZ;
+
+    private final boolean[] flungActive;
+    private int nextSlot = 0;
+
+    /**
+     * @param anchoredMasses - mass of every body of the system, in the order of its body indices.
+     * @param maxFlungBodies - slots for flung bodies.
+     * @param maxStep - longest step, longer advances are split into substeps of at most this length.
+     * @param maxSubsteps - most substeps per advance, past that the steps get longer instead.
+     * @param escapeRadius - distance from the origin past which a flung body is dropped.
+     */
+    public GravitySandbox(BarnesHutIntegrator integrator, double[] anchoredMasses, int maxFlungBodies,
+                          double maxStep, int maxSubsteps, double escapeRadius) {
+        if (maxFlungBodies < 1 || !(maxStep > 0.0) || maxSubsteps < 1) {
+            throw new IllegalArgumentException("Sandbox needs a slot, a positive step and a substep");
+        }
+        this.integrator = integrator;
+        this.anchoredCount = anchoredMasses.length;
+        this.maxFlungBodies = maxFlungBodies;
+        this.maxStep = maxStep;
+        this.maxSubsteps = maxSubsteps;
+        this.escapeRadius = escapeRadius;
+        this.anchorX = new double[anchoredCount];
+        this.anchorY = new double[anchoredCount];
+        this.anchorZ = new double[anchoredCount];
+        this.flungActive = new boolean[maxFlungBodies];
+        for (double mass : anchoredMasses) {
+            system.addBody(mass, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+    }
+
+    /**
+     * Returns G such that a massless body on a circular orbit of the given radius and mean motion, in
+     * degrees per unit of time, around the given mass is Keplerian.
+     */
+    public static double gravitationalConstant(double centralMass, double radius, double meanMotionDegrees) {
+        double meanMotion = Math.toRadians(meanMotionDegrees);
+        return meanMotion * meanMotion * radius * radius * radius / centralMass;
+    }
+
+    public int getMaxFlungBodies() {
+        return maxFlungBodies;
+    }
+
+    /** Returns whether any slot holds a flung body, the sandbox costs nothing until one does. */
+    public boolean hasFlungBodies() {
+        for (boolean active : flungActive) {
+            if (active) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Moves an anchored body to where it is this frame, from the next advance on. */
+    public void setAnchoredPosition(int body, double x, double y, double z) {
+        anchorX[body] = x;
+        anchorY[body] = y;
+        anchorZ[body] = z;
+    }
+
+    /** Adds a flung body and returns its slot, replacing the oldest body when the slots are full. */
+    public int fling(double mass, double px, double py, double pz, double velocityX, double velocityY, double velocityZ) {
+        int slot = nextSlot;
+        for (int i = 0; i < maxFlungBodies; i++) {
+            int candidate = (nextSlot + i) % maxFlungBodies;
+            if (!flungActive[candidate]) {
+                slot = candidate;
+                break;
+            }
+        }
+        nextSlot = (slot + 1) % maxFlungBodies;
+        int body = anchoredCount + slot;
+        if (body == system.getCount()) {
+            system.addBody(mass, px, py, pz, velocityX, velocityY, velocityZ);
+        } else {
+            // Slots are taken in order at first, so a reused slot already has its body.
+            system.getMass()[body] = mass;
+            system.getX()[body] = px;
+            system.getY()[body] = py;
+            system.getZ()[body] = pz;
+            system.getVelocityX()[body] = velocityX;
+            system.getVelocityY()[body] = velocityY;
+            system.getVelocityZ()[body] = velocityZ;
+        }
+        flungActive[slot] = true;
+        holdAnchors();
+        integrator.computeAccelerations(system);
+        return slot;
+    }
+
+    public boolean isActive(int slot) {
+        return flungActive[slot];
+    }
+
+    public double getX(int slot) {
+        return system.getX()[anchoredCount + slot];
+    }
+
+    public double getY(int slot) {
+        return system.getY()[anchoredCount + slot];
+    }
+
+    public double getZ(int slot) {
+        return system.getZ()[anchoredCount + slot];
+    }
+
+    /**
+     * Advances the flung bodies by dt, which may be negative to run them backwards, with the
+     * anchored bodies held where they were last set. Does nothing while no body is flung.
+     */
+    public void advance(double dt) {
+        if (dt == 0.0 || !hasFlungBodies()) {
+            return;
+        }
+        int substeps = (int) Math.min(maxSubsteps, Math.ceil(Math.abs(dt) / maxStep));
+        double substep = dt / substeps;
+        // The anchors moved since the last advance, so the accelerations kept from it are stale.
+        holdAnchors();
+        integrator.computeAccelerations(system);
+        for (int i = 0; i < substeps; i++) {
+            integrator.step(system, substep);
+            holdAnchors();
+        }
+        dropEscaped();
+    }
+
+    /**
+     * Puts the anchored bodies back where they are held, at rest. Within a step they only drift by
+     * half a kick of their own acceleration, which the flung bodies barely feel.
+     */
+    private void holdAnchors() {
+        double[] x = system.getX();
+        double[] y = system.getY();
+        double[] z = system.getZ();
+        double[] vx = system.getVelocityX();
+        double[] vy = system.getVelocityY();
+        double[] vz = system.getVelocityZ();
+        for (int body = 0; body < anchoredCount; body++) {
+            x[body] = anchorX[body];
+            y[body] = anchorY[body];
+            z[body] = anchorZ[body];
+        }
+        Arrays.fill(vx, 0, anchoredCount, 0.0);
+        Arrays.fill(vy, 0, anchoredCount, 0.0);
+        Arrays.fill(vz, 0, anchoredCount, 0.0);
+    }
+
+    private void dropEscaped() {
+        double escapeRadius2 = escapeRadius * escapeRadius;
+        double[] x = system.getX();
+        double[] y = system.getY();
+        double[] z = system.getZ();
+        for (int slot = 0; slot < maxFlungBodies; slot++) {
+            int body = anchoredCount + slot;
+            if (!flungActive[slot] || x[body] * x[body] + y[body] * y[body] + z[body] * z[body] <= escapeRadius2) {
+                continue;
+            }
+            // Massless and at rest far out, the body no longer pulls on or costs the others anything.
+            flungActive[slot] = false;
+            system.getMass()[body] = 0.0;
+            system.getVelocityX()[body] = 0.0;
+            system.getVelocityY()[body] = 0.0;
+            system.getVelocityZ()[body] = 0.0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import java.util.Arrays;
+
+/**
+ * Masses, positions, velocities and accelerations of freely moving bodies in flat parallel arrays,
+ * for {@link BarnesHutIntegrator}.
+ *
+ * <p>Bodies can be added at any time, like a comet flung into a running system. Units are up to the
+ * caller, as long as the gravitational constant given to the integrator matches them. Not thread
+ * safe.
+ */
+public class NBodySystem {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int count = 0;
+    private double[] mass = new double[INITIAL_CAPACITY];
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] z = new double[INITIAL_CAPACITY];
+    private double[] vx = new double[INITIAL_CAPACITY];
+    private double[] vy = new double[INITIAL_CAPACITY];
+    private double[] vz = new double[INITIAL_CAPACITY];
+    private double[] ax = new double[INITIAL_CAPACITY];
+    private double[] ay = new double[INITIAL_CAPACITY];
+    private double[] az = new double[INITIAL_CAPACITY];
+
+    /** Adds a body and returns its index. Its acceleration is computed before the next step. */
+    public int addBody(double bodyMass, double px, double py, double pz, double velocityX, double velocityY, double velocityZ) {
+        if (!(bodyMass >= 0.0)) {
+            throw new IllegalArgumentException("Mass must not be negative");
+        }
+        if (count == mass.length) {
+            int capacity = count * 2;
+            mass = Arrays.copyOf(mass, capacity);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            vx = Arrays.copyOf(vx, capacity);
+            vy = Arrays.copyOf(vy, capacity);
+            vz = Arrays.copyOf(vz, capacity);
+            ax = Arrays.copyOf(ax, capacity);
+            ay = Arrays.copyOf(ay, capacity);
+            az = Arrays.copyOf(az, capacity);
+        }
+        mass[count] = bodyMass;
+        x[count] = px;
+        y[count] = py;
+        z[count] = pz;
+        vx[count] = velocityX;
+        vy[count] = velocityY;
+        vz[count] = velocityZ;
+        return count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // The arrays are longer than the body count and are replaced when bodies are added, so take
+    // them again after adding.
+
+    public double[] getMass() {
+        return mass;
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getY() {
+        return y;
+    }
+
+    public double[] getZ() {
+        return z;
+    }
+
+    public double[] getVelocityX() {
+        return vx;
+    }
+
+    public double[] getVelocityY() {
+        return vy;
+    }
+
+    public double[] getVelocityZ() {
+        return vz;
+    }
+
+    public double[] getAccelerationX() {
+        return ax;
+    }
+
+    public double[] getAccelerationY() {
+        return ay;
+    }
+
+    public double[] getAccelerationZ() {
+        return az;
+    }
+
+    public double getKineticEnergy() {
+        double energy = 0.0;
+        for (int i = 0; i < count; i++) {
+            energy += 0.5 * mass[i] * (vx[i] * vx[i] + vy[i] * vy[i] + vz[i] * vz[i]);
+        }
+        return energy;
+    }
+
+    /**
+     * Potential energy summed over every pair, O(n^2). Matches the forces of an integrator with the
+     * same constant and softening.
+     */
+    public double getPotentialEnergy(double gravitationalConstant, double softening) {
+        double softening2 = softening * softening;
+        double energy = 0.0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                double dz = z[j] - z[i];
+                energy -= gravitationalConstant * mass[i] * mass[j] / Math.sqrt(dx * dx + dy * dy + dz * dz + softening2);
+            }
+        }
+        return energy;
+    }
+}
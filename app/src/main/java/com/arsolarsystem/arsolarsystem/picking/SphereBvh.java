@@ -0,0 +1,343 @@
+package com.arsolarsystem.arsolarsystem.picking;
+
+import java.util.Arrays;
+
+/**
+ * Bounding volume hierarchy over moving spheres, for picking bodies with a ray.
+ *
+ * <p>The tree is built top down by splitting the spheres at the median of their longest axis, into
+ * flat arrays where children always come after their parent. Spheres move every frame, so instead of
+ * a rebuild {@link #refit()} recomputes the boxes from the leaves up in one pass. Boxes drift apart as
+ * bodies move around their orbits, so the tree is rebuilt once the total area of its boxes has grown
+ * past {@link #REBUILD_GROWTH} times the area right after the last build.
+ *
+ * <p>{@link #pick} accepts spheres the ray passes within an angle of, so bodies far away or only a
+ * few pixels big can still be picked. A sphere with a negative radius is kept in the tree but never
+ * picked. Not thread safe.
+ */
+public class SphereBvh {
+    private static final int LEAF_SIZE = 4;
+    private static final float REBUILD_GROWTH = 2.0f;
+    // Deep enough for any tree of median splits that fits in memory.
+    private static final int MAX_DEPTH = 64;
+
+    private float[] x = new float[16];
+    private float[] y = new float[16];
+    private float[] z = new float[16];
+    private float[] radius = new float[16];
+    private int count = 0;
+
+    // Sphere indices in leaf order, each leaf covers a range of them.
+    private int[] items = new int[0];
+    // Six floats per node, the minimum and then the maximum corner.
+    private float[] bounds = new float[0];
+    // Leaves: first entry in items. Inner nodes: left child, the right one is next to it.
+    private int[] nodeStart = new int[0];
+    // Leaves: number of spheres. Inner nodes: 0.
+    private int[] nodeCount = new int[0];
+    private int nodeTotal = 0;
+    private boolean needsBuild = true;
+    private float builtArea;
+
+    private final int[] stack = new int[2 * MAX_DEPTH];
+
+    // Result of the last pick, see getPickDistance().
+    private float pickDistance;
+
+    /** Adds a sphere and returns its index. The tree is rebuilt on the next refit. */
+    public int add(float cx, float cy, float cz, float r) {
+        if (count == x.length) {
+            int capacity = count * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+        }
+        x[count] = cx;
+        y[count] = cy;
+        z[count] = cz;
+        radius[count] = r;
+        needsBuild = true;
+        return count++;
+    }
+
+    /** Moves a sphere. Takes effect on the next {@link #refit()}. */
+    public void set(int index, float cx, float cy, float cz, float r) {
+        x[index] = cx;
+        y[index] = cy;
+        z[index] = cz;
+        radius[index] = r;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** Brings the boxes up to date with the spheres, rebuilding the tree when it is new or worn out. */
+    public void refit() {
+        if (needsBuild) {
+            build();
+            return;
+        }
+        for (int node = nodeTotal - 1; node >= 0; node--) {
+            if (nodeCount[node] > 0) {
+                fitLeaf(node);
+            } else {
+                fitInner(node);
+            }
+        }
+        if (getTotalArea() > REBUILD_GROWTH * builtArea) {
+            build();
+        }
+    }
+
+    /**
+     * Returns the sphere picked by a ray, or -1 if none is.
+     *
+     * <p>Spheres the ray goes through win over those it only passes within the tolerance of, the
+     * nearest one along the ray first. Otherwise the sphere the ray misses by the smallest angle is
+     * picked. Only spheres with their center in front of the origin are picked.
+     *
+     * @param dx - direction of the ray, unit length.
+     * @param tolerance - tangent of the largest angle a ray may pass a sphere by and still pick it.
+     */
+    public int pick(float ox, float oy, float oz, float dx, float dy, float dz, float tolerance) {
+        if (nodeTotal == 0) {
+            return -1;
+        }
+        int best = -1;
+        float bestError = Float.POSITIVE_INFINITY;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 6;
+            // Bounding sphere of the box. The distance from the ray's line changes no faster than the
+            // distance between points, which bounds the error of every sphere inside.
+            float hx = (bounds[b + 3] - bounds[b]) * 0.5f;
+            float hy = (bounds[b + 4] - bounds[b + 1]) * 0.5f;
+            float hz = (bounds[b + 5] - bounds[b + 2]) * 0.5f;
+            float boxRadius = (float) Math.sqrt(hx * hx + hy * hy + hz * hz);
+            float along = alongRay(bounds[b] + hx, bounds[b + 1] + hy, bounds[b + 2] + hz, ox, oy, oz, dx, dy, dz);
+            float far = along + boxRadius;
+            if (far <= 0.0f) {
+                continue;
+            }
+            float gap = offRay(bounds[b] + hx, bounds[b + 1] + hy, bounds[b + 2] + hz, along, ox, oy, oz) - boxRadius;
+            float lowerError = gap <= 0.0f ? 0.0f : gap / far;
+            float nearest = along - boxRadius;
+            if (lowerError > tolerance || lowerError > bestError
+                    || (lowerError == bestError && nearest >= bestDistance)) {
+                continue;
+            }
+
+            if (nodeCount[node] > 0) {
+                for (int i = nodeStart[node], end = i + nodeCount[node]; i < end; i++) {
+                    int item = items[i];
+                    float r = radius[item];
+                    if (r < 0.0f) {
+                        continue;
+                    }
+                    float t = alongRay(x[item], y[item], z[item], ox, oy, oz, dx, dy, dz);
+                    if (t <= 0.0f) {
+                        continue;
+                    }
+                    float off = offRay(x[item], y[item], z[item], t, ox, oy, oz);
+                    float error;
+                    float distance;
+                    if (off <= r) {
+                        error = 0.0f;
+                        // Where the ray enters the sphere.
+                        distance = t - (float) Math.sqrt(r * r - off * off);
+                    } else {
+                        error = (off - r) / t;
+                        distance = t;
+                    }
+                    if (error <= tolerance
+                            && (error < bestError || (error == bestError && distance < bestDistance))) {
+                        best = item;
+                        bestError = error;
+                        bestDistance = distance;
+                    }
+                }
+                continue;
+            }
+
+            // Visit the nearer child first, it is more likely to tighten the bounds.
+            int left = nodeStart[node];
+            int right = left + 1;
+            if (boxAlongRay(left, ox, oy, oz, dx, dy, dz) < boxAlongRay(right, ox, oy, oz, dx, dy, dz)) {
+                stack[top++] = right;
+                stack[top++] = left;
+            } else {
+                stack[top++] = left;
+                stack[top++] = right;
+            }
+        }
+        pickDistance = bestDistance;
+        return best;
+    }
+
+    /**
+     * Distance along the ray of the last pick: where the ray enters the sphere when it goes through
+     * it, otherwise the sphere center's.
+     */
+    public float getPickDistance() {
+        return pickDistance;
+    }
+
+    private void build() {
+        needsBuild = false;
+        if (items.length != count) {
+            items = new int[count];
+            // A binary tree with at most LEAF_SIZE spheres per leaf, at least one per leaf.
+            int maxNodes = Math.max(1, 2 * count - 1);
+            bounds = new float[maxNodes * 6];
+            nodeStart = new int[maxNodes];
+            nodeCount = new int[maxNodes];
+        }
+        for (int i = 0; i < count; i++) {
+            items[i] = i;
+        }
+        nodeTotal = 0;
+        if (count > 0) {
+            buildNode(allocateNode(), 0, count, 0);
+        }
+        builtArea = getTotalArea();
+    }
+
+    private int allocateNode() {
+        return nodeTotal++;
+    }
+
+    private void buildNode(int node, int start, int end, int depth) {
+        int size = end - start;
+        if (size <= LEAF_SIZE || depth == MAX_DEPTH - 1) {
+            nodeStart[node] = start;
+            nodeCount[node] = size;
+            fitLeaf(node);
+            return;
+        }
+        // Split at the median of the centers along the axis they spread the most on.
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            int item = items[i];
+            minX = Math.min(minX, x[item]);
+            minY = Math.min(minY, y[item]);
+            minZ = Math.min(minZ, z[item]);
+            maxX = Math.max(maxX, x[item]);
+            maxY = Math.max(maxY, y[item]);
+            maxZ = Math.max(maxZ, z[item]);
+        }
+        float spreadX = maxX - minX;
+        float spreadY = maxY - minY;
+        float spreadZ = maxZ - minZ;
+        float[] axis = spreadX >= spreadY && spreadX >= spreadZ ? x : spreadY >= spreadZ ? y : z;
+        int middle = (start + end) >>> 1;
+        select(axis, start, end - 1, middle);
+
+        int left = allocateNode();
+        int right = allocateNode();
+        nodeStart[node] = left;
+        nodeCount[node] = 0;
+        buildNode(left, start, middle, depth + 1);
+        buildNode(right, middle, end, depth + 1);
+        fitInner(node);
+    }
+
+    /** Reorders items[low..high] so that the k-th smallest key is at k, smaller ones before it. */
+    private void select(float[] key, int low, int high, int k) {
+        while (high > low) {
+            float pivot = key[items[(low + high) >>> 1]];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (key[items[i]] < pivot) {
+                    i++;
+                }
+                while (key[items[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = items[i];
+                    items[i] = items[j];
+                    items[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void fitLeaf(int node) {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = nodeStart[node], end = i + nodeCount[node]; i < end; i++) {
+            int item = items[i];
+            float r = Math.max(radius[item], 0.0f);
+            minX = Math.min(minX, x[item] - r);
+            minY = Math.min(minY, y[item] - r);
+            minZ = Math.min(minZ, z[item] - r);
+            maxX = Math.max(maxX, x[item] + r);
+            maxY = Math.max(maxY, y[item] + r);
+            maxZ = Math.max(maxZ, z[item] + r);
+        }
+        int b = node * 6;
+        bounds[b] = minX;
+        bounds[b + 1] = minY;
+        bounds[b + 2] = minZ;
+        bounds[b + 3] = maxX;
+        bounds[b + 4] = maxY;
+        bounds[b + 5] = maxZ;
+    }
+
+    private void fitInner(int node) {
+        int b = node * 6;
+        int l = nodeStart[node] * 6;
+        int r = l + 6;
+        for (int i = 0; i < 3; i++) {
+            bounds[b + i] = Math.min(bounds[l + i], bounds[r + i]);
+            bounds[b + 3 + i] = Math.max(bounds[l + 3 + i], bounds[r + 3 + i]);
+        }
+    }
+
+    private float getTotalArea() {
+        float area = 0.0f;
+        for (int node = 0; node < nodeTotal; node++) {
+            int b = node * 6;
+            float ex = bounds[b + 3] - bounds[b];
+            float ey = bounds[b + 4] - bounds[b + 1];
+            float ez = bounds[b + 5] - bounds[b + 2];
+            area += ex * ey + ey * ez + ez * ex;
+        }
+        return area;
+    }
+
+    private float boxAlongRay(int node, float ox, float oy, float oz, float dx, float dy, float dz) {
+        int b = node * 6;
+        return alongRay((bounds[b] + bounds[b + 3]) * 0.5f, (bounds[b + 1] + bounds[b + 4]) * 0.5f,
+                (bounds[b + 2] + bounds[b + 5]) * 0.5f, ox, oy, oz, dx, dy, dz);
+    }
+
+    private static float alongRay(float px, float py, float pz,
+            float ox, float oy, float oz, float dx, float dy, float dz) {
+        return (px - ox) * dx + (py - oy) * dy + (pz - oz) * dz;
+    }
+
+    /** Distance of a point from the ray's line, given how far along the ray it is. */
+    private static float offRay(float px, float py, float pz, float along, float ox, float oy, float oz) {
+        float ex = px - ox;
+        float ey = py - oy;
+        float ez = pz - oz;
+        return (float) Math.sqrt(Math.max(ex * ex + ey * ey + ez * ez - along * along, 0.0f));
+    }
+}
@@ -0,0 +1,180 @@
+package com.arsolarsystem.arsolarsystem.quality;
+
+/**
+ * Steps the quality of the scene down when frames run late or the device runs hot or low on power,
+ * and back up once there is headroom again.
+ *
+ * <p>Frames are judged in windows of {@link #WINDOW_NANOS}. A window with many late frames drops one
+ * level right away. Rising a level needs clean windows for a hold time, and the hold doubles every
+ * time a rise is followed by a drop within it, so a device sitting at the edge of a level settles
+ * instead of flipping between two. The device state puts a floor under the level: a hot battery,
+ * a low battery that isn't charging or power save mode keep quality down whatever the frame times
+ * say, and temperature thresholds are only cleared again a few degrees below where they tripped.
+ *
+ * <p>There is no clock or Android code in here, time is passed in, so the decisions are the same
+ * on every run for the same inputs. Not thread safe, use it from the thread that renders.
+ */
+public class QualityGovernor {
+    /** Called when the level changes. */
+    public interface OnQualityChangedListener {
+        void onQualityChanged(QualityLevel level);
+    }
+
+    static final long WINDOW_NANOS = 2_000_000_000L;
+    static final long UPGRADE_HOLD_NANOS = 20_000_000_000L;
+    static final long MAX_UPGRADE_HOLD_NANOS = 320_000_000_000L;
+
+    // A frame is late once it takes a quarter longer than the target.
+    private static final float LATE_FRAME_FACTOR = 1.25f;
+    // Share of late frames in a window that drops a level, and the share a window must stay under
+    // to count towards a rise.
+    private static final float DOWNGRADE_LATE_FRACTION = 0.15f;
+    private static final float UPGRADE_LATE_FRACTION = 0.02f;
+    // Longer frames are pauses, a resumed activity or a debugger, not rendering load.
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+
+    // Battery temperatures, the closest to a thermal status API 28 has. Warm keeps quality one
+    // level down, hot two.
+    static final float WARM_CELSIUS = 40.0f;
+    static final float HOT_CELSIUS = 44.0f;
+    static final float TEMPERATURE_HYSTERESIS_CELSIUS = 2.0f;
+    static final float LOW_BATTERY_FRACTION = 0.15f;
+
+    private final QualityLevel[] levels;
+    private final long lateFrameNanos;
+    private OnQualityChangedListener listener;
+
+    private int level = 0;
+    private int thermalFloor = 0;
+    private int powerFloor = 0;
+
+    private long windowStartNanos = Long.MIN_VALUE;
+    private int windowFrames = 0;
+    private int windowLateFrames = 0;
+    private long lastChangeNanos = 0L;
+    private long lastUpgradeNanos = Long.MIN_VALUE;
+    private long upgradeHoldNanos = UPGRADE_HOLD_NANOS;
+    private int changeCount = 0;
+
+    /**
+     * @param targetFrameNanos - frame time the scene should hold, 1/60 s on most phones.
+     * @param levels - quality levels from best to cheapest.
+     */
+    public QualityGovernor(long targetFrameNanos, QualityLevel... levels) {
+        if (levels.length == 0) {
+            throw new IllegalArgumentException("No quality levels");
+        }
+        this.levels = levels;
+        this.lateFrameNanos = (long) (targetFrameNanos * LATE_FRAME_FACTOR);
+    }
+
+    public void setOnQualityChangedListener(OnQualityChangedListener listener) {
+        this.listener = listener;
+    }
+
+    public QualityLevel getLevel() {
+        return levels[level];
+    }
+
+    /** Index of the current level, 0 is the best. */
+    public int getLevelIndex() {
+        return level;
+    }
+
+    /** Number of level changes so far. */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Updates the device state. A state that needs a lower level than the current one applies it
+     * right away, a better state only allows rising again through the frame windows.
+     *
+     * @param batteryCelsius - battery temperature.
+     * @param batteryFraction - charge left, from 0 to 1.
+     */
+    public void onDeviceState(
+            float batteryCelsius, float batteryFraction, boolean isCharging, boolean isPowerSaveMode, long nowNanos) {
+        thermalFloor = selectThermalFloor(batteryCelsius);
+        boolean lowPower = isPowerSaveMode || (!isCharging && batteryFraction < LOW_BATTERY_FRACTION);
+        powerFloor = lowPower ? 1 : 0;
+        int floor = getFloor();
+        if (level < floor) {
+            setLevel(floor, nowNanos);
+        }
+    }
+
+    /**
+     * Adds a rendered frame.
+     *
+     * @param frameNanos - duration of the frame.
+     * @param nowNanos - time at the end of the frame.
+     */
+    public void onFrame(long frameNanos, long nowNanos) {
+        if (frameNanos > MAX_FRAME_NANOS) {
+            // Start over after a pause instead of judging a window that spans it.
+            windowStartNanos = nowNanos;
+            windowFrames = 0;
+            windowLateFrames = 0;
+            return;
+        }
+        if (windowStartNanos == Long.MIN_VALUE) {
+            windowStartNanos = nowNanos - frameNanos;
+        }
+        windowFrames++;
+        if (frameNanos > lateFrameNanos) {
+            windowLateFrames++;
+        }
+        if (nowNanos - windowStartNanos < WINDOW_NANOS) {
+            return;
+        }
+        float lateFraction = (float) windowLateFrames / windowFrames;
+        windowStartNanos = nowNanos;
+        windowFrames = 0;
+        windowLateFrames = 0;
+
+        if (lateFraction > DOWNGRADE_LATE_FRACTION) {
+            if (level < levels.length - 1) {
+                if (lastUpgradeNanos != Long.MIN_VALUE && nowNanos - lastUpgradeNanos < upgradeHoldNanos) {
+                    // The last rise didn't hold, wait longer before the next one.
+                    upgradeHoldNanos = Math.min(upgradeHoldNanos * 2, MAX_UPGRADE_HOLD_NANOS);
+                }
+                setLevel(level + 1, nowNanos);
+            }
+        } else if (lateFraction < UPGRADE_LATE_FRACTION
+                && level > getFloor()
+                && nowNanos - lastChangeNanos >= upgradeHoldNanos) {
+            lastUpgradeNanos = nowNanos;
+            setLevel(level - 1, nowNanos);
+        }
+    }
+
+    private int selectThermalFloor(float celsius) {
+        // Each threshold trips at its temperature and clears a few degrees below it.
+        float hotClear = HOT_CELSIUS - TEMPERATURE_HYSTERESIS_CELSIUS;
+        float warmClear = WARM_CELSIUS - TEMPERATURE_HYSTERESIS_CELSIUS;
+        if (celsius >= HOT_CELSIUS || (thermalFloor >= 2 && celsius > hotClear)) {
+            return 2;
+        }
+        if (celsius >= WARM_CELSIUS || (thermalFloor >= 1 && celsius > warmClear)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private int getFloor() {
+        return Math.min(Math.max(thermalFloor, powerFloor), levels.length - 1);
+    }
+
+    private void setLevel(int newLevel, long nowNanos) {
+        lastChangeNanos = nowNanos;
+        if (newLevel == level) {
+            return;
+        }
+        level = newLevel;
+        changeCount++;
+        if (listener != null) {
+            listener.onQualityChanged(levels[level]);
+        }
+    }
+}
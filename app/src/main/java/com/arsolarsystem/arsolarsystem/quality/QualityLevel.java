@@ -0,0 +1,68 @@
+package com.arsolarsystem.arsolarsystem.quality;
+
+/**
+ * One step of the quality ladder the {@link QualityGovernor} moves along: how much work the scene
+ * does per frame and per second.
+ */
+public final class QualityLevel {
+    private final String name;
+    private final float lodBias;
+    private final double simulationStepSeconds;
+    private final float beltFraction;
+    private final int cardUpdateInterval;
+
+    /**
+     * @param lodBias - factor on the projected size of planets before their level of detail is
+     *     picked, below 1 switches to the low detail renderable sooner.
+     * @param simulationStepSeconds - real time covered by one orbit simulation step.
+     * @param beltFraction - share of the belt bodies that are moved and drawn, from 0 to 1.
+     * @param cardUpdateInterval - info cards turn towards the camera every this many frames.
+     */
+    public QualityLevel(
+            String name,
+            float lodBias,
+            double simulationStepSeconds,
+            float beltFraction,
+            int cardUpdateInterval) {
+        this.name = name;
+        this.lodBias = lodBias;
+        this.simulationStepSeconds = simulationStepSeconds;
+        this.beltFraction = beltFraction;
+        this.cardUpdateInterval = cardUpdateInterval;
+    }
+
+    /** Levels from full quality down, the ladder the app uses. */
+    public static QualityLevel[] defaultLevels() {
+        return new QualityLevel[] {
+                new QualityLevel("full", 1.0f, 1.0 / 120.0, 1.0f, 1),
+                new QualityLevel("reduced", 0.7f, 1.0 / 60.0, 0.6f, 1),
+                new QualityLevel("low", 0.5f, 1.0 / 60.0, 0.3f, 2),
+                new QualityLevel("minimal", 0.3f, 1.0 / 30.0, 0.1f, 4)
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getLodBias() {
+        return lodBias;
+    }
+
+    public double getSimulationStepSeconds() {
+        return simulationStepSeconds;
+    }
+
+    public float getBeltFraction() {
+        return beltFraction;
+    }
+
+    public int getCardUpdateInterval() {
+        return cardUpdateInterval;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,55 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+/**
+ * Positions of the bodies of a {@link SimulatedBelt} at one simulation time.
+ *
+ * <p>Recycled by a {@link SnapshotBuffer} like {@link SimulationSnapshot}, so it can be read
+ * without locking until the reader takes a newer one.
+ */
+public class BeltSnapshot {
+    private final float[] x;
+    private final float[] y;
+    private final float[] z;
+    private long version = -1L;
+    private double orbitSeconds = 0.0;
+    private int bodyCount = 0;
+
+    BeltSnapshot(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        z = new float[capacity];
+    }
+
+    /** Counts the solves of the belt, -1 for the positions at time 0 before the first one. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Simulation time of the orbits the positions belong to. */
+    public double getOrbitSeconds() {
+        return orbitSeconds;
+    }
+
+    /** Number of bodies, from the first, with a position in this snapshot. */
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    public float[] getZ() {
+        return z;
+    }
+
+    void set(long version, double orbitSeconds, int bodyCount) {
+        this.version = version;
+        this.orbitSeconds = orbitSeconds;
+        this.bodyCount = bodyCount;
+    }
+}
@@ -0,0 +1,312 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+import com.arsolarsystem.arsolarsystem.ephemeris.ChebyshevEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Advances orbit and spin time at a fixed step on its own worker thread.
+ *
+ * <p>Every step solves the orbits of all bodies and publishes the result through a
+ * {@link SnapshotBuffer}, so the render thread only copies the latest snapshot into its nodes. The
+ * step does not depend on the frame rate and stays the same at any speed multiplier. Steps are
+ * taken on a fixed timeline: a late wake-up takes several sub-steps to catch up and each snapshot
+ * carries the real time it belongs to, so the renderer can blend between the last two steps.
+ *
+ * <p>Positions are solved from the orbit time alone, never integrated, so {@link #seekTo} jumps to
+ * any time for the cost of one step. A negative orbit speed plays time backwards. Bodies found in a
+ * {@link ChebyshevEphemeris} table are interpolated from it at any orbit time.
+ *
+ * <p>Belts are solved on the same thread, but only once they have visibly moved and into buffers of
+ * their own, see {@link SimulatedBelt}.
+ *
+ * <p>Bodies, tables, speed multipliers and seeks may be changed from any thread. {@link #getLatest()} must always
+ * be called from the same thread.
+ */
+public class OrbitSimulation {
+    // Most sub-steps taken in one wake-up. A larger backlog, for example after the device was
+    // suspended, is dropped instead of caught up.
+    private static final int MAX_SUB_STEPS = 8;
+
+    // Read once per step, so a change never mixes two step sizes within one step.
+    private volatile long stepNanos;
+
+    private final SnapshotBuffer<SimulationSnapshot> snapshots = new SnapshotBuffer<>(
+            new SimulationSnapshot(), new SimulationSnapshot(), new SimulationSnapshot());
+    // Replaced, never changed, when a belt is added.
+    private volatile SimulatedBelt[] belts = new SimulatedBelt[0];
+    // Bodies added since the last step, guarded by itself.
+    private final List<OrbitalElements> pendingBodies = new ArrayList<>();
+    private int bodyCount = 0;
+
+    // Seek requested since the last step, guarded by seekLock. A NaN target only moves by the
+    // offset.
+    private final Object seekLock = new Object();
+    private boolean hasPendingSeek = false;
+    private double pendingSeekTarget = Double.NaN;
+    private double pendingSeekOffset = 0.0;
+
+    private volatile float orbitSpeedMultiplier = 1.0f;
+    private volatile float rotationSpeedMultiplier = 1.0f;
+    private volatile Thread worker;
+    private volatile ChebyshevEphemeris table;
+
+    // Only touched by the stepping thread.
+    private final KeplerEphemeris ephemeris = new KeplerEphemeris();
+    private final List<OrbitalElements> bodies = new ArrayList<>();
+    // Table the bodies were last looked up in, and the table body of each body, -1 if it has none.
+    private ChebyshevEphemeris matchedTable;
+    private int[] tableBodies = new int[0];
+    private long step = 0L;
+    private double orbitSeconds = 0.0;
+    private double spinSeconds = 0.0;
+    private float[] lastX = new float[0];
+    private float[] lastY = new float[0];
+    private float[] lastZ = new float[0];
+
+    /**
+     * @param stepSeconds - real time covered by one step.
+     */
+    public OrbitSimulation(double stepSeconds) {
+        setStepSeconds(stepSeconds);
+    }
+
+    /**
+     * Changes the real time covered by one step, from the next step on. A longer step costs less
+     * but is blended over a longer time.
+     */
+    public void setStepSeconds(double stepSeconds) {
+        long nanos = (long) (stepSeconds * 1e9);
+        if (nanos <= 0L) {
+            throw new IllegalArgumentException("Step must be positive: " + stepSeconds);
+        }
+        this.stepNanos = nanos;
+    }
+
+    /**
+     * Adds a body and returns its index in the snapshot buffers. The body shows up in the first
+     * snapshot published after this call.
+     */
+    public int addBody(OrbitalElements elements) {
+        synchronized (pendingBodies) {
+            pendingBodies.add(elements);
+            return bodyCount++;
+        }
+    }
+
+    /**
+     * Adds a belt solved by the stepping thread from the next step on.
+     *
+     * @param minimumMove - distance in the belt's units its bodies may drift before it is solved
+     *     again.
+     */
+    public synchronized SimulatedBelt addBelt(AsteroidBelt belt, double minimumMove) {
+        SimulatedBelt simulatedBelt = new SimulatedBelt(belt, minimumMove);
+        SimulatedBelt[] added = Arrays.copyOf(belts, belts.length + 1);
+        added[belts.length] = simulatedBelt;
+        belts = added;
+        return simulatedBelt;
+    }
+
+    /**
+     * Interpolates the bodies found in the table from the next step on, or solves every body again
+     * if null.
+     */
+    public void setEphemerisTable(ChebyshevEphemeris table) {
+        this.table = table;
+    }
+
+    public void setSpeedMultipliers(float orbitSpeedMultiplier, float rotationSpeedMultiplier) {
+        this.orbitSpeedMultiplier = orbitSpeedMultiplier;
+        this.rotationSpeedMultiplier = rotationSpeedMultiplier;
+    }
+
+    /**
+     * Moves orbit time to the given value from the next step on. The jump is not blended, the next
+     * snapshot shows the bodies at the new time right away.
+     */
+    public void seekTo(double orbitSeconds) {
+        synchronized (seekLock) {
+            hasPendingSeek = true;
+            pendingSeekTarget = orbitSeconds;
+            pendingSeekOffset = 0.0;
+        }
+    }
+
+    /** Moves orbit time forward, or back if negative, like {@link #seekTo}. */
+    public void seekBy(double orbitSeconds) {
+        synchronized (seekLock) {
+            hasPendingSeek = true;
+            pendingSeekOffset += orbitSeconds;
+        }
+    }
+
+    /** Starts stepping on a worker thread. Does nothing if it is already running. */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::runWorker, "OrbitSimulation");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Stops the worker thread. Simulation time stands still until the next {@link #start()}. */
+    public synchronized void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+            // Wait for the step in progress, so a restarted worker never writes at the same time.
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public double getStepSeconds() {
+        return stepNanos / 1e9;
+    }
+
+    /**
+     * Takes one step and publishes it. Called by the worker, or directly when no worker is running,
+     * for example in tests and benchmarks.
+     *
+     * @param timeNanos - real time the end of this step belongs to.
+     */
+    public void step(long timeNanos) {
+        boolean added = addPendingBodies();
+        if (added || table != matchedTable) {
+            matchTable();
+        }
+        if (added) {
+            // New bodies start where they are now instead of sliding in from the parent.
+            int count = ephemeris.getBodyCount();
+            lastX = Arrays.copyOf(lastX, count);
+            lastY = Arrays.copyOf(lastY, count);
+            lastZ = Arrays.copyOf(lastZ, count);
+            computePositions(orbitSeconds, lastX, lastY, lastZ);
+        }
+        boolean seeked = applyPendingSeek();
+        double previousOrbitSeconds = orbitSeconds;
+        double previousSpinSeconds = spinSeconds;
+        long nanos = stepNanos;
+        double seconds = nanos / 1e9;
+        orbitSeconds += seconds * orbitSpeedMultiplier;
+        spinSeconds += seconds * rotationSpeedMultiplier;
+
+        SimulationSnapshot snapshot = snapshots.getBack();
+        int count = ephemeris.getBodyCount();
+        snapshot.ensureCapacity(count);
+        System.arraycopy(lastX, 0, snapshot.getPreviousX(), 0, count);
+        System.arraycopy(lastY, 0, snapshot.getPreviousY(), 0, count);
+        System.arraycopy(lastZ, 0, snapshot.getPreviousZ(), 0, count);
+        computePositions(orbitSeconds, snapshot.getX(), snapshot.getY(), snapshot.getZ());
+        System.arraycopy(snapshot.getX(), 0, lastX, 0, count);
+        System.arraycopy(snapshot.getY(), 0, lastY, 0, count);
+        System.arraycopy(snapshot.getZ(), 0, lastZ, 0, count);
+        if (seeked) {
+            // Blending across a jump would sweep the bodies through the skipped time.
+            System.arraycopy(lastX, 0, snapshot.getPreviousX(), 0, count);
+            System.arraycopy(lastY, 0, snapshot.getPreviousY(), 0, count);
+            System.arraycopy(lastZ, 0, snapshot.getPreviousZ(), 0, count);
+            previousOrbitSeconds = orbitSeconds;
+        }
+        snapshot.setStep(step++, timeNanos, nanos, count);
+        snapshot.setTimes(previousOrbitSeconds, orbitSeconds, previousSpinSeconds, spinSeconds);
+        snapshots.publish();
+        for (SimulatedBelt belt : belts) {
+            belt.step(orbitSeconds);
+        }
+    }
+
+    /** Returns the most recent snapshot, it stays valid until the next call. */
+    public SimulationSnapshot getLatest() {
+        return snapshots.getLatest();
+    }
+
+    /** Interpolates the bodies the table has and solves the others. */
+    private void computePositions(double time, float[] x, float[] y, float[] z) {
+        ChebyshevEphemeris chebyshev = matchedTable;
+        if (chebyshev == null) {
+            ephemeris.computePositions(time, x, y, z);
+            return;
+        }
+        int count = ephemeris.getBodyCount();
+        for (int i = 0; i < count; i++) {
+            int tableBody = tableBodies[i];
+            if (tableBody >= 0) {
+                chebyshev.computePosition(tableBody, time, x, y, z, i);
+            } else {
+                ephemeris.computePosition(i, time, x, y, z);
+            }
+        }
+    }
+
+    /** Looks every body up in the current table. */
+    private void matchTable() {
+        matchedTable = table;
+        int count = bodies.size();
+        tableBodies = Arrays.copyOf(tableBodies, count);
+        for (int i = 0; i < count; i++) {
+            tableBodies[i] = matchedTable != null ? matchedTable.findBody(bodies.get(i)) : -1;
+        }
+    }
+
+    /** Applies a seek requested since the last step, returns whether there was one. */
+    private boolean applyPendingSeek() {
+        synchronized (seekLock) {
+            if (!hasPendingSeek) {
+                return false;
+            }
+            if (!Double.isNaN(pendingSeekTarget)) {
+                orbitSeconds = pendingSeekTarget;
+            }
+            orbitSeconds += pendingSeekOffset;
+            hasPendingSeek = false;
+            pendingSeekTarget = Double.NaN;
+            pendingSeekOffset = 0.0;
+            return true;
+        }
+    }
+
+    /** Moves bodies added since the last step into the ephemeris, returns whether there were any. */
+    private boolean addPendingBodies() {
+        synchronized (pendingBodies) {
+            if (pendingBodies.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < pendingBodies.size(); i++) {
+                ephemeris.addBody(pendingBodies.get(i));
+                bodies.add(pendingBodies.get(i));
+            }
+            pendingBodies.clear();
+            return true;
+        }
+    }
+
+    private void runWorker() {
+        Thread self = Thread.currentThread();
+        long nextStep = System.nanoTime();
+        while (worker == self) {
+            long now = System.nanoTime();
+            long nanos = stepNanos;
+            if (now - nextStep > MAX_SUB_STEPS * nanos) {
+                nextStep = now;
+            }
+            while (now - nextStep >= 0L) {
+                step(nextStep);
+                nextStep += nanos;
+            }
+            LockSupport.parkNanos(nextStep - now);
+        }
+    }
+}
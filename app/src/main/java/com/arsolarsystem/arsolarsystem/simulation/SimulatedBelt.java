@@ -0,0 +1,76 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+
+/**
+ * An {@link AsteroidBelt} solved on the {@link OrbitSimulation} worker instead of the render
+ * thread.
+ *
+ * <p>The worker only solves the belt again once its fastest body could have moved further than a
+ * given distance since the last solve, or when the number of shown bodies changed. Each solve is
+ * published as a {@link BeltSnapshot}, so the renderer only rebuilds its mesh when the belt has
+ * visibly moved. The bodies are not blended between solves, they jump by less than that distance.
+ */
+public class SimulatedBelt {
+    private final AsteroidBelt belt;
+    private final double minimumMove;
+    private final SnapshotBuffer<BeltSnapshot> snapshots;
+    private volatile int bodyCount;
+
+    // Only touched by the stepping thread.
+    private long version = 0L;
+    private double solvedSeconds = Double.NaN;
+    private int solvedBodyCount = -1;
+
+    /**
+     * @param minimumMove - distance in the belt's units a body may drift before the belt is solved
+     *     again.
+     */
+    SimulatedBelt(AsteroidBelt belt, double minimumMove) {
+        int capacity = belt.getBodyCount();
+        this.belt = belt;
+        this.minimumMove = minimumMove;
+        this.bodyCount = capacity;
+        // The reader starts on the first snapshot, seeded with the belt at time 0 so there is
+        // something to draw before the first step.
+        BeltSnapshot first = new BeltSnapshot(capacity);
+        belt.computePositions(0.0, capacity, first.getX(), first.getY(), first.getZ());
+        first.set(-1L, 0.0, capacity);
+        this.snapshots = new SnapshotBuffer<>(first, new BeltSnapshot(capacity), new BeltSnapshot(capacity));
+    }
+
+    public AsteroidBelt getBelt() {
+        return belt;
+    }
+
+    /**
+     * Solves only the first bodies from the next step on, the others are left out of the snapshots.
+     * Bodies are in random order, so any prefix is spread over the whole belt. Any thread.
+     */
+    public void setBodyCount(int bodyCount) {
+        this.bodyCount = Math.max(0, Math.min(bodyCount, belt.getBodyCount()));
+    }
+
+    /**
+     * Returns the most recent solve, it stays valid until the next call. Before the first step it is
+     * the belt at time 0, with version -1. Reader thread only.
+     */
+    public BeltSnapshot getLatest() {
+        return snapshots.getLatest();
+    }
+
+    /** Solves the belt if it has moved far enough since the last solve. Stepping thread only. */
+    void step(double orbitSeconds) {
+        int count = bodyCount;
+        // The solved count starts at -1, so the first step always solves.
+        if (count == solvedBodyCount && Math.abs(orbitSeconds - solvedSeconds) * belt.getMaxSpeed() < minimumMove) {
+            return;
+        }
+        BeltSnapshot snapshot = snapshots.getBack();
+        belt.computePositions(orbitSeconds, count, snapshot.getX(), snapshot.getY(), snapshot.getZ());
+        snapshot.set(version++, orbitSeconds, count);
+        snapshots.publish();
+        solvedSeconds = orbitSeconds;
+        solvedBodyCount = count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+/**
+ * Converts between calendar time and the orbit time of the simulation.
+ *
+ * <p>Orbit time is in seconds at a speed multiplier of 1, starting at the epoch of the orbital
+ * elements. The catalog compresses orbital periods, so this scale is set by Earth: one of its years
+ * is 360 degrees over the mean motion of the Earth orbit the calendar is built from. Earth is where
+ * it was on any date; the other planets keep their compressed speeds and are only there on the
+ * epoch.
+ *
+ * <p>Positions are solved from the orbit time directly, so going to any date costs the same as one
+ * step.
+ */
+public final class SimulationCalendar {
+    /** Epoch of the orbital elements, J2000, 2000-01-01 12:00 UTC, in Unix milliseconds. */
+    public static final long EPOCH_MILLIS = 946_728_000_000L;
+
+    private static final double SIDEREAL_YEAR_DAYS = 365.25636;
+    private static final double MILLIS_PER_DAY = 86_400_000.0;
+
+    // Days that pass in one orbit second.
+    private final double daysPerOrbitSecond;
+
+    /**
+     * @param earthOrbit - Earth's orbit as the catalog has it, its mean motion sets how many days
+     *     pass per orbit second.
+     */
+    public SimulationCalendar(OrbitalElements earthOrbit) {
+        float meanMotion = Math.abs(earthOrbit.getMeanMotion());
+        if (!(meanMotion > 0.0f) || Float.isInfinite(meanMotion)) {
+            throw new IllegalArgumentException("Unsupported mean motion for Earth: " + earthOrbit.getMeanMotion());
+        }
+        this.daysPerOrbitSecond = SIDEREAL_YEAR_DAYS * meanMotion / 360.0;
+    }
+
+    /** Days that pass in one orbit second. */
+    public double getDaysPerOrbitSecond() {
+        return daysPerOrbitSecond;
+    }
+
+    /** Orbit time of a date, in Unix milliseconds. */
+    public double toOrbitSeconds(long epochMillis) {
+        return daysToOrbitSeconds((epochMillis - EPOCH_MILLIS) / MILLIS_PER_DAY);
+    }
+
+    /** Date of an orbit time, in Unix milliseconds. */
+    public long toEpochMillis(double orbitSeconds) {
+        return EPOCH_MILLIS + Math.round(orbitSeconds * daysPerOrbitSecond * MILLIS_PER_DAY);
+    }
+
+    public double daysToOrbitSeconds(double days) {
+        return days / daysPerOrbitSecond;
+    }
+
+    /** Orbit speed multiplier that plays the given number of days per second, negative plays back. */
+    public float speedMultiplierForDaysPerSecond(double daysPerSecond) {
+        return (float) (daysPerSecond / daysPerOrbitSecond);
+    }
+}
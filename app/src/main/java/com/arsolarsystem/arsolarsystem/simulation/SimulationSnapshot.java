@@ -0,0 +1,127 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import java.util.Arrays;
+
+/**
+ * State of the simulation after one step: the simulation times and the position of every body,
+ * both after the step and before it.
+ *
+ * <p>Renderers draw one step behind the simulation and blend the two states with
+ * {@link #getAlpha}, so motion stays smooth however far the bodies move in one step.
+ *
+ * <p>Snapshots are recycled by {@link SnapshotBuffer}. A snapshot handed to the reader is not
+ * written again until the reader has moved on to a newer one, so it can be read without locking.
+ */
+public class SimulationSnapshot {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long step = -1L;
+    private long timeNanos = 0L;
+    private long stepNanos = 1L;
+    private double orbitSeconds = 0.0;
+    private double spinSeconds = 0.0;
+    private double previousOrbitSeconds = 0.0;
+    private double previousSpinSeconds = 0.0;
+    private int bodyCount = 0;
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] z = new float[INITIAL_CAPACITY];
+    private float[] previousX = new float[INITIAL_CAPACITY];
+    private float[] previousY = new float[INITIAL_CAPACITY];
+    private float[] previousZ = new float[INITIAL_CAPACITY];
+
+    /** Number of steps taken before this snapshot, -1 if nothing was published yet. */
+    public long getStep() {
+        return step;
+    }
+
+    /** Real time, from {@link System#nanoTime()}, that the end of this step belongs to. */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Returns how far the given real time is into the step after this one, from 0 to 1. Blending
+     * the previous and the current state by this amount draws the simulation one step late.
+     */
+    public float getAlpha(long nowNanos) {
+        float alpha = (float) (nowNanos - timeNanos) / stepNanos;
+        return alpha < 0.0f ? 0.0f : (alpha > 1.0f ? 1.0f : alpha);
+    }
+
+    /** Simulation time of the orbits, in seconds at a speed multiplier of 1. */
+    public double getOrbitSeconds() {
+        return orbitSeconds;
+    }
+
+    /** Simulation time of the orbits blended between the previous and the current step. */
+    public double getOrbitSeconds(float alpha) {
+        return previousOrbitSeconds + (orbitSeconds - previousOrbitSeconds) * alpha;
+    }
+
+    /** Simulation time of the spins, in seconds at a speed multiplier of 1. */
+    public double getSpinSeconds() {
+        return spinSeconds;
+    }
+
+    /** Simulation time of the spins blended between the previous and the current step. */
+    public double getSpinSeconds(float alpha) {
+        return previousSpinSeconds + (spinSeconds - previousSpinSeconds) * alpha;
+    }
+
+    /** Number of bodies with a position in this snapshot. */
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    public float[] getZ() {
+        return z;
+    }
+
+    /** Positions before the step, in the same order as {@link #getX()}. */
+    public float[] getPreviousX() {
+        return previousX;
+    }
+
+    public float[] getPreviousY() {
+        return previousY;
+    }
+
+    public float[] getPreviousZ() {
+        return previousZ;
+    }
+
+    void setStep(long step, long timeNanos, long stepNanos, int bodyCount) {
+        this.step = step;
+        this.timeNanos = timeNanos;
+        this.stepNanos = stepNanos;
+        this.bodyCount = bodyCount;
+    }
+
+    void setTimes(double previousOrbitSeconds, double orbitSeconds, double previousSpinSeconds, double spinSeconds) {
+        this.previousOrbitSeconds = previousOrbitSeconds;
+        this.orbitSeconds = orbitSeconds;
+        this.previousSpinSeconds = previousSpinSeconds;
+        this.spinSeconds = spinSeconds;
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            int newCapacity = Math.max(capacity, x.length * 2);
+            x = Arrays.copyOf(x, newCapacity);
+            y = Arrays.copyOf(y, newCapacity);
+            z = Arrays.copyOf(z, newCapacity);
+            previousX = Arrays.copyOf(previousX, newCapacity);
+            previousY = Arrays.copyOf(previousY, newCapacity);
+            previousZ = Arrays.copyOf(previousZ, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer of snapshots, like {@link SimulationSnapshot}, between one writer and one
+ * reader thread.
+ *
+ * <p>The writer fills its back snapshot and swaps it with the shared middle one. The reader swaps
+ * the middle snapshot with its front one only when a newer one was published. Neither side ever
+ * waits for the other and each snapshot is only touched by one thread at a time.
+ */
+class SnapshotBuffer<T> {
+    private static final int INDEX_MASK = 0x3;
+    // Set in the shared state when the middle snapshot is newer than the reader's front one.
+    private static final int FRESH = 0x4;
+
+    private final Object[] snapshots;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // Only used by the writer.
+    private int back = 2;
+    // Only used by the reader.
+    private int front = 0;
+
+    SnapshotBuffer(T first, T second, T third) {
+        snapshots = new Object[]{first, second, third};
+    }
+
+    /** Returns the snapshot the writer fills next. Writer thread only. */
+    @SuppressWarnings("unchecked")
+    T getBack() {
+        return (T) snapshots[back];
+    }
+
+    /** Makes the back snapshot the latest one. Writer thread only. */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /** Returns the most recently published snapshot. Reader thread only. */
+    @SuppressWarnings("unchecked")
+    T getLatest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) snapshots[front];
+    }
+}
@@ -0,0 +1,34 @@
+package com.arsolarsystem.arsolarsystem.trail;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+/**
+ * Points around the ellipse of an orbit, for drawing it once instead of every frame.
+ */
+public final class OrbitPath {
+    private OrbitPath() {
+    }
+
+    /**
+     * Writes points spread evenly over one period of the orbit, starting at the epoch, relative to
+     * the parent body in the frame and units of the elements.
+     */
+    public static void sample(OrbitalElements elements, float[] x, float[] y, float[] z, int pointCount) {
+        if (elements.getMeanMotion() == 0.0f) {
+            throw new IllegalArgumentException("Orbit without a period");
+        }
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        ephemeris.addBody(elements);
+        double period = 360.0 / Math.abs(elements.getMeanMotion());
+        float[] pointX = new float[1];
+        float[] pointY = new float[1];
+        float[] pointZ = new float[1];
+        for (int i = 0; i < pointCount; i++) {
+            ephemeris.computePositions(period * i / pointCount, pointX, pointY, pointZ);
+            x[i] = pointX[0];
+            y[i] = pointY[0];
+            z[i] = pointZ[0];
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.arsolarsystem.arsolarsystem.trail;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+
+/**
+ * Recent positions of every body of an ephemeris in one fixed-size ring buffer, for drawing their
+ * trails.
+ *
+ * <p>Positions are sampled at fixed steps of orbit time, ticks, and solved at the tick itself
+ * instead of taken from the frame, so a trail has the same shape at any frame rate or speed. The
+ * buffer holds the ticks up to the current one and tick k is kept in slot k mod capacity for every
+ * body, so moving on by a tick, forwards or backwards, overwrites one slot. A jump further than the
+ * capacity refills every slot.
+ *
+ * <p>The segment of a slot runs from the tick before it to its own tick. Slots are grouped in
+ * blocks of consecutive slots, so a renderer can fade a trail by giving each block a material by
+ * its age instead of rewriting every vertex. The block the current tick is in also holds the
+ * oldest ticks past the current one, which are hidden until they are overwritten. Slots whose
+ * segment changed are collected until {@link #clearDirty()}; on average a tick dirties two.
+ *
+ * <p>Positions are relative to the star, in the frame and units of the ephemeris. Not thread safe.
+ */
+public class TrailBuffer {
+    private static final long NO_TICK = Long.MIN_VALUE;
+
+    private final KeplerEphemeris ephemeris;
+    private final int[] parents;
+    private final int bodyCount;
+    private final double tickSeconds;
+    private final int blockCount;
+    private final int blockSize;
+    private final int capacity;
+
+    // Positions of every body per slot, slot by slot.
+    private final float[] x;
+    private final float[] y;
+    private final float[] z;
+    private final long[] slotTicks;
+    private long headTick = NO_TICK;
+
+    private final boolean[] dirty;
+    private final int[] dirtySlots;
+    private int dirtyCount = 0;
+
+    // Positions of one tick, before they go into a slot.
+    private final float[] sampleX;
+    private final float[] sampleY;
+    private final float[] sampleZ;
+
+    /**
+     * @param ephemeris - bodies to follow, the buffer holds all of them.
+     * @param parents - body each body goes around, -1 for the star. Parents come before children.
+     * @param tickSeconds - orbit time between samples.
+     * @param blockCount - number of blocks, the capacity is {@code blockCount * blockSize}.
+     * @param blockSize - slots per block.
+     */
+    public TrailBuffer(KeplerEphemeris ephemeris, int[] parents, double tickSeconds, int blockCount, int blockSize) {
+        if (parents.length != ephemeris.getBodyCount()) {
+            throw new IllegalArgumentException("One parent per body needed");
+        }
+        for (int body = 0; body < parents.length; body++) {
+            if (parents[body] >= body) {
+                throw new IllegalArgumentException("Parent of body " + body + " comes after it");
+            }
+        }
+        if (tickSeconds <= 0.0 || blockCount < 2 || blockSize < 1) {
+            throw new IllegalArgumentException("Unsupported trail layout");
+        }
+        this.ephemeris = ephemeris;
+        this.parents = parents;
+        this.bodyCount = parents.length;
+        this.tickSeconds = tickSeconds;
+        this.blockCount = blockCount;
+        this.blockSize = blockSize;
+        this.capacity = blockCount * blockSize;
+        x = new float[capacity * bodyCount];
+        y = new float[capacity * bodyCount];
+        z = new float[capacity * bodyCount];
+        slotTicks = new long[capacity];
+        dirty = new boolean[capacity];
+        dirtySlots = new int[capacity];
+        sampleX = new float[bodyCount];
+        sampleY = new float[bodyCount];
+        sampleZ = new float[bodyCount];
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Samples every tick between the last update and the given orbit time. Returns whether the
+     * current tick changed.
+     */
+    public boolean update(double orbitSeconds) {
+        long tick = (long) Math.floor(orbitSeconds / tickSeconds);
+        if (tick == headTick) {
+            return false;
+        }
+        long oldHead = headTick;
+        if (oldHead == NO_TICK || Math.abs(tick - oldHead) >= capacity) {
+            for (long k = tick - capacity + 1; k <= tick; k++) {
+                writeTick(k);
+            }
+        } else if (tick > oldHead) {
+            // The new ticks take the slots of the oldest ones.
+            for (long k = oldHead + 1; k <= tick; k++) {
+                writeTick(k);
+            }
+        } else {
+            // Going back, the ticks that come into the window take the slots of the newest ones.
+            for (long k = oldHead - capacity; k > tick - capacity; k--) {
+                writeTick(k);
+            }
+        }
+        headTick = tick;
+        if (oldHead != NO_TICK && Math.floorDiv(oldHead, blockSize) != Math.floorDiv(tick, blockSize)) {
+            // Which part of both head blocks is hidden changes with the head, even when the head
+            // comes back around to the same ring block.
+            markBlockDirty(getRingBlock(oldHead));
+            markBlockDirty(getRingBlock(tick));
+        }
+        return true;
+    }
+
+    /** Number of slots whose segment changed since the last {@link #clearDirty()}. */
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public int getDirtySlot(int index) {
+        return dirtySlots[index];
+    }
+
+    public void clearDirty() {
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty[dirtySlots[i]] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    /** Slot holding the tick before the one in the given slot. */
+    public int getPreviousSlot(int slot) {
+        return slot == 0 ? capacity - 1 : slot - 1;
+    }
+
+    /**
+     * Returns whether the segment of the slot is part of the trail: both of its ticks are in the
+     * buffer and it isn't one of the hidden oldest ticks in the head block.
+     */
+    public boolean isSegmentVisible(int slot) {
+        if (headTick == NO_TICK) {
+            return false;
+        }
+        long tick = slotTicks[slot];
+        if (tick <= headTick - capacity + 1 || tick > headTick) {
+            return false;
+        }
+        return slot / blockSize != getRingBlock(headTick)
+                || Math.floorDiv(tick, blockSize) == Math.floorDiv(headTick, blockSize);
+    }
+
+    /** Block holding the current tick, -1 before the first update. */
+    public int getHeadBlock() {
+        return headTick == NO_TICK ? -1 : getRingBlock(headTick);
+    }
+
+    /** Age of a block, 0 for the one holding the current tick up to {@code blockCount - 1}. */
+    public int getBlockAge(int block) {
+        return headTick == NO_TICK ? 0 : Math.floorMod(getRingBlock(headTick) - block, blockCount);
+    }
+
+    /** Index of a body's position in a slot into {@link #getX()}, {@link #getY()} and {@link #getZ()}. */
+    public int index(int slot, int body) {
+        return slot * bodyCount + body;
+    }
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    public float[] getZ() {
+        return z;
+    }
+
+    private int getRingBlock(long tick) {
+        return (int) Math.floorMod(Math.floorDiv(tick, blockSize), (long) blockCount);
+    }
+
+    private void writeTick(long tick) {
+        ephemeris.computePositions(tick * tickSeconds, sampleX, sampleY, sampleZ);
+        int slot = (int) Math.floorMod(tick, (long) capacity);
+        int first = slot * bodyCount;
+        for (int body = 0; body < bodyCount; body++) {
+            int parent = parents[body];
+            if (parent >= 0) {
+                // The parent is already relative to the star.
+                sampleX[body] += sampleX[parent];
+                sampleY[body] += sampleY[parent];
+                sampleZ[body] += sampleZ[parent];
+            }
+            x[first + body] = sampleX[body];
+            y[first + body] = sampleY[body];
+            z[first + body] = sampleZ[body];
+        }
+        slotTicks[slot] = tick;
+        markDirty(slot);
+        // The next segment starts at this tick.
+        markDirty(slot == capacity - 1 ? 0 : slot + 1);
+    }
+
+    private void markBlockDirty(int block) {
+        for (int slot = block * blockSize; slot < (block + 1) * blockSize; slot++) {
+            markDirty(slot);
+        }
+    }
+
+    private void markDirty(int slot) {
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots[dirtyCount++] = slot;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.arsolarsystem.arsolarsystem;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AssetVariantSelector}.
+ */
+public class AssetVariantSelectorTest {
+    private static final int GLES_3_0 = 0x30000;
+    private static final int GLES_3_2 = 0x30002;
+    private static final long MB = 1024L * 1024L;
+
+    private static final String MANIFEST = "# body,variant,asset,texture_bytes,texture_memory_bytes,decode_us\n"
+            + "Sol,full,Sol.sfb,4000,10485760,200\n"
+            + "Sol,lite,lite/Sol.sfb,1000,2097152,50\n"
+            + "Earth,full,Earth.sfb,3000,12582912,120\n"
+            + "Earth,lite,lite/Earth.sfb,500,2097152,20\n";
+
+    @Test
+    public void select_givesFullVariantsInPriorityOrderWithinBudget() throws IOException {
+        AssetVariantSelector selector = AssetVariantSelector.parse(new StringReader(MANIFEST));
+        // A 512 MB budget fits both.
+        selector.select(GLES_3_2, 16384 * MB, false, "Sol.sfb", "Earth.sfb");
+        assertEquals("Sol.sfb", selector.resolve("Sol.sfb"));
+        assertEquals("Earth.sfb", selector.resolve("Earth.sfb"));
+
+        // A 16 MB budget only fits the Sun, which comes first.
+        selector.select(GLES_3_2, 512 * MB, false, "Sol.sfb", "Earth.sfb");
+        assertEquals("Sol.sfb", selector.resolve("Sol.sfb"));
+        assertEquals("lite/Earth.sfb", selector.resolve("Earth.sfb"));
+
+        selector.select(GLES_3_2, 512 * MB, false, "Earth.sfb", "Sol.sfb");
+        assertEquals("Earth.sfb", selector.resolve("Earth.sfb"));
+        assertEquals("lite/Sol.sfb", selector.resolve("Sol.sfb"));
+    }
+
+    @Test
+    public void select_givesLiteVariantsToWeakDevices() throws IOException {
+        AssetVariantSelector selector = AssetVariantSelector.parse(new StringReader(MANIFEST));
+        selector.select(GLES_3_0, 16384 * MB, false, "Sol.sfb", "Earth.sfb");
+        assertEquals("lite/Sol.sfb", selector.resolve("Sol.sfb"));
+
+        selector.select(GLES_3_2, 16384 * MB, true, "Sol.sfb", "Earth.sfb");
+        assertEquals("lite/Earth.sfb", selector.resolve("Earth.sfb"));
+    }
+
+    @Test
+    public void resolve_keepsAssetsWithoutVariants() throws IOException {
+        AssetVariantSelector selector = AssetVariantSelector.parse(new StringReader(MANIFEST));
+        selector.select(GLES_3_0, 0L, true, "Sol.sfb", "Luna.sfb");
+        assertEquals("Luna.sfb", selector.resolve("Luna.sfb"));
+        assertEquals("Mars.sfb", AssetVariantSelector.empty().resolve("Mars.sfb"));
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_rejectsMalformedRows() throws IOException {
+        AssetVariantSelector.parse(new StringReader("Sol,full,Sol.sfb,many\n"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+import com.arsolarsystem.arsolarsystem.simulation.OrbitSimulation;
+import com.arsolarsystem.arsolarsystem.simulation.SimulatedBelt;
+
+/**
+ * Headless benchmark of the belt's path from orbits to mesh: the simulation step that solves the
+ * belt into a snapshot, see {@link SimulatedBelt}, and {@link BeltMesh#writeVertexPositions} moving
+ * the six vertices per body to it.
+ *
+ * <p>Run the main method on the JVM with Sceneform on the class path, as the local unit tests have
+ * it; the mesh only builds vertices and never touches the renderer. Every frame solves the belt, the
+ * app only does so once the bodies have visibly moved. It prints the average cost of one frame on
+ * each side per belt size.
+ */
+public class AsteroidBeltBenchmark {
+    private static final int[] BODY_COUNTS = {1_000, 10_000, 100_000};
+    private static final double FRAME_SECONDS = 1.0 / 60.0;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    public static void main(String[] args) {
+        for (int bodyCount : BODY_COUNTS) {
+            OrbitSimulation simulation = new OrbitSimulation(FRAME_SECONDS);
+            // Solved on every step however little the bodies moved.
+            SimulatedBelt simulatedBelt = simulation.addBelt(
+                    new AsteroidBelt(bodyCount, 1.7f, 2.0f, 0.15f, 10f, 29f, 1L), 0.0);
+            BeltMesh mesh = new BeltMesh(simulatedBelt, 0.5f, 0.004f, null);
+
+            run(simulation, simulatedBelt, mesh, WARMUP_NANOS, new long[2]);
+            long[] nanos = new long[2];
+            long frames = run(simulation, simulatedBelt, mesh, MEASURE_NANOS, nanos);
+
+            System.out.printf("%7d bodies: step %10.1f us/frame, vertices %10.1f us/frame%n",
+                    bodyCount, nanos[0] / 1_000.0 / frames, nanos[1] / 1_000.0 / frames);
+        }
+    }
+
+    /** Steps and writes frames for about the given time, adds the time of each side to nanos. */
+    private static long run(OrbitSimulation simulation, SimulatedBelt simulatedBelt, BeltMesh mesh,
+                            long duration, long[] nanos) {
+        long end = System.nanoTime() + duration;
+        long frames = 0;
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            simulation.step(start);
+            long stepped = System.nanoTime();
+            mesh.writeVertexPositions(simulatedBelt.getLatest(), Integer.MAX_VALUE);
+            nanos[0] += stepped - start;
+            nanos[1] += System.nanoTime() - stepped;
+            frames++;
+        }
+        return frames;
+    }
+}
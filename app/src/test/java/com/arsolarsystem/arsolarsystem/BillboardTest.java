@@ -0,0 +1,113 @@
+package com.arsolarsystem.arsolarsystem;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link Billboard}.
+ */
+public class BillboardTest {
+    private static final float DELTA = 1e-5f;
+
+    @Test
+    public void lookRotation_forwardIsIdentity() {
+        float[] out = new float[4];
+        assertTrue(Billboard.lookRotation(0.0f, 0.0f, 2.0f, out));
+        assertArrayEquals(new float[]{0.0f, 0.0f, 0.0f, 1.0f}, out, DELTA);
+    }
+
+    @Test
+    public void lookRotation_rightIsQuarterTurnAroundY() {
+        float[] out = new float[4];
+        assertTrue(Billboard.lookRotation(1.0f, 0.0f, 0.0f, out));
+        float half = (float) Math.sqrt(0.5);
+        assertArrayEquals(new float[]{0.0f, half, 0.0f, half}, out, DELTA);
+    }
+
+    @Test
+    public void lookRotation_backwardIsHalfTurnAroundY() {
+        float[] out = new float[4];
+        assertTrue(Billboard.lookRotation(0.0f, 0.0f, -1.0f, out));
+        assertEquals(1.0f, Math.abs(out[1]), DELTA);
+        assertEquals(0.0f, out[3], DELTA);
+    }
+
+    @Test
+    public void lookRotation_straightUpIsRejected() {
+        float[] out = {1.0f, 2.0f, 3.0f, 4.0f};
+        assertFalse(Billboard.lookRotation(0.0f, 1.0f, 0.0f, out));
+        assertFalse(Billboard.lookRotation(0.0f, 0.0f, 0.0f, out));
+        assertArrayEquals(new float[]{1.0f, 2.0f, 3.0f, 4.0f}, out, 0.0f);
+    }
+
+    @Test
+    public void towardCamera_worksInTheParentFrame() {
+        float[] camera = translation(2.0f, 0.0f, 1.0f);
+        float[] card = translation(1.0f, 0.0f, 1.0f);
+        float[] out = new float[4];
+
+        // The camera is along +X of an unturned parent.
+        assertTrue(Billboard.towardCamera(camera, card, translation(0.0f, 0.0f, 0.0f), out));
+        float half = (float) Math.sqrt(0.5);
+        assertArrayEquals(new float[]{0.0f, half, 0.0f, half}, out, DELTA);
+
+        // A parent turned a quarter about Y, and scaled, has that same direction along its +Z.
+        float[] parent = translation(0.0f, 0.0f, 0.0f);
+        parent[0] = 0.0f;
+        parent[2] = -3.0f;
+        parent[5] = 3.0f;
+        parent[8] = 3.0f;
+        parent[10] = 0.0f;
+        assertTrue(Billboard.towardCamera(camera, card, parent, out));
+        assertArrayEquals(new float[]{0.0f, 0.0f, 0.0f, 1.0f}, out, DELTA);
+
+        assertFalse(Billboard.towardCamera(card, card, parent, out));
+    }
+
+    @Test
+    public void towardCamera_doesNotAllocateInSteadyState() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        float[] camera = translation(0.0f, 0.2f, 0.0f);
+        float[] card = translation(0.0f, 0.0f, 0.0f);
+        float[] parent = translation(0.0f, 0.0f, 0.0f);
+        float[] out = new float[4];
+
+        // Warm up so that class loading and JIT compilation are not counted.
+        simulateFrames(camera, card, parent, out, 20_000);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        simulateFrames(camera, card, parent, out, 10_000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals("bytes allocated over 10k frames", 0L, allocated);
+    }
+
+    /** Runs the billboard update of ten cards for the given number of frames, as Planet does. */
+    private static void simulateFrames(float[] camera, float[] card, float[] parent, float[] out, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            camera[12] = (float) Math.sin(frame * 0.01);
+            camera[14] = (float) Math.cos(frame * 0.01);
+            for (int cardIndex = 0; cardIndex < 10; cardIndex++) {
+                card[12] = cardIndex * 0.1f;
+                Billboard.towardCamera(camera, card, parent, out);
+            }
+        }
+    }
+
+    private static float[] translation(float x, float y, float z) {
+        float[] matrix = new float[16];
+        matrix[0] = 1.0f;
+        matrix[5] = 1.0f;
+        matrix[10] = 1.0f;
+        matrix[15] = 1.0f;
+        matrix[12] = x;
+        matrix[13] = y;
+        matrix[14] = z;
+        return matrix;
+    }
+}
@@ -0,0 +1,108 @@
+package com.arsolarsystem.arsolarsystem;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LevelOfDetail}.
+ */
+public class LevelOfDetailTest {
+    // Same levels as Planet, a projection scale of 2 is a vertical field of view of about 53 degrees.
+    private static final LodSelector SELECTOR = new LodSelector(1.25f, 0.08f, 0.01f);
+    private static final float PROJECTION_SCALE = 2.0f;
+    private static final float RADIUS = 0.025f;
+
+    @Test
+    public void update_dropsLevelsWithDistance() {
+        LevelOfDetail<String> levels = createLevels();
+        float[] object = translation(0.0f, 0.0f, 0.0f);
+
+        assertFalse(levels.update(translation(0.0f, 0.0f, 0.3f), object, RADIUS, PROJECTION_SCALE));
+        assertEquals("full", levels.getShown());
+        // 0.05 / 1.0 is below 0.08 / 1.25.
+        assertTrue(levels.update(translation(0.0f, 0.0f, 1.0f), object, RADIUS, PROJECTION_SCALE));
+        assertEquals("textures", levels.getShown());
+        assertTrue(levels.update(translation(0.0f, 10.0f, 0.0f), object, RADIUS, PROJECTION_SCALE));
+        assertEquals("flat", levels.getShown());
+        assertTrue(levels.update(translation(0.3f, 0.0f, 0.0f), object, RADIUS, PROJECTION_SCALE));
+        assertEquals(0, levels.getLevel());
+    }
+
+    @Test
+    public void update_reportsNoChangeWhileLevelIsMissing() {
+        LevelOfDetail<String> levels = new LevelOfDetail<>(SELECTOR);
+        levels.setFull("full");
+        float[] object = translation(0.0f, 0.0f, 0.0f);
+
+        // Level 1 has not loaded, so it still draws the full model.
+        assertFalse(levels.update(translation(0.0f, 0.0f, 1.0f), object, RADIUS, PROJECTION_SCALE));
+        assertEquals(1, levels.getLevel());
+        assertEquals("full", levels.getShown());
+        levels.setLevel(2, "flat");
+        assertTrue(levels.update(translation(0.0f, 0.0f, 10.0f), object, RADIUS, PROJECTION_SCALE));
+        assertEquals("flat", levels.getShown());
+    }
+
+    @Test
+    public void update_ignoresCameraInsideObject() {
+        LevelOfDetail<String> levels = createLevels();
+        float[] object = translation(1.0f, 2.0f, 3.0f);
+        assertFalse(levels.update(object, object, RADIUS, PROJECTION_SCALE));
+        assertEquals(0, levels.getLevel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setLevel_rejectsFullLevel() {
+        new LevelOfDetail<String>(SELECTOR).setLevel(0, "full");
+    }
+
+    @Test
+    public void update_doesNotAllocateInSteadyState() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        LevelOfDetail<String> levels = createLevels();
+        float[] camera = translation(0.0f, 0.0f, 0.0f);
+        float[] object = translation(0.0f, 0.0f, 0.0f);
+
+        // Warm up so that class loading and JIT compilation are not counted.
+        simulateFrames(levels, camera, object, 20_000);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        simulateFrames(levels, camera, object, 10_000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals("bytes allocated over 10k frames", 0L, allocated);
+    }
+
+    private static LevelOfDetail<String> createLevels() {
+        LevelOfDetail<String> levels = new LevelOfDetail<>(SELECTOR);
+        levels.setFull("full");
+        levels.setLevel(1, "textures");
+        levels.setLevel(2, "flat");
+        return levels;
+    }
+
+    /** A camera moving away from and back to the object, so every level is picked in turn. */
+    private static void simulateFrames(LevelOfDetail<String> levels, float[] camera, float[] object, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            camera[14] = 0.2f + 5.0f * (1.0f + (float) Math.sin(frame * 0.01));
+            levels.update(camera, object, RADIUS, PROJECTION_SCALE);
+        }
+    }
+
+    private static float[] translation(float x, float y, float z) {
+        float[] matrix = new float[16];
+        matrix[0] = 1.0f;
+        matrix[5] = 1.0f;
+        matrix[10] = 1.0f;
+        matrix[15] = 1.0f;
+        matrix[12] = x;
+        matrix[13] = y;
+        matrix[14] = z;
+        return matrix;
+    }
+}
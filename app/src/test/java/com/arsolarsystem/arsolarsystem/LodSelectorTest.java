@@ -0,0 +1,31 @@
+package com.arsolarsystem.arsolarsystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LodSelector}.
+ */
+public class LodSelectorTest {
+    private final LodSelector selector = new LodSelector(1.25f, 0.1f, 0.01f);
+
+    @Test
+    public void select_picksLevelFromSize() {
+        assertEquals(3, selector.getLevelCount());
+        assertEquals(0, selector.select(0, 0.5f));
+        assertEquals(1, selector.select(0, 0.05f));
+        assertEquals(2, selector.select(0, 0.001f));
+        assertEquals(0, selector.select(2, 0.5f));
+    }
+
+    @Test
+    public void select_keepsLevelInsideHysteresisBand() {
+        // Just below the threshold of level 0, but not by enough to drop to level 1.
+        assertEquals(0, selector.select(0, 0.09f));
+        // Just above the threshold of level 0, but not by enough to rise from level 1.
+        assertEquals(1, selector.select(1, 0.11f));
+        assertEquals(0, selector.select(1, 0.13f));
+        assertEquals(1, selector.select(0, 0.07f));
+    }
+}
@@ -0,0 +1,277 @@
+package com.arsolarsystem.arsolarsystem;
+
+import com.arsolarsystem.arsolarsystem.catalog.BodyTable;
+import com.arsolarsystem.arsolarsystem.catalog.CatalogReader;
+import com.arsolarsystem.arsolarsystem.simulation.OrbitSimulation;
+import com.arsolarsystem.arsolarsystem.simulation.SimulationSnapshot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless comparison of the nested and the flattened node layout of the solar system.
+ *
+ * <p>Run the main method on the JVM from the app directory, or pass the catalog as the first
+ * argument. Sceneform can't run here, so the scene is modeled by {@link SceneNode}, which keeps
+ * world matrices the way Sceneform nodes do: changing a local transform marks the node and all of
+ * its descendants dirty, and a dirty world matrix is rebuilt from its parent's on the next read.
+ * Every frame the anchor moves, as ARCore anchors do, the clock writes the orbits and spins, every
+ * node is visited once like the Scene's update pass, and the world matrix of every rendered node is
+ * read like the renderer and the planets' level of detail do.
+ */
+public class TransformLayoutBenchmark {
+    private static final int[] SYSTEM_COUNTS = {1, 4, 16};
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+    private static final long FRAME_NANOS = 16_666_667L;
+    private static final long STEP_NANOS = 8_333_333L;
+    private static final float METERS_PER_UNIT = 0.5f;
+
+    public static void main(String[] args) throws IOException {
+        File catalog = new File(args.length > 0 ? args[0] : "src/main/assets/solar_system.json");
+        BodyTable bodies;
+        try (Reader reader = new InputStreamReader(new FileInputStream(catalog), StandardCharsets.UTF_8)) {
+            bodies = CatalogReader.read(reader);
+        }
+        for (int systems : SYSTEM_COUNTS) {
+            for (boolean flatten : new boolean[] {false, true}) {
+                Layout layout = new Layout(bodies, systems, flatten);
+                layout.run(WARMUP_NANOS);
+                layout.dirtyMarks = 0L;
+                layout.rebuilds = 0L;
+                long start = System.nanoTime();
+                long frames = layout.run(MEASURE_NANOS);
+                double micros = (System.nanoTime() - start) / 1_000.0 / frames;
+                System.out.printf("%2d systems, %-9s: %4d nodes, %5d dirty marks/frame, %4d matrix rebuilds/frame, %6.1f us/frame%n",
+                        systems, flatten ? "flattened" : "nested", layout.nodes.size(),
+                        layout.dirtyMarks / frames, layout.rebuilds / frames, micros);
+            }
+        }
+    }
+
+    /** The scene of several placed systems in one layout, driven like OrbitalClock drives it. */
+    private static class Layout {
+        final boolean flatten;
+        final BodyTable bodies;
+        final OrbitSimulation simulation = new OrbitSimulation(STEP_NANOS / 1e9);
+        final List<SceneNode> nodes = new ArrayList<>();
+        final List<SceneNode> rendered = new ArrayList<>();
+        final List<SceneNode> anchors = new ArrayList<>();
+        // Per placed system, the orbit node and the spinning node of every body.
+        final SceneNode[][] orbitNodes;
+        final SceneNode[][] spinNodes;
+        final float[] bodyX;
+        final float[] bodyY;
+        final float[] bodyZ;
+        long dirtyMarks = 0L;
+        long rebuilds = 0L;
+        long timeNanos = 0L;
+        long nextStepNanos = 0L;
+
+        Layout(BodyTable bodies, int systems, boolean flatten) {
+            this.flatten = flatten;
+            this.bodies = bodies;
+            int count = bodies.getCount();
+            bodyX = new float[count];
+            bodyY = new float[count];
+            bodyZ = new float[count];
+            for (int body = 1; body < count; body++) {
+                simulation.addBody(bodies.getOrbit(body));
+            }
+            orbitNodes = new SceneNode[systems][count];
+            spinNodes = new SceneNode[systems][count];
+            for (int system = 0; system < systems; system++) {
+                SceneNode anchor = add(null, false);
+                anchors.add(anchor);
+                SceneNode base = add(anchor, false);
+                SceneNode sun = add(base, false);
+                sun.setLocalPosition(0.0f, 0.5f, 0.0f);
+                spinNodes[system][0] = add(sun, true);
+                orbitNodes[system][0] = sun;
+                for (int body = 1; body < count; body++) {
+                    SceneNode parent = flatten ? sun : orbitNodes[system][bodies.getParent(body)];
+                    SceneNode planet = add(parent, flatten);
+                    orbitNodes[system][body] = planet;
+                    spinNodes[system][body] = flatten ? planet : add(planet, true);
+                    float scale = bodies.getScale(body);
+                    spinNodes[system][body].setLocalScale(scale);
+                }
+                // The two belts, one batched node each.
+                add(sun, true);
+                add(sun, true);
+            }
+        }
+
+        SceneNode add(SceneNode parent, boolean isRendered) {
+            SceneNode node = new SceneNode(this, parent);
+            nodes.add(node);
+            if (isRendered) {
+                rendered.add(node);
+            }
+            return node;
+        }
+
+        long run(long nanos) {
+            long end = System.nanoTime() + nanos;
+            long frames = 0;
+            while (System.nanoTime() < end) {
+                frame();
+                frames++;
+            }
+            return frames;
+        }
+
+        void frame() {
+            timeNanos += FRAME_NANOS;
+            while (nextStepNanos <= timeNanos) {
+                simulation.step(nextStepNanos);
+                nextStepNanos += STEP_NANOS;
+            }
+            SimulationSnapshot snapshot = simulation.getLatest();
+            float alpha = snapshot.getAlpha(timeNanos);
+
+            // Tracking refines the anchor pose a little every frame.
+            float drift = (timeNanos / FRAME_NANOS % 7) * 1e-4f;
+            for (SceneNode anchor : anchors) {
+                anchor.setLocalPosition(drift, 0.0f, -drift);
+            }
+
+            // The simulation has no body for the star, so body b is simulation body b - 1.
+            for (int body = 1; body < bodies.getCount(); body++) {
+                int index = body - 1;
+                float x = snapshot.getPreviousX()[index] + (snapshot.getX()[index] - snapshot.getPreviousX()[index]) * alpha;
+                float y = snapshot.getPreviousY()[index] + (snapshot.getY()[index] - snapshot.getPreviousY()[index]) * alpha;
+                float z = snapshot.getPreviousZ()[index] + (snapshot.getZ()[index] - snapshot.getPreviousZ()[index]) * alpha;
+                int parent = bodies.getParent(body);
+                if (flatten && parent > 0) {
+                    x += bodyX[parent];
+                    y += bodyY[parent];
+                    z += bodyZ[parent];
+                }
+                bodyX[body] = x;
+                bodyY[body] = y;
+                bodyZ[body] = z;
+            }
+            double halfAngle = Math.toRadians((90.0 * snapshot.getSpinSeconds(alpha)) % 360.0) * 0.5;
+            float sin = (float) Math.sin(halfAngle);
+            float cos = (float) Math.cos(halfAngle);
+            for (int system = 0; system < orbitNodes.length; system++) {
+                spinNodes[system][0].setLocalRotation(sin, cos);
+                for (int body = 1; body < bodies.getCount(); body++) {
+                    orbitNodes[system][body].setLocalPosition(
+                            bodyX[body] * METERS_PER_UNIT, bodyZ[body] * METERS_PER_UNIT, -bodyY[body] * METERS_PER_UNIT);
+                    spinNodes[system][body].setLocalRotation(sin, cos);
+                }
+            }
+
+            // The Scene's update pass visits every node, the planets read their world position.
+            float checksum = 0.0f;
+            for (int i = 0; i < nodes.size(); i++) {
+                nodes.get(i).visits++;
+            }
+            for (int system = 0; system < orbitNodes.length; system++) {
+                for (int body = 1; body < bodies.getCount(); body++) {
+                    checksum += orbitNodes[system][body].getWorldMatrix()[12];
+                }
+            }
+            for (int i = 0; i < rendered.size(); i++) {
+                checksum += rendered.get(i).getWorldMatrix()[13];
+            }
+            if (checksum == Float.MAX_VALUE) {
+                System.out.println("unreachable, keeps the reads alive");
+            }
+        }
+    }
+
+    /** Transform bookkeeping of a Sceneform node: local translation, Y rotation and uniform scale. */
+    private static class SceneNode {
+        private final Layout layout;
+        private final SceneNode parent;
+        private final List<SceneNode> children = new ArrayList<>();
+        private float x;
+        private float y;
+        private float z;
+        private float rotationY;
+        private float rotationW = 1.0f;
+        private float scale = 1.0f;
+        private final float[] world = new float[16];
+        private final float[] local = new float[16];
+        private boolean worldDirty = true;
+        long visits = 0L;
+
+        SceneNode(Layout layout, SceneNode parent) {
+            this.layout = layout;
+            this.parent = parent;
+            if (parent != null) {
+                parent.children.add(this);
+            }
+        }
+
+        void setLocalPosition(float x, float y, float z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            markDirty();
+        }
+
+        void setLocalRotation(float y, float w) {
+            rotationY = y;
+            rotationW = w;
+            markDirty();
+        }
+
+        void setLocalScale(float scale) {
+            this.scale = scale;
+            markDirty();
+        }
+
+        private void markDirty() {
+            layout.dirtyMarks++;
+            worldDirty = true;
+            for (int i = 0; i < children.size(); i++) {
+                children.get(i).markDirty();
+            }
+        }
+
+        float[] getWorldMatrix() {
+            if (!worldDirty) {
+                return world;
+            }
+            worldDirty = false;
+            layout.rebuilds++;
+            // Rotation about Y by the quaternion (0, y, 0, w), then scale, then translation.
+            float cos = 1.0f - 2.0f * rotationY * rotationY;
+            float sin = 2.0f * rotationY * rotationW;
+            local[0] = cos * scale;
+            local[2] = -sin * scale;
+            local[5] = scale;
+            local[8] = sin * scale;
+            local[10] = cos * scale;
+            local[12] = x;
+            local[13] = y;
+            local[14] = z;
+            local[15] = 1.0f;
+            if (parent == null) {
+                System.arraycopy(local, 0, world, 0, 16);
+                return world;
+            }
+            float[] parentWorld = parent.getWorldMatrix();
+            for (int column = 0; column < 4; column++) {
+                for (int row = 0; row < 4; row++) {
+                    float sum = 0.0f;
+                    for (int k = 0; k < 4; k++) {
+                        sum += parentWorld[k * 4 + row] * local[column * 4 + k];
+                    }
+                    world[column * 4 + row] = sum;
+                }
+            }
+            return world;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.arsolarsystem.arsolarsystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ViewFrustum}.
+ */
+public class ViewFrustumTest {
+    // 90 degree vertical field of view, square viewport, near 0.1 m and far 30 m.
+    private static final float NEAR = 0.1f;
+    private static final float FAR = 30.0f;
+    private static final float[] PROJECTION = {
+            1.0f, 0.0f, 0.0f, 0.0f,
+            0.0f, 1.0f, 0.0f, 0.0f,
+            0.0f, 0.0f, -(FAR + NEAR) / (FAR - NEAR), -1.0f,
+            0.0f, 0.0f, -2.0f * FAR * NEAR / (FAR - NEAR), 0.0f};
+    private static final float[] IDENTITY = {
+            1.0f, 0.0f, 0.0f, 0.0f,
+            0.0f, 1.0f, 0.0f, 0.0f,
+            0.0f, 0.0f, 1.0f, 0.0f,
+            0.0f, 0.0f, 0.0f, 1.0f};
+
+    @Test
+    public void intersectsSphere_cullsSpheresOutsideThePlanes() {
+        ViewFrustum frustum = new ViewFrustum();
+        frustum.update(PROJECTION, IDENTITY);
+
+        // The camera looks down -Z.
+        assertTrue(frustum.intersectsSphere(0.0f, 0.0f, -2.0f, 0.1f));
+        assertFalse(frustum.intersectsSphere(0.0f, 0.0f, 2.0f, 0.1f));
+        assertFalse(frustum.intersectsSphere(3.0f, 0.0f, -2.0f, 0.1f));
+        assertFalse(frustum.intersectsSphere(0.0f, -3.0f, -2.0f, 0.1f));
+        assertFalse(frustum.intersectsSphere(0.0f, 0.0f, -31.0f, 0.5f));
+    }
+
+    @Test
+    public void intersectsSphere_keepsSpheresCrossingAPlane() {
+        ViewFrustum frustum = new ViewFrustum();
+        frustum.update(PROJECTION, IDENTITY);
+
+        // The center is just right of the 45 degree plane, the radius reaches back inside.
+        assertTrue(frustum.intersectsSphere(2.2f, 0.0f, -2.0f, 0.2f));
+        assertFalse(frustum.intersectsSphere(2.2f, 0.0f, -2.0f, 0.1f));
+        // Behind the camera, but large enough to reach past the near plane.
+        assertTrue(frustum.intersectsSphere(0.0f, 0.0f, 0.3f, 0.5f));
+    }
+
+    @Test
+    public void update_followsTheViewMatrix() {
+        ViewFrustum frustum = new ViewFrustum();
+        // The camera moved 10 m along +X, so the view matrix moves the world 10 m along -X.
+        float[] view = IDENTITY.clone();
+        view[12] = -10.0f;
+        frustum.update(PROJECTION, view);
+
+        assertTrue(frustum.intersectsSphere(10.0f, 0.0f, -2.0f, 0.1f));
+        assertFalse(frustum.intersectsSphere(0.0f, 0.0f, -2.0f, 0.1f));
+    }
+
+    @Test
+    public void intersectsSphere_isTrueBeforeFirstUpdate() {
+        assertTrue(new ViewFrustum().intersectsSphere(0.0f, 0.0f, 100.0f, 0.0f));
+    }
+}
@@ -0,0 +1,65 @@
+package com.arsolarsystem.arsolarsystem.catalog;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Headless benchmark for reading catalogs of growing size with {@link CatalogReader}.
+ *
+ * <p>Run the main method on the JVM; it prints the time to read a catalog into its body table, and
+ * the time per body, for a star with a few planets up to one with ten thousand moons and planets.
+ */
+public class CatalogReaderBenchmark {
+    private static final int[] BODY_COUNTS = {10, 100, 1_000, 10_000};
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        for (int bodyCount : BODY_COUNTS) {
+            String catalog = createCatalog(bodyCount);
+            run(catalog, WARMUP_NANOS);
+            long start = System.nanoTime();
+            long reads = run(catalog, MEASURE_NANOS);
+            double micros = (System.nanoTime() - start) / 1_000.0 / reads;
+            System.out.printf("%6d bodies, %7.1f KB: %10.1f us/catalog, %6.3f us/body%n",
+                    bodyCount, catalog.length() / 1024.0, micros, micros / bodyCount);
+        }
+    }
+
+    private static long run(String catalog, long nanos) throws IOException {
+        long end = System.nanoTime() + nanos;
+        long reads = 0;
+        while (System.nanoTime() < end) {
+            CatalogReader.read(new StringReader(catalog));
+            reads++;
+        }
+        return reads;
+    }
+
+    /** A star, planets around it and every fourth body a moon of the planet before it. */
+    private static String createCatalog(int bodyCount) {
+        Random random = new Random(42);
+        StringBuilder catalog = new StringBuilder("{\"name\": \"Benchmark\", \"bodies\": [\n");
+        catalog.append("{\"name\": \"Star\", \"asset\": \"Sol.sfb\", \"scale\": 0.5}");
+        String planet = "Star";
+        for (int i = 1; i < bodyCount; i++) {
+            boolean moon = i % 4 == 0;
+            String name = (moon ? "Moon " : "Planet ") + i;
+            catalog.append(String.format(Locale.US,
+                    ",\n{\"name\": \"%s\", \"parent\": \"%s\", \"asset\": \"%s\", \"scale\": %.4f,"
+                            + " \"color\": [%.2f, %.2f, %.2f],"
+                            + " \"orbit\": [%.4f, %.4f, %.3f, %.3f, %.3f, %.3f, %.2f]}",
+                    name, moon ? planet : "Star", moon ? "Luna.sfb" : "Earth.sfb", 0.01f + random.nextFloat() * 0.1f,
+                    random.nextFloat(), random.nextFloat(), random.nextFloat(),
+                    0.1f + random.nextFloat() * 10.0f, random.nextFloat() * 0.3f, random.nextFloat() * 20.0f,
+                    random.nextFloat() * 360.0f, random.nextFloat() * 360.0f, random.nextFloat() * 360.0f,
+                    1.0f + random.nextFloat() * 50.0f));
+            if (!moon) {
+                planet = name;
+            }
+        }
+        return catalog.append("\n]}").toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.arsolarsystem.arsolarsystem.catalog;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CatalogReader}.
+ */
+public class CatalogReaderTest {
+    private static final float DELTA = 1e-6f;
+
+    @Test
+    public void read_buildsTableWithParentsBeforeChildren() throws IOException {
+        BodyTable table = CatalogReader.read(new StringReader("{\"version\": {\"skipped\": [1, {}]},"
+                + "\"bodies\": ["
+                + "{\"name\": \"Sun\", \"asset\": \"Sol.sfb\", \"scale\": 0.5},"
+                + "{\"name\": \"Earth\", \"parent\": \"Sun\", \"asset\": \"Earth.sfb\", \"scale\": 5e-2,"
+                + " \"mass\": 3e-6, \"color\": [0.3, 0.5, 0.8], \"orbit\": [1, 0.0167, 0, 348.739, 114.208, 358.617, 29]},"
+                + "{\"name\": \"Moon \\\"Luna\\\"\", \"parent\": \"Earth\", \"asset\": \"Luna.sfb\","
+                + " \"rings\": null, \"orbit\": [0.15, 0.0549, 5.145, 125.08, 318.15, 135.27, 100]},"
+                + "{\"name\": \"Earth II\", \"parent\": \"Sun\", \"asset\": \"Earth.sfb\","
+                + " \"orbit\": [2, 0, 0, 0, 0, 0, -10]}"
+                + "]}"));
+
+        assertEquals(4, table.getCount());
+        assertEquals(-1, table.getParent(0));
+        assertNull(table.getOrbit(0));
+        assertEquals(0.5f, table.getScale(0), DELTA);
+
+        assertEquals("Earth", table.getName(1));
+        assertEquals(0, table.getParent(1));
+        assertEquals(0.05f, table.getScale(1), DELTA);
+        assertEquals(0.5f, table.getGreen(1), DELTA);
+        assertEquals(0.0167f, table.getOrbit(1).getEccentricity(), DELTA);
+        assertEquals(29f, table.getOrbit(1).getMeanMotion(), DELTA);
+        assertEquals(3e-6, table.getMass(1), 1e-12);
+
+        assertEquals("Moon \"Luna\"", table.getName(2));
+        assertEquals(1, table.getParent(2));
+        assertEquals(1.0f, table.getScale(2), DELTA);
+        assertEquals(0.6f, table.getRed(2), DELTA);
+        assertEquals(0.0, table.getMass(2), 0.0);
+        assertEquals(-10f, table.getOrbit(3).getMeanMotion(), DELTA);
+        assertEquals(3, table.indexOf("Earth II"));
+        assertEquals(-1, table.indexOf("Mars"));
+
+        assertArrayEquals(new String[] {"Sol.sfb", "Earth.sfb", "Luna.sfb"}, table.getDistinctAssets());
+    }
+
+    @Test
+    public void read_rejectsChildBeforeParent() {
+        assertRejected("{\"bodies\": ["
+                + "{\"name\": \"Sun\", \"asset\": \"Sol.sfb\"},"
+                + "{\"name\": \"Moon\", \"parent\": \"Earth\", \"asset\": \"Luna.sfb\", \"orbit\": [1, 0, 0, 0, 0, 0, 1]},"
+                + "{\"name\": \"Earth\", \"parent\": \"Sun\", \"asset\": \"Earth.sfb\", \"orbit\": [1, 0, 0, 0, 0, 0, 1]}"
+                + "]}");
+    }
+
+    @Test
+    public void read_rejectsMalformedCatalogs() {
+        assertRejected("{\"bodies\": []}");
+        assertRejected("{\"bodies\": [{\"name\": \"Sun\", \"asset\": \"Sol.sfb\", \"orbit\": [1, 0, 0, 0, 0, 0, 1]}]}");
+        assertRejected("{\"bodies\": [{\"name\": \"Sun\", \"asset\": \"Sol.sfb\"},"
+                + "{\"name\": \"Comet\", \"parent\": \"Sun\", \"asset\": \"Sol.sfb\", \"orbit\": [1, 1.5, 0, 0, 0, 0, 1]}]}");
+        assertRejected("{\"bodies\": [{\"name\": \"Sun\", \"asset\": \"Sol.sfb\"},"
+                + "{\"name\": \"Earth\", \"parent\": \"Sun\", \"asset\": \"Earth.sfb\", \"orbit\": [1, 0, 0]}]}");
+        assertRejected("{\"bodies\": [{\"name\": \"Sun\", \"asset\": \"Sol.sfb\", \"mass\": -1}]}");
+        assertRejected("{\"bodies\": [{\"name\": \"Sun\", \"asset\": \"Sol.sfb\"}]");
+        assertRejected("{\"bodies\": [{\"name\": \"Sun\" \"asset\": \"Sol.sfb\"}]}");
+    }
+
+    @Test
+    public void bundledCatalog_isValid() throws IOException {
+        // Local unit tests run from the module directory.
+        File catalog = new File("src/main/assets/solar_system.json");
+        try (Reader reader = new InputStreamReader(new FileInputStream(catalog), StandardCharsets.UTF_8)) {
+            BodyTable table = CatalogReader.read(reader);
+            assertEquals(10, table.getCount());
+            assertEquals("Sol.sfb", table.getAsset(0));
+            // The sandbox pulls flung bodies with every catalog body, see GravitySandbox.
+            for (int body = 0; body < table.getCount(); body++) {
+                assertTrue(table.getName(body) + " has no mass", table.getMass(body) > 0.0);
+            }
+        }
+    }
+
+    private static void assertRejected(String catalog) {
+        try {
+            CatalogReader.read(new StringReader(catalog));
+            fail("expected the catalog to be rejected: " + catalog);
+        } catch (IOException expected) {
+            // Rejected as it should be.
+        }
+    }
+}
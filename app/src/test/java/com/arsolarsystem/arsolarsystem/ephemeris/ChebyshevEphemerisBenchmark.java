@@ -0,0 +1,116 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import com.arsolarsystem.arsolarsystem.catalog.BodyTable;
+import com.arsolarsystem.arsolarsystem.catalog.CatalogReader;
+import com.arsolarsystem.arsolarsystem.catalog.EphemerisTableGenerator;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Headless comparison of {@link ChebyshevEphemeris} against {@link KeplerEphemeris} for the bundled
+ * catalog, with an accuracy report.
+ *
+ * <p>Run the main method on the JVM from the app directory; it builds the table the way the build
+ * does, prints its size, the largest distance between the two per body and the time to compute
+ * all positions with each. Times are spread over an hour of playback at 10x either side of the
+ * epoch, which the table covers with one orbit per body.
+ */
+public class ChebyshevEphemerisBenchmark {
+    private static final String CATALOG = "src/main/assets/solar_system.json";
+    // An hour at a speed multiplier of 10, in orbit seconds.
+    private static final double SPAN_SECONDS = 36_000.0;
+    private static final int ACCURACY_SAMPLES = 1_000_000;
+    // Same as AU_TO_METERS in SolarActivity.
+    private static final float METERS_PER_UNIT = 0.5f;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        BodyTable bodies;
+        try (Reader catalog = new InputStreamReader(new FileInputStream(CATALOG), StandardCharsets.UTF_8)) {
+            bodies = CatalogReader.read(catalog);
+        }
+        double startTime = -SPAN_SECONDS;
+        double endTime = SPAN_SECONDS;
+        ByteBuffer data = EphemerisTableGenerator.createWriter(bodies).fit(0.0);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.remaining());
+        direct.put(data).flip();
+        ChebyshevEphemeris table = new ChebyshevEphemeris(direct);
+
+        KeplerEphemeris kepler = new KeplerEphemeris();
+        String[] names = new String[table.getBodyCount()];
+        for (int body = 1; body < bodies.getCount(); body++) {
+            names[kepler.addBody(bodies.getOrbit(body))] = bodies.getName(body);
+        }
+        int count = kepler.getBodyCount();
+        System.out.printf("%d bodies, %.1f KB%n", count, direct.capacity() / 1024.0);
+
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] z = new float[count];
+        float[] tableX = new float[count];
+        float[] tableY = new float[count];
+        float[] tableZ = new float[count];
+        double[] maxError = new double[count];
+        Random random = new Random(11L);
+        for (int i = 0; i < ACCURACY_SAMPLES; i++) {
+            double time = startTime + random.nextDouble() * (endTime - startTime);
+            kepler.computePositions(time, x, y, z);
+            table.computePositions(time, tableX, tableY, tableZ);
+            for (int body = 0; body < count; body++) {
+                double dx = x[body] - tableX[body];
+                double dy = y[body] - tableY[body];
+                double dz = z[body] - tableZ[body];
+                maxError[body] = Math.max(maxError[body], Math.sqrt(dx * dx + dy * dy + dz * dz));
+            }
+        }
+        for (int body = 0; body < count; body++) {
+            float semiMajorAxis = bodies.getOrbit(body + 1).getSemiMajorAxis();
+            System.out.printf("%-8s max error %.2e units, %.2e of its orbit, %7.3f um in the scene%n",
+                    names[body], maxError[body], maxError[body] / semiMajorAxis,
+                    maxError[body] * METERS_PER_UNIT * 1e6);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            boolean measure = round == 1;
+            long nanos = measure ? MEASURE_NANOS : WARMUP_NANOS;
+            double keplerMicros = run(kepler, null, startTime, endTime, x, y, z, nanos);
+            double tableMicros = run(null, table, startTime, endTime, x, y, z, nanos);
+            if (measure) {
+                System.out.printf("kepler    %8.3f us/frame%n", keplerMicros);
+                System.out.printf("chebyshev %8.3f us/frame, %.2fx%n", tableMicros, keplerMicros / tableMicros);
+            }
+        }
+    }
+
+    /** Computes all positions at times spread over the span, returns the microseconds per call. */
+    private static double run(KeplerEphemeris kepler, ChebyshevEphemeris table, double startTime,
+            double endTime, float[] x, float[] y, float[] z, long nanos) {
+        double timeStep = (endTime - startTime) / 7_919.0;
+        double time = startTime;
+        long frames = 0;
+        long start = System.nanoTime();
+        long end = start + nanos;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 100; i++) {
+                if (kepler != null) {
+                    kepler.computePositions(time, x, y, z);
+                } else {
+                    table.computePositions(time, x, y, z);
+                }
+                time += timeStep;
+                if (time > endTime) {
+                    time -= endTime - startTime;
+                }
+            }
+            frames += 100;
+        }
+        return (System.nanoTime() - start) / 1_000.0 / frames;
+    }
+}
@@ -0,0 +1,136 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ChebyshevEphemeris} and {@link ChebyshevTableWriter}.
+ */
+public class ChebyshevEphemerisTest {
+    private static final OrbitalElements CIRCULAR = OrbitalElements.circular(2.0f, 90.0f);
+    private static final OrbitalElements ECCENTRIC =
+            new OrbitalElements(1.0f, 0.6f, 12.0f, 40.0f, 75.0f, 10.0f, 30.0f);
+    private static final OrbitalElements INCLINED =
+            new OrbitalElements(5.0f, 0.05f, 30.0f, 100.0f, 270.0f, 200.0f, 7.0f);
+
+    @Test
+    public void table_matchesKeplerSolution() {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(8, 10);
+        KeplerEphemeris kepler = new KeplerEphemeris();
+        for (OrbitalElements elements : new OrbitalElements[] {CIRCULAR, ECCENTRIC, INCLINED}) {
+            writer.addBody(elements);
+            kepler.addBody(elements);
+        }
+        ChebyshevEphemeris table = new ChebyshevEphemeris(writer.fit(0.0));
+        assertEquals(3, table.getBodyCount());
+
+        float[] x = new float[3];
+        float[] y = new float[3];
+        float[] z = new float[3];
+        float[] tableX = new float[3];
+        float[] tableY = new float[3];
+        float[] tableZ = new float[3];
+        Random random = new Random(5L);
+        // Several orbits either side of the one fitted.
+        for (int i = 0; i < 10_000; i++) {
+            double time = -100.0 + random.nextDouble() * 200.0;
+            kepler.computePositions(time, x, y, z);
+            table.computePositions(time, tableX, tableY, tableZ);
+            for (int body = 0; body < 3; body++) {
+                // The eccentric orbit needs the most terms, it still stays within a ten thousandth.
+                assertEquals(x[body], tableX[body], 1e-4f);
+                assertEquals(y[body], tableY[body], 1e-4f);
+                assertEquals(z[body], tableZ[body], 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void computePosition_writesRequestedEntry() {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(4, 8);
+        writer.addBody(CIRCULAR);
+        ChebyshevEphemeris table = new ChebyshevEphemeris(writer.fit(0.0));
+        float[] x = new float[3];
+        float[] y = new float[3];
+        float[] z = new float[3];
+
+        // A quarter turn at 90 degrees per second.
+        table.computePosition(0, 1.0, x, y, z, 2);
+        assertEquals(0.0f, x[2], 1e-4f);
+        assertEquals(2.0f, y[2], 1e-4f);
+        assertEquals(0.0f, x[0], 0.0f);
+    }
+
+    @Test
+    public void computePosition_repeatsEveryOrbit() {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(4, 8);
+        writer.addBody(CIRCULAR);
+        writer.addBody(OrbitalElements.circular(3.0f, 0.0f));
+        ChebyshevEphemeris table = new ChebyshevEphemeris(writer.fit(-5.0));
+        float[] x = new float[2];
+        float[] y = new float[2];
+        float[] z = new float[2];
+        float[] laterX = new float[2];
+        float[] laterY = new float[2];
+        float[] laterZ = new float[2];
+
+        assertEquals(-5.0, table.getEpoch(), 0.0);
+        assertEquals(4.0, table.getPeriod(0), 1e-12);
+        table.computePositions(-3.5, x, y, z);
+        // A million orbits later, and a thousand before the fitted one.
+        for (double time : new double[] {-3.5 + 4_000_000.0, -3.5 - 4_000.0}) {
+            table.computePositions(time, laterX, laterY, laterZ);
+            assertEquals(x[0], laterX[0], 1e-5f);
+            assertEquals(y[0], laterY[0], 1e-5f);
+        }
+        // A body that doesn't move stays put.
+        assertEquals(3.0f, laterX[1], 1e-5f);
+        assertEquals(0.0f, laterY[1], 1e-5f);
+    }
+
+    @Test
+    public void findBody_matchesEqualElementsOnly() {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(2, 6);
+        writer.addBody(CIRCULAR);
+        writer.addBody(ECCENTRIC);
+        ChebyshevEphemeris table = new ChebyshevEphemeris(writer.fit(0.0));
+
+        assertEquals(1, table.findBody(new OrbitalElements(1.0f, 0.6f, 12.0f, 40.0f, 75.0f, 10.0f, 30.0f)));
+        assertEquals(0, table.findBody(OrbitalElements.circular(2.0f, 90.0f)));
+        assertEquals(-1, table.findBody(INCLINED));
+        assertEquals(-1, table.findBody(OrbitalElements.circular(2.0f, 91.0f)));
+    }
+
+    @Test
+    public void write_producesSameTableAsFit() throws IOException {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(4, 8);
+        writer.addBody(ECCENTRIC);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(0.0, out);
+
+        ByteBuffer fitted = writer.fit(0.0);
+        assertEquals(fitted, ByteBuffer.wrap(out.toByteArray()));
+        // Header, one body record and 4 segments of one orbit, of 3 axes of 8 floats.
+        assertEquals(20 + 48 + 4 * 3 * 8 * 4, out.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsOtherData() {
+        new ChebyshevEphemeris(ByteBuffer.wrap(new byte[64]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsTruncatedTable() {
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(4, 8);
+        writer.addBody(ECCENTRIC);
+        ByteBuffer table = writer.fit(0.0);
+        table.limit(table.limit() - 4);
+        new ChebyshevEphemeris(table.slice());
+    }
+}
@@ -0,0 +1,59 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import java.util.Random;
+
+/**
+ * Headless throughput benchmark for {@link KeplerEphemeris#computePositions}.
+ *
+ * <p>Run the main method on the JVM; it prints bodies solved per microsecond for a few body counts.
+ */
+public class KeplerEphemerisBenchmark {
+    private static final int[] BODY_COUNTS = {10, 1_000, 10_000};
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    public static void main(String[] args) {
+        for (int bodyCount : BODY_COUNTS) {
+            KeplerEphemeris ephemeris = createEphemeris(bodyCount);
+            float[] x = new float[bodyCount];
+            float[] y = new float[bodyCount];
+            float[] z = new float[bodyCount];
+
+            run(ephemeris, x, y, z, WARMUP_NANOS);
+            long start = System.nanoTime();
+            long frames = run(ephemeris, x, y, z, MEASURE_NANOS);
+            double micros = (System.nanoTime() - start) / 1_000.0;
+
+            System.out.printf("%6d bodies: %8.2f bodies/us, %8.2f us/frame%n",
+                    bodyCount, frames * bodyCount / micros, micros / frames);
+        }
+    }
+
+    private static long run(KeplerEphemeris ephemeris, float[] x, float[] y, float[] z, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long frames = 0;
+        double time = 0.0;
+        while (System.nanoTime() < end) {
+            ephemeris.computePositions(time, x, y, z);
+            time += 1.0 / 60.0;
+            frames++;
+        }
+        return frames;
+    }
+
+    private static KeplerEphemeris createEphemeris(int bodyCount) {
+        Random random = new Random(42);
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        for (int i = 0; i < bodyCount; i++) {
+            ephemeris.addBody(new OrbitalElements(
+                    2.0f + random.nextFloat() * 2.0f,
+                    random.nextFloat() * 0.3f,
+                    random.nextFloat() * 20.0f,
+                    random.nextFloat() * 360.0f,
+                    random.nextFloat() * 360.0f,
+                    random.nextFloat() * 360.0f,
+                    1.0f + random.nextFloat() * 10.0f));
+        }
+        return ephemeris;
+    }
+}
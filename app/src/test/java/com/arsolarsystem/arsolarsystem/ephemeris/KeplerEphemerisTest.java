@@ -0,0 +1,90 @@
+package com.arsolarsystem.arsolarsystem.ephemeris;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link KeplerEphemeris}.
+ */
+public class KeplerEphemerisTest {
+    private static final float DELTA = 1e-4f;
+
+    @Test
+    public void circularOrbit_followsMeanMotion() {
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        ephemeris.addBody(OrbitalElements.circular(2.0f, 90.0f));
+        float[] x = new float[1];
+        float[] y = new float[1];
+        float[] z = new float[1];
+
+        ephemeris.computePositions(0.0, x, y, z);
+        assertEquals(2.0f, x[0], DELTA);
+        assertEquals(0.0f, y[0], DELTA);
+
+        ephemeris.computePositions(1.0, x, y, z);
+        assertEquals(0.0f, x[0], DELTA);
+        assertEquals(2.0f, y[0], DELTA);
+        assertEquals(0.0f, z[0], DELTA);
+    }
+
+    @Test
+    public void eccentricOrbit_hasPeriapsisAndApoapsisDistances() {
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        ephemeris.addBody(new OrbitalElements(1.0f, 0.5f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f));
+        float[] x = new float[1];
+        float[] y = new float[1];
+        float[] z = new float[1];
+
+        ephemeris.computePositions(0.0, x, y, z);
+        assertEquals(0.5f, x[0], DELTA);
+
+        ephemeris.computePositions(180.0, x, y, z);
+        assertEquals(-1.5f, x[0], DELTA);
+    }
+
+    @Test
+    public void inclinedOrbit_leavesReferencePlane() {
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        ephemeris.addBody(new OrbitalElements(1.0f, 0.0f, 30.0f, 0.0f, 90.0f, 0.0f, 1.0f));
+        float[] x = new float[1];
+        float[] y = new float[1];
+        float[] z = new float[1];
+
+        ephemeris.computePositions(0.0, x, y, z);
+        assertEquals(0.0f, x[0], DELTA);
+        assertEquals((float) Math.cos(Math.toRadians(30.0)), y[0], DELTA);
+        assertEquals(0.5f, z[0], DELTA);
+    }
+
+    @Test
+    public void computePositions_solvesKeplersEquationUpToMaxEccentricity() {
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        float[] eccentricities = {0.0f, 0.2f, 0.5f, 0.7f, KeplerEphemeris.MAX_ECCENTRICITY};
+        for (float e : eccentricities) {
+            ephemeris.addBody(new OrbitalElements(1.0f, e, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f));
+        }
+        int count = ephemeris.getBodyCount();
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] z = new float[count];
+
+        for (int degrees = 0; degrees < 360; degrees++) {
+            ephemeris.computePositions(degrees + 0.25, x, y, z);
+            for (int i = 0; i < count; i++) {
+                double e = eccentricities[i];
+                // Recover the eccentric anomaly from the position and check M = E - e sin(E).
+                double eccentricAnomaly = Math.atan2(y[i] / Math.sqrt(1.0 - e * e), x[i] + e);
+                double meanAnomaly = eccentricAnomaly - e * Math.sin(eccentricAnomaly);
+                double expected = Math.toRadians(degrees + 0.25);
+                double error = Math.IEEEremainder(meanAnomaly - expected, 2.0 * Math.PI);
+                assertEquals("e=" + e + " at " + degrees, 0.0, error, 1e-5);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void elements_rejectUnboundOrbits() {
+        new OrbitalElements(1.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f);
+    }
+}
@@ -0,0 +1,121 @@
+package com.arsolarsystem.arsolarsystem.instrumentation;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FrameRecorder}.
+ */
+public class FrameRecorderTest {
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void percentiles_comeFromRecordedFrames() {
+        FrameRecorder recorder = new FrameRecorder(100, "update");
+        for (int i = 1; i <= 100; i++) {
+            recorder.endFrame(i * MILLIS);
+        }
+        assertEquals(100, recorder.getFrameCount());
+        assertEquals(50 * MILLIS + 100_000L, recorder.getPercentileNanos(0.50));
+        assertEquals(95 * MILLIS + 100_000L, recorder.getPercentileNanos(0.95));
+        assertEquals(99 * MILLIS + 100_000L, recorder.getPercentileNanos(0.99));
+    }
+
+    @Test
+    public void ring_dropsOldestFrames() {
+        FrameRecorder recorder = new FrameRecorder(4, "update");
+        recorder.endFrame(90 * MILLIS);
+        for (int i = 0; i < 4; i++) {
+            recorder.endFrame(10 * MILLIS);
+        }
+        assertEquals(4, recorder.getFrameCount());
+        // The 90 ms frame has left the ring, so it no longer shows up in the tail.
+        assertEquals(10 * MILLIS + 100_000L, recorder.getPercentileNanos(0.99));
+    }
+
+    @Test
+    public void sections_areAccumulatedPerFrame() {
+        FrameRecorder recorder = new FrameRecorder(8, "clock", "planets");
+        recorder.addSectionTime(0, 2_000L);
+        recorder.addSectionTime(1, 1_000L);
+        recorder.addSectionTime(1, 3_000L);
+        recorder.endFrame(16 * MILLIS);
+        recorder.endFrame(16 * MILLIS);
+
+        assertEquals(1_000L, recorder.getAverageSectionNanos(0));
+        assertEquals(2_000L, recorder.getAverageSectionNanos(1));
+    }
+
+    @Test
+    public void writeTrace_listsLoadsAndFramesOldestFirst() throws Exception {
+        FrameRecorder recorder = new FrameRecorder(2, "clock");
+        recorder.recordLoad("Sol.sfb", 120 * MILLIS);
+        recorder.addSectionTime(0, 5_000L);
+        recorder.endFrame(16 * MILLIS);
+        recorder.endFrame(17 * MILLIS);
+        recorder.endFrame(18 * MILLIS);
+
+        StringWriter out = new StringWriter();
+        recorder.writeTrace(out);
+        assertEquals("# load,asset,micros\n"
+                + "load,Sol.sfb,120000\n"
+                + "frame,frame_us,clock_us\n"
+                + "1,17000,0\n"
+                + "2,18000,0\n", out.toString());
+    }
+
+    @Test
+    public void copy_keepsFramesRecordedSoFar() throws Exception {
+        FrameRecorder recorder = new FrameRecorder(2, "clock");
+        recorder.recordLoad("Sol.sfb", 120 * MILLIS);
+        recorder.addSectionTime(0, 5_000L);
+        recorder.endFrame(16 * MILLIS);
+        FrameRecorder copy = recorder.copy();
+
+        recorder.recordLoad("Earth.sfb", 80 * MILLIS);
+        recorder.endFrame(90 * MILLIS);
+        recorder.endFrame(90 * MILLIS);
+
+        assertEquals(1, copy.getFrameCount());
+        assertEquals(16 * MILLIS + 100_000L, copy.getPercentileNanos(0.99));
+        StringWriter out = new StringWriter();
+        copy.writeTrace(out);
+        assertEquals("# load,asset,micros\n"
+                + "load,Sol.sfb,120000\n"
+                + "frame,frame_us,clock_us\n"
+                + "0,16000,5\n", out.toString());
+    }
+
+    @Test
+    public void recording_doesNotAllocateInSteadyState() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        FrameRecorder recorder = new FrameRecorder(600, "clock", "planets", "planes");
+
+        // Warm up so that class loading and JIT compilation are not counted.
+        simulateFrames(recorder, 20_000);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        simulateFrames(recorder, 10_000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals("bytes allocated over 10k frames", 0L, allocated);
+    }
+
+    private static void simulateFrames(FrameRecorder recorder, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            recorder.addSectionTime(0, 20_000L);
+            recorder.addSectionTime(1, 50_000L + frame % 7);
+            recorder.addSectionTime(2, 10_000L);
+            recorder.endFrame(16 * MILLIS + (frame % 13) * 100_000L);
+            if (frame % 60 == 0) {
+                recorder.getPercentileNanos(0.99);
+            }
+        }
+    }
+}
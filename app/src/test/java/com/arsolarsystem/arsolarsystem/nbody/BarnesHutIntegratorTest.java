@@ -0,0 +1,183 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BarnesHutIntegrator}.
+ */
+public class BarnesHutIntegratorTest {
+    private static final double G = 1.0;
+    private static final double SOFTENING = 1e-3;
+
+    @Test
+    public void thetaZero_matchesDirectSum() {
+        NBodySystem system = createCluster(500, new Random(1L));
+        new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, SOFTENING, 0.0).computeAccelerations(system);
+        double[][] expected = directSum(system);
+
+        for (int i = 0; i < system.getCount(); i++) {
+            double scale = Math.abs(expected[0][i]) + Math.abs(expected[1][i]) + Math.abs(expected[2][i]);
+            assertEquals(expected[0][i], system.getAccelerationX()[i], scale * 1e-10);
+            assertEquals(expected[1][i], system.getAccelerationY()[i], scale * 1e-10);
+            assertEquals(expected[2][i], system.getAccelerationZ()[i], scale * 1e-10);
+        }
+    }
+
+    @Test
+    public void usualTheta_staysWithinOnePercentOfDirectSum() {
+        NBodySystem system = createCluster(3000, new Random(2L));
+        new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, SOFTENING, 0.5).computeAccelerations(system);
+        double[][] expected = directSum(system);
+
+        double error = 0.0;
+        double magnitude = 0.0;
+        for (int i = 0; i < system.getCount(); i++) {
+            double ex = system.getAccelerationX()[i] - expected[0][i];
+            double ey = system.getAccelerationY()[i] - expected[1][i];
+            double ez = system.getAccelerationZ()[i] - expected[2][i];
+            error += ex * ex + ey * ey + ez * ez;
+            magnitude += expected[0][i] * expected[0][i] + expected[1][i] * expected[1][i] + expected[2][i] * expected[2][i];
+        }
+        assertTrue("relative error " + Math.sqrt(error / magnitude), Math.sqrt(error / magnitude) < 0.01);
+    }
+
+    @Test
+    public void planetarySystem_energyDoesNotDrift_overManyOrbits() {
+        NBodySystem system = createPlanetarySystem();
+        BarnesHutIntegrator integrator = new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, SOFTENING, 0.5);
+        double initial = totalEnergy(system);
+
+        // 100 orbits of the innermost planet, about 14 of the outermost.
+        double dt = 0.005;
+        int steps = (int) Math.round(100 * 2.0 * Math.PI / dt);
+        double worst = 0.0;
+        for (int step = 0; step < steps; step++) {
+            integrator.step(system, dt);
+            if (step % 100 == 0) {
+                worst = Math.max(worst, Math.abs((totalEnergy(system) - initial) / initial));
+            }
+        }
+        double last = Math.abs((totalEnergy(system) - initial) / initial);
+        assertTrue("worst energy error " + worst, worst < 1e-4);
+        assertTrue("final energy error " + last, last < 1e-4);
+    }
+
+    @Test
+    public void steppingBack_returnsToStart() {
+        NBodySystem system = createCluster(200, new Random(3L));
+        double[] startX = system.getX().clone();
+        double[] startVelocityY = system.getVelocityY().clone();
+        BarnesHutIntegrator integrator = new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, 0.05, 0.5);
+
+        for (int step = 0; step < 200; step++) {
+            integrator.step(system, 1e-3);
+        }
+        for (int step = 0; step < 200; step++) {
+            integrator.step(system, -1e-3);
+        }
+        for (int i = 0; i < system.getCount(); i++) {
+            assertEquals(startX[i], system.getX()[i], 1e-9);
+            assertEquals(startVelocityY[i], system.getVelocityY()[i], 1e-8);
+        }
+    }
+
+    @Test
+    public void coincidentBodies_stayFinite() {
+        NBodySystem system = new NBodySystem();
+        for (int i = 0; i < 20; i++) {
+            system.addBody(1.0, 1.0, 2.0, 3.0, 0.0, 0.0, 0.0);
+        }
+        system.addBody(1.0, -1.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        BarnesHutIntegrator integrator = new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, SOFTENING, 0.5);
+
+        integrator.step(system, 0.01);
+
+        for (int i = 0; i < system.getCount(); i++) {
+            assertFalse(Double.isNaN(system.getX()[i]) || Double.isInfinite(system.getX()[i]));
+            assertFalse(Double.isNaN(system.getVelocityX()[i]) || Double.isInfinite(system.getVelocityX()[i]));
+        }
+        // The pile pulls the lone body toward it.
+        assertTrue(system.getVelocityX()[20] > 0.0);
+    }
+
+    @Test
+    public void bodyAddedMidRun_pullsAndIsPulled() {
+        NBodySystem system = new NBodySystem();
+        system.addBody(1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        BarnesHutIntegrator integrator = new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, SOFTENING, 0.5);
+        integrator.step(system, 0.01);
+        assertEquals(0.0, system.getVelocityX()[0], 0.0);
+
+        int comet = system.addBody(1.0, 2.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        integrator.step(system, 0.01);
+
+        // Both half kicks of the step pull with about G m / r^2 = 0.25.
+        assertEquals(-0.0025, system.getVelocityX()[comet], 1e-5);
+        assertEquals(0.0025, system.getVelocityX()[0], 1e-5);
+    }
+
+    private static NBodySystem createCluster(int count, Random random) {
+        NBodySystem system = new NBodySystem();
+        for (int i = 0; i < count; i++) {
+            // Denser toward the middle, like a real cluster, so the tree gets deep in places.
+            double radius = Math.pow(random.nextDouble(), 2.0);
+            double theta = Math.acos(2.0 * random.nextDouble() - 1.0);
+            double phi = 2.0 * Math.PI * random.nextDouble();
+            system.addBody(0.5 + random.nextDouble(),
+                    radius * Math.sin(theta) * Math.cos(phi),
+                    radius * Math.sin(theta) * Math.sin(phi),
+                    radius * Math.cos(theta),
+                    random.nextGaussian() * 0.1, random.nextGaussian() * 0.1, random.nextGaussian() * 0.1);
+        }
+        return system;
+    }
+
+    /** A unit mass star with five light planets on circular orbits from 1 to 5 out. */
+    private static NBodySystem createPlanetarySystem() {
+        NBodySystem system = new NBodySystem();
+        system.addBody(1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        for (int planet = 1; planet <= 5; planet++) {
+            double radius = planet;
+            double angle = planet * 1.3;
+            double speed = Math.sqrt(G / radius);
+            system.addBody(1e-5 * planet,
+                    radius * Math.cos(angle), radius * Math.sin(angle), 0.0,
+                    -speed * Math.sin(angle), speed * Math.cos(angle), 0.0);
+        }
+        return system;
+    }
+
+    private static double totalEnergy(NBodySystem system) {
+        return system.getKineticEnergy() + system.getPotentialEnergy(G, SOFTENING);
+    }
+
+    private static double[][] directSum(NBodySystem system) {
+        int count = system.getCount();
+        double[] mass = system.getMass();
+        double[] x = system.getX();
+        double[] y = system.getY();
+        double[] z = system.getZ();
+        double[][] acceleration = new double[3][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                if (i == j) {
+                    continue;
+                }
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                double dz = z[j] - z[i];
+                double r2 = dx * dx + dy * dy + dz * dz + SOFTENING * SOFTENING;
+                double scale = G * mass[j] / (r2 * Math.sqrt(r2));
+                acceleration[0][i] += dx * scale;
+                acceleration[1][i] += dy * scale;
+                acceleration[2][i] += dz * scale;
+            }
+        }
+        return acceleration;
+    }
+}
@@ -0,0 +1,91 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GravitySandbox}.
+ */
+public class GravitySandboxTest {
+    private static final double G = 1.0;
+    private static final double SOFTENING = 1e-3;
+    private static final double FRAME = 1.0 / 60.0;
+
+    @Test
+    public void gravitationalConstant_makesTheGivenOrbitKeplerian() {
+        assertEquals(1.0, GravitySandbox.gravitationalConstant(1.0, 1.0, Math.toDegrees(1.0)), 1e-12);
+        // Twice the mean motion at the same radius needs four times the pull.
+        assertEquals(2.0, GravitySandbox.gravitationalConstant(2.0, 1.0, Math.toDegrees(2.0)), 1e-12);
+    }
+
+    @Test
+    public void flungOnCircularVelocity_staysOnItsOrbit() {
+        GravitySandbox sandbox = createSandbox(new double[] {1.0}, 4, 100.0);
+        int slot = sandbox.fling(0.0, 1.0, 0.0, 0.0, 0.0, 1.0, 0.0);
+
+        double worst = 0.0;
+        int frames = (int) Math.round(2.0 * Math.PI / FRAME);
+        for (int frame = 0; frame < frames; frame++) {
+            sandbox.advance(FRAME);
+            double radius = Math.sqrt(sandbox.getX(slot) * sandbox.getX(slot) + sandbox.getY(slot) * sandbox.getY(slot));
+            worst = Math.max(worst, Math.abs(radius - 1.0));
+        }
+        assertTrue("worst radius error " + worst, worst < 1e-3);
+        // Back about where it started after one orbit.
+        assertEquals(1.0, sandbox.getX(slot), 1e-2);
+        assertEquals(0.0, sandbox.getY(slot), 1e-2);
+    }
+
+    @Test
+    public void anchoredBodies_pullFlungBodies() {
+        GravitySandbox sandbox = createSandbox(new double[] {1.0, 0.5}, 4, 100.0);
+        sandbox.setAnchoredPosition(1, 3.0, 0.0, 0.0);
+        int slot = sandbox.fling(1.0, 2.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+        sandbox.advance(FRAME);
+
+        // The star pulls with 1 / 4 toward -x, the heavy planet with 0.5 toward +x and wins.
+        assertTrue(sandbox.getX(slot) > 2.0);
+        sandbox.setAnchoredPosition(1, 3.0, 1.0, 0.0);
+        sandbox.advance(FRAME);
+        assertTrue(sandbox.getY(slot) > 0.0);
+    }
+
+    @Test
+    public void escapedBody_freesItsSlot() {
+        GravitySandbox sandbox = createSandbox(new double[] {1.0}, 2, 3.0);
+        int first = sandbox.fling(0.0, 2.9, 0.0, 0.0, 60.0, 0.0, 0.0);
+        int second = sandbox.fling(0.0, 1.0, 0.0, 0.0, 0.0, 1.0, 0.0);
+        assertEquals(0, first);
+        assertEquals(1, second);
+
+        sandbox.advance(FRAME);
+        assertFalse(sandbox.isActive(first));
+        assertTrue(sandbox.isActive(second));
+        assertTrue(sandbox.hasFlungBodies());
+
+        // The free slot is taken before the oldest body is replaced.
+        assertEquals(first, sandbox.fling(0.0, -1.0, 0.0, 0.0, 0.0, -1.0, 0.0));
+        assertTrue(sandbox.isActive(second));
+    }
+
+    @Test
+    public void fullSlots_replaceTheOldestBody() {
+        GravitySandbox sandbox = createSandbox(new double[] {1.0}, 2, 100.0);
+        assertFalse(sandbox.hasFlungBodies());
+
+        assertEquals(0, sandbox.fling(0.0, 1.0, 0.0, 0.0, 0.0, 1.0, 0.0));
+        assertEquals(1, sandbox.fling(0.0, 2.0, 0.0, 0.0, 0.0, 0.7, 0.0));
+        assertEquals(0, sandbox.fling(0.0, 3.0, 0.0, 0.0, 0.0, 0.5, 0.0));
+        assertEquals(3.0, sandbox.getX(0), 0.0);
+        assertEquals(2.0, sandbox.getX(1), 0.0);
+    }
+
+    private static GravitySandbox createSandbox(double[] anchoredMasses, int slots, double escapeRadius) {
+        BarnesHutIntegrator integrator = new BarnesHutIntegrator(ForkJoinPool.commonPool(), G, SOFTENING, 0.5);
+        return new GravitySandbox(integrator, anchoredMasses, slots, 1e-3, 32, escapeRadius);
+    }
+}
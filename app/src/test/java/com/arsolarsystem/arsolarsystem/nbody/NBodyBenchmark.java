@@ -0,0 +1,78 @@
+package com.arsolarsystem.arsolarsystem.nbody;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless benchmark of Barnes-Hut steps over a disk of bodies around a heavy star, from a handful
+ * of bodies up to 50,000, on fork/join pools of 1, 2, 4 and so on up to every available core.
+ *
+ * <p>Run the main method on the JVM; it prints the average cost of a step per body count and pool
+ * size, and the speedup over a single core.
+ */
+public class NBodyBenchmark {
+    private static final int[] BODY_COUNTS = {10, 100, 1_000, 10_000, 50_000};
+    private static final double G = 1.0;
+    private static final double SOFTENING = 1e-3;
+    private static final double THETA = 0.5;
+    private static final double DT = 1e-3;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    public static void main(String[] args) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int bodyCount : BODY_COUNTS) {
+            double singleCoreMillis = 0.0;
+            for (int cores = 1; cores <= processors; cores = nextCoreCount(cores, processors)) {
+                ForkJoinPool pool = new ForkJoinPool(cores);
+                NBodySystem system = createDisk(bodyCount, new Random(1L));
+                BarnesHutIntegrator integrator = new BarnesHutIntegrator(pool, G, SOFTENING, THETA);
+
+                run(integrator, system, WARMUP_NANOS);
+                long start = System.nanoTime();
+                long steps = run(integrator, system, MEASURE_NANOS);
+                double millis = (System.nanoTime() - start) / 1_000_000.0 / steps;
+                pool.shutdown();
+
+                if (cores == 1) {
+                    singleCoreMillis = millis;
+                }
+                System.out.printf("%6d bodies, %2d cores: %9.4f ms/step, %5.2fx%n",
+                        bodyCount, cores, millis, singleCoreMillis / millis);
+            }
+        }
+    }
+
+    /** Doubles the core count, ending on every core even when that is not a power of two. */
+    private static int nextCoreCount(int cores, int processors) {
+        if (cores == processors) {
+            return processors + 1;
+        }
+        return Math.min(cores * 2, processors);
+    }
+
+    private static long run(BarnesHutIntegrator integrator, NBodySystem system, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long steps = 0;
+        while (System.nanoTime() < end) {
+            integrator.step(system, DT);
+            steps++;
+        }
+        return steps;
+    }
+
+    /** A unit mass star and light bodies on roughly circular orbits in a thin disk out to 5. */
+    private static NBodySystem createDisk(int count, Random random) {
+        NBodySystem system = new NBodySystem();
+        system.addBody(1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        for (int i = 1; i < count; i++) {
+            double radius = 0.5 + 4.5 * random.nextDouble();
+            double angle = 2.0 * Math.PI * random.nextDouble();
+            double speed = Math.sqrt(G / radius);
+            system.addBody(1e-3 / count,
+                    radius * Math.cos(angle), radius * Math.sin(angle), random.nextGaussian() * 0.02,
+                    -speed * Math.sin(angle), speed * Math.cos(angle), 0.0);
+        }
+        return system;
+    }
+}
@@ -0,0 +1,150 @@
+package com.arsolarsystem.arsolarsystem.picking;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+
+import java.util.Random;
+
+/**
+ * Headless benchmark of tap picking over belt bodies: the per-frame refit of the tree to the moved
+ * bodies, and a pick through the tree against checking every body.
+ *
+ * <p>Run the main method on the JVM; it prints the average cost of a refit and of a pick per body
+ * count.
+ */
+public class SphereBvhBenchmark {
+    private static final int[] BODY_COUNTS = {100, 1_000, 10_000, 100_000};
+    private static final float BODY_RADIUS = 0.004f;
+    // About 24 pixels on a 1080 pixel high view with a 60 degree field of view.
+    private static final float TOLERANCE = 0.026f;
+    private static final int RAYS = 1024;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    private static volatile int sink;
+    private static long refitNanos;
+
+    public static void main(String[] args) {
+        for (int bodyCount : BODY_COUNTS) {
+            AsteroidBelt belt = new AsteroidBelt(bodyCount, 1.7f, 2.0f, 0.15f, 10f, 29f, 1L);
+            float[] x = new float[bodyCount];
+            float[] y = new float[bodyCount];
+            float[] z = new float[bodyCount];
+            belt.computePositions(0.0, bodyCount, x, y, z);
+            SphereBvh bvh = new SphereBvh();
+            for (int body = 0; body < bodyCount; body++) {
+                bvh.add(x[body], z[body], -y[body], BODY_RADIUS);
+            }
+            bvh.refit();
+
+            refit(belt, x, y, z, bvh, WARMUP_NANOS);
+            refitNanos = 0;
+            long frames = refit(belt, x, y, z, bvh, MEASURE_NANOS);
+            double refitMicros = refitNanos / 1_000.0 / frames;
+
+            // The rays aim at the belt as it is after the refits.
+            float[] rays = createRays(x, y, z, new Random(7L));
+            pick(bvh, rays, WARMUP_NANOS);
+            long start = System.nanoTime();
+            long picks = pick(bvh, rays, MEASURE_NANOS);
+            double pickMicros = (System.nanoTime() - start) / 1_000.0 / picks;
+
+            pickLinear(x, y, z, rays, WARMUP_NANOS);
+            start = System.nanoTime();
+            long linearPicks = pickLinear(x, y, z, rays, MEASURE_NANOS);
+            double linearMicros = (System.nanoTime() - start) / 1_000.0 / linearPicks;
+
+            System.out.printf("%7d bodies: refit %9.1f us/frame, pick %7.2f us, every body %9.2f us%n",
+                    bodyCount, refitMicros, pickMicros, linearMicros);
+        }
+    }
+
+    /** Moves the belt on a frame at a time and refits the tree to it, timing only the tree. */
+    private static long refit(AsteroidBelt belt, float[] x, float[] y, float[] z, SphereBvh bvh, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long frames = 0;
+        double time = 0.0;
+        while (System.nanoTime() < end) {
+            belt.computePositions(time, x.length, x, y, z);
+            long start = System.nanoTime();
+            for (int body = 0; body < x.length; body++) {
+                bvh.set(body, x[body], z[body], -y[body], BODY_RADIUS);
+            }
+            bvh.refit();
+            refitNanos += System.nanoTime() - start;
+            time += 1.0 / 60.0;
+            frames++;
+        }
+        return frames;
+    }
+
+    /** Rays from a camera above the table aimed near random bodies, six floats each. */
+    private static float[] createRays(float[] x, float[] y, float[] z, Random random) {
+        float[] rays = new float[RAYS * 6];
+        int count = x.length;
+        for (int ray = 0; ray < RAYS; ray++) {
+            int body = random.nextInt(count);
+            float ox = random.nextFloat() * 2.0f - 1.0f;
+            float oy = 1.5f;
+            float oz = 3.0f;
+            float dx = x[body] - ox + (random.nextFloat() - 0.5f) * 0.05f;
+            float dy = z[body] - oy;
+            float dz = -y[body] - oz + (random.nextFloat() - 0.5f) * 0.05f;
+            float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            rays[ray * 6] = ox;
+            rays[ray * 6 + 1] = oy;
+            rays[ray * 6 + 2] = oz;
+            rays[ray * 6 + 3] = dx / length;
+            rays[ray * 6 + 4] = dy / length;
+            rays[ray * 6 + 5] = dz / length;
+        }
+        return rays;
+    }
+
+    private static long pick(SphereBvh bvh, float[] rays, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long picks = 0;
+        int result = 0;
+        while (System.nanoTime() < end) {
+            for (int r = 0; r < rays.length; r += 6) {
+                result += bvh.pick(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], rays[r + 5], TOLERANCE);
+            }
+            picks += RAYS;
+        }
+        sink = result;
+        return picks;
+    }
+
+    /** What resolving a tap costs without the tree: the same test against every body. */
+    private static long pickLinear(float[] x, float[] y, float[] z, float[] rays, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long picks = 0;
+        int result = 0;
+        while (System.nanoTime() < end) {
+            for (int r = 0; r < rays.length; r += 6) {
+                float ox = rays[r], oy = rays[r + 1], oz = rays[r + 2];
+                float dx = rays[r + 3], dy = rays[r + 4], dz = rays[r + 5];
+                int best = -1;
+                float bestError = Float.POSITIVE_INFINITY;
+                for (int body = 0; body < x.length; body++) {
+                    float ex = x[body] - ox;
+                    float ey = z[body] - oy;
+                    float ez = -y[body] - oz;
+                    float t = ex * dx + ey * dy + ez * dz;
+                    if (t <= 0.0f) {
+                        continue;
+                    }
+                    float off = (float) Math.sqrt(Math.max(ex * ex + ey * ey + ez * ez - t * t, 0.0f));
+                    float error = Math.max(off - BODY_RADIUS, 0.0f) / t;
+                    if (error <= TOLERANCE && error < bestError) {
+                        best = body;
+                        bestError = error;
+                    }
+                }
+                result += best;
+            }
+            picks += RAYS;
+        }
+        sink = result;
+        return picks;
+    }
+}
@@ -0,0 +1,145 @@
+package com.arsolarsystem.arsolarsystem.picking;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SphereBvh}.
+ */
+public class SphereBvhTest {
+    private static final float TOLERANCE = 0.02f;
+
+    @Test
+    public void empty_picksNothing() {
+        SphereBvh bvh = new SphereBvh();
+        bvh.refit();
+        assertEquals(-1, bvh.pick(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, TOLERANCE));
+    }
+
+    @Test
+    public void nearestSphereOnRay_wins() {
+        SphereBvh bvh = new SphereBvh();
+        bvh.add(0.0f, 0.0f, -5.0f, 0.5f);
+        int near = bvh.add(0.0f, 0.0f, -2.0f, 0.5f);
+        bvh.add(0.0f, 0.0f, 3.0f, 0.5f);
+        bvh.refit();
+
+        assertEquals(near, bvh.pick(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, TOLERANCE));
+        assertEquals(1.5f, bvh.getPickDistance(), 1e-6f);
+    }
+
+    @Test
+    public void smallSphere_pickedWithinAngle() {
+        SphereBvh bvh = new SphereBvh();
+        int small = bvh.add(0.15f, 0.0f, -10.0f, 0.001f);
+        bvh.refit();
+
+        // 0.15 off at 10 away misses by about 0.015, inside the tolerance but not inside half of it.
+        assertEquals(small, bvh.pick(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, TOLERANCE));
+        assertEquals(-1, bvh.pick(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, TOLERANCE / 2));
+    }
+
+    @Test
+    public void hitSphere_winsOverCloserNearMiss() {
+        SphereBvh bvh = new SphereBvh();
+        bvh.add(0.05f, 0.0f, -1.0f, 0.01f);
+        int hit = bvh.add(0.0f, 0.0f, -4.0f, 0.1f);
+        bvh.refit();
+
+        assertEquals(hit, bvh.pick(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, 0.1f));
+    }
+
+    @Test
+    public void negativeRadius_neverPicked() {
+        SphereBvh bvh = new SphereBvh();
+        int hidden = bvh.add(0.0f, 0.0f, -2.0f, 0.5f);
+        int behind = bvh.add(0.0f, 0.0f, -6.0f, 0.5f);
+        bvh.refit();
+        bvh.set(hidden, 0.0f, 0.0f, -2.0f, -1.0f);
+        bvh.refit();
+
+        assertEquals(behind, bvh.pick(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, TOLERANCE));
+    }
+
+    @Test
+    public void randomRays_matchBruteForce_asSpheresMove() {
+        Random random = new Random(3L);
+        int count = 2000;
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] z = new float[count];
+        float[] r = new float[count];
+        float[] angle = new float[count];
+        float[] distance = new float[count];
+        SphereBvh bvh = new SphereBvh();
+        for (int i = 0; i < count; i++) {
+            angle[i] = random.nextFloat() * 6.2831855f;
+            distance[i] = 0.2f + random.nextFloat() * 4.0f;
+            r[i] = 0.002f + random.nextFloat() * 0.05f;
+            place(i, angle[i], distance[i], random.nextFloat() * 0.2f - 0.1f, x, y, z);
+            bvh.add(x[i], y[i], z[i], r[i]);
+        }
+
+        for (int frame = 0; frame < 30; frame++) {
+            // Inner bodies go around faster, which tears the tree's boxes apart over the frames.
+            for (int i = 0; i < count; i++) {
+                angle[i] += 0.3f / distance[i];
+                place(i, angle[i], distance[i], y[i], x, y, z);
+                bvh.set(i, x[i], y[i], z[i], r[i]);
+            }
+            bvh.refit();
+            for (int ray = 0; ray < 50; ray++) {
+                float ox = random.nextFloat() * 10.0f - 5.0f;
+                float oy = 1.0f + random.nextFloat();
+                float oz = random.nextFloat() * 10.0f - 5.0f;
+                // Aim near a random sphere so that most rays pick something.
+                int target = random.nextInt(count);
+                float dx = x[target] - ox + random.nextFloat() * 0.1f;
+                float dy = y[target] - oy;
+                float dz = z[target] - oz + random.nextFloat() * 0.1f;
+                float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                dx /= length;
+                dy /= length;
+                dz /= length;
+
+                int expected = bruteForce(x, y, z, r, ox, oy, oz, dx, dy, dz);
+                assertEquals("frame " + frame + " ray " + ray, expected, bvh.pick(ox, oy, oz, dx, dy, dz, TOLERANCE));
+            }
+        }
+    }
+
+    private static void place(int i, float angle, float distance, float height, float[] x, float[] y, float[] z) {
+        x[i] = (float) Math.cos(angle) * distance;
+        y[i] = height;
+        z[i] = (float) Math.sin(angle) * distance;
+    }
+
+    /** Same rules as the tree, checking every sphere. */
+    private static int bruteForce(float[] x, float[] y, float[] z, float[] r,
+            float ox, float oy, float oz, float dx, float dy, float dz) {
+        int best = -1;
+        float bestError = Float.POSITIVE_INFINITY;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < x.length; i++) {
+            float ex = x[i] - ox;
+            float ey = y[i] - oy;
+            float ez = z[i] - oz;
+            float t = ex * dx + ey * dy + ez * dz;
+            if (t <= 0.0f) {
+                continue;
+            }
+            float off = (float) Math.sqrt(Math.max(ex * ex + ey * ey + ez * ez - t * t, 0.0f));
+            float error = off <= r[i] ? 0.0f : (off - r[i]) / t;
+            float distance = off <= r[i] ? t - (float) Math.sqrt(r[i] * r[i] - off * off) : t;
+            if (error <= TOLERANCE && (error < bestError || (error == bestError && distance < bestDistance))) {
+                best = i;
+                bestError = error;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,213 @@
+package com.arsolarsystem.arsolarsystem.quality;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QualityGovernor}, including a simulated classroom session on a phone
+ * that heats up and throttles.
+ */
+public class QualityGovernorTest {
+    private static final long FRAME_NANOS = 16_666_667L;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    @Test
+    public void lateWindow_dropsOneLevel() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        long now = feed(governor, 0L, QualityGovernor.WINDOW_NANOS, 2 * FRAME_NANOS);
+        assertEquals(1, governor.getLevelIndex());
+        assertEquals("reduced", governor.getLevel().getName());
+
+        // The next late window drops another level, not several at once.
+        feed(governor, now, QualityGovernor.WINDOW_NANOS, 2 * FRAME_NANOS);
+        assertEquals(2, governor.getLevelIndex());
+    }
+
+    @Test
+    public void fewLateFrames_keepLevel() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        long now = 0L;
+        for (int frame = 0; frame < 60 * 60; frame++) {
+            // One frame in ten is late, under the share that drops a level.
+            long frameNanos = frame % 10 == 0 ? 2 * FRAME_NANOS : FRAME_NANOS;
+            now += frameNanos;
+            governor.onFrame(frameNanos, now);
+        }
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void rise_waitsForCleanHold() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        long now = feed(governor, 0L, QualityGovernor.WINDOW_NANOS, 2 * FRAME_NANOS);
+        assertEquals(1, governor.getLevelIndex());
+
+        now = feed(governor, now, QualityGovernor.UPGRADE_HOLD_NANOS - 3 * SECOND_NANOS, FRAME_NANOS);
+        assertEquals(1, governor.getLevelIndex());
+        feed(governor, now, 4 * SECOND_NANOS, FRAME_NANOS);
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void failedRise_doublesHold() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        long now = feed(governor, 0L, QualityGovernor.WINDOW_NANOS, 2 * FRAME_NANOS);
+        now = feed(governor, now, QualityGovernor.UPGRADE_HOLD_NANOS + 2 * SECOND_NANOS, FRAME_NANOS);
+        assertEquals(0, governor.getLevelIndex());
+
+        // The rise didn't hold.
+        now = feed(governor, now, QualityGovernor.WINDOW_NANOS, 2 * FRAME_NANOS);
+        assertEquals(1, governor.getLevelIndex());
+        now = feed(governor, now, QualityGovernor.UPGRADE_HOLD_NANOS + 2 * SECOND_NANOS, FRAME_NANOS);
+        assertEquals(1, governor.getLevelIndex());
+        feed(governor, now, QualityGovernor.UPGRADE_HOLD_NANOS, FRAME_NANOS);
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void pause_isNotJudgedAsLateFrame() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        long now = feed(governor, 0L, SECOND_NANOS, FRAME_NANOS);
+        now += 5 * SECOND_NANOS;
+        governor.onFrame(5 * SECOND_NANOS, now);
+        feed(governor, now, 3 * SECOND_NANOS, FRAME_NANOS);
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void deviceState_setsFloorWithHysteresis() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        governor.onDeviceState(QualityGovernor.HOT_CELSIUS, 0.8f, false, false, 0L);
+        assertEquals(2, governor.getLevelIndex());
+
+        // Cooler, but not below where the hot threshold clears: clean frames don't raise quality.
+        governor.onDeviceState(QualityGovernor.HOT_CELSIUS - 1.0f, 0.8f, false, false, 0L);
+        long now = feed(governor, 0L, 2 * QualityGovernor.UPGRADE_HOLD_NANOS, FRAME_NANOS);
+        assertEquals(2, governor.getLevelIndex());
+
+        // Cleared to warm, rising happens through the frame windows and stops at the warm floor.
+        governor.onDeviceState(QualityGovernor.WARM_CELSIUS + 1.0f, 0.8f, false, false, now);
+        assertEquals(2, governor.getLevelIndex());
+        feed(governor, now, 4 * QualityGovernor.UPGRADE_HOLD_NANOS, FRAME_NANOS);
+        assertEquals(1, governor.getLevelIndex());
+    }
+
+    @Test
+    public void deviceState_lowPowerKeepsQualityDown() {
+        QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        governor.onDeviceState(30.0f, 0.9f, false, true, 0L);
+        assertEquals(1, governor.getLevelIndex());
+
+        governor.onDeviceState(30.0f, 0.1f, true, false, 0L);
+        long now = feed(governor, 0L, 2 * QualityGovernor.UPGRADE_HOLD_NANOS, FRAME_NANOS);
+        assertEquals("charging lifts the low battery floor", 0, governor.getLevelIndex());
+
+        governor.onDeviceState(30.0f, 0.1f, false, false, now);
+        assertEquals(1, governor.getLevelIndex());
+    }
+
+    @Test
+    public void classroomSession_holdsFrameRateOnThrottlingPhone() {
+        SimulatedSession fixed = new SimulatedSession(false);
+        fixed.run(30 * 60);
+        SimulatedSession governed = new SimulatedSession(true);
+        governed.run(30 * 60);
+
+        // Without adapting, the phone throttles and most frames of the last ten minutes are late.
+        assertTrue("fixed late share " + fixed.getLateShare(), fixed.getLateShare() > 0.5);
+        assertTrue("governed late share " + governed.getLateShare(), governed.getLateShare() < 0.05);
+        // Throttled to every other vsync, the fixed phone shows about half the frames.
+        assertTrue("frames shown", governed.countedFrames > 1.8 * fixed.countedFrames);
+        assertTrue("stepped down", governed.governor.getLevelIndex() > 0);
+        // Settles instead of flipping between levels all session.
+        assertTrue("changes " + governed.governor.getChangeCount(), governed.governor.getChangeCount() <= 10);
+        // Deterministic, a second run makes the same decisions.
+        SimulatedSession again = new SimulatedSession(true);
+        again.run(30 * 60);
+        assertEquals(governed.governor.getChangeCount(), again.governor.getChangeCount());
+        assertEquals(governed.getLateShare(), again.getLateShare(), 0.0);
+    }
+
+    /** Feeds frames of the same duration for the given time, returns the time at the end. */
+    private static long feed(QualityGovernor governor, long startNanos, long durationNanos, long frameNanos) {
+        long now = startNanos;
+        while (now - startNanos < durationNanos) {
+            now += frameNanos;
+            governor.onFrame(frameNanos, now);
+        }
+        return now;
+    }
+
+    /**
+     * A phone rendering the scene at 60 Hz. The work of a frame depends on the quality level; doing
+     * it heats the phone, which cools towards the room. Above a temperature the clocks throttle,
+     * frames take longer and miss vsync. The battery temperature follows the phone's.
+     */
+    private static class SimulatedSession {
+        // Work per frame at full clock speed for each default level, in nanoseconds.
+        private static final long[] LEVEL_WORK_NANOS = {14_000_000L, 10_500_000L, 8_000_000L, 6_000_000L};
+        private static final float ROOM_CELSIUS = 24.0f;
+        // Degrees per second at full load, and the share of the distance to room temperature lost
+        // per second. Full load settles at 24 + 0.12 / 0.0025 = 72 degrees, never reached.
+        private static final float HEATING = 0.12f;
+        private static final float COOLING = 0.0025f;
+        private static final float THROTTLE_CELSIUS = 38.0f;
+        private static final float MIN_CLOCK_SPEED = 0.55f;
+        private static final long STATE_INTERVAL_NANOS = 5 * SECOND_NANOS;
+
+        final QualityGovernor governor = new QualityGovernor(FRAME_NANOS, QualityLevel.defaultLevels());
+        private final boolean adapt;
+        private final Random random = new Random(7L);
+        private float celsius = 30.0f;
+        private long lateFrames = 0L;
+        long countedFrames = 0L;
+
+        SimulatedSession(boolean adapt) {
+            this.adapt = adapt;
+        }
+
+        void run(int seconds) {
+            long now = 0L;
+            long nextState = 0L;
+            long end = seconds * SECOND_NANOS;
+            long countFrom = end - 10 * 60 * SECOND_NANOS;
+            while (now < end) {
+                int level = adapt ? governor.getLevelIndex() : 0;
+                float clockSpeed = 1.0f - (1.0f - MIN_CLOCK_SPEED) * clamp((celsius - THROTTLE_CELSIUS) / 8.0f);
+                double jitter = 1.0 + random.nextGaussian() * 0.05;
+                long workNanos = (long) (LEVEL_WORK_NANOS[level] * jitter / clockSpeed);
+                // Frames are shown on vsync, a frame that misses one waits for the next.
+                long frameNanos = ((workNanos + FRAME_NANOS - 1) / FRAME_NANOS) * FRAME_NANOS;
+                now += frameNanos;
+
+                float load = (float) workNanos * clockSpeed / frameNanos;
+                float frameSeconds = frameNanos / 1e9f;
+                celsius += (HEATING * load - COOLING * (celsius - ROOM_CELSIUS)) * frameSeconds;
+
+                governor.onFrame(frameNanos, now);
+                if (now >= nextState) {
+                    governor.onDeviceState(celsius, 0.8f, false, false, now);
+                    nextState = now + STATE_INTERVAL_NANOS;
+                }
+                if (now >= countFrom) {
+                    countedFrames++;
+                    if (frameNanos > FRAME_NANOS) {
+                        lateFrames++;
+                    }
+                }
+            }
+        }
+
+        /** Share of late frames in the last ten minutes. */
+        double getLateShare() {
+            return (double) lateFrames / countedFrames;
+        }
+
+        private static float clamp(float value) {
+            return value < 0.0f ? 0.0f : (value > 1.0f ? 1.0f : value);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.belt.AsteroidBelt;
+import com.arsolarsystem.arsolarsystem.ephemeris.ChebyshevEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.ChebyshevTableWriter;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link OrbitSimulation}.
+ */
+public class OrbitSimulationTest {
+    private static final float DELTA = 1e-4f;
+
+    @Test
+    public void step_advancesFixedTimeScaledBySpeed() {
+        OrbitSimulation simulation = new OrbitSimulation(0.25);
+        simulation.addBody(OrbitalElements.circular(2.0f, 90.0f));
+        simulation.setSpeedMultipliers(2.0f, 0.5f);
+
+        simulation.step(0L);
+        simulation.step(250_000_000L);
+
+        SimulationSnapshot snapshot = simulation.getLatest();
+        assertEquals(1L, snapshot.getStep());
+        assertEquals(1.0, snapshot.getOrbitSeconds(), 1e-9);
+        assertEquals(0.25, snapshot.getSpinSeconds(), 1e-9);
+        assertEquals(1, snapshot.getBodyCount());
+        // A quarter turn at 90 degrees per second.
+        assertEquals(0.0f, snapshot.getX()[0], DELTA);
+        assertEquals(2.0f, snapshot.getY()[0], DELTA);
+    }
+
+    @Test
+    public void getLatest_keepsSnapshotUntilNextStep() {
+        OrbitSimulation simulation = new OrbitSimulation(0.1);
+        assertEquals(-1L, simulation.getLatest().getStep());
+
+        simulation.step(0L);
+        SimulationSnapshot first = simulation.getLatest();
+        assertSame(first, simulation.getLatest());
+
+        simulation.step(100_000_000L);
+        simulation.step(200_000_000L);
+        assertEquals(2L, simulation.getLatest().getStep());
+    }
+
+    @Test
+    public void addBody_showsUpInNextSnapshot() {
+        OrbitSimulation simulation = new OrbitSimulation(0.1);
+        simulation.step(0L);
+        assertEquals(0, simulation.addBody(OrbitalElements.circular(1.0f, 10.0f)));
+        assertEquals(0, simulation.getLatest().getBodyCount());
+
+        simulation.step(100_000_000L);
+        SimulationSnapshot snapshot = simulation.getLatest();
+        assertEquals(1, snapshot.getBodyCount());
+        // The body starts from its position before the step, not from the origin.
+        assertEquals(Math.cos(Math.toRadians(1.0)), snapshot.getPreviousX()[0], DELTA);
+        assertEquals(Math.sin(Math.toRadians(1.0)), snapshot.getPreviousY()[0], DELTA);
+    }
+
+    @Test
+    public void snapshot_blendsPreviousAndCurrentStep() {
+        OrbitSimulation simulation = new OrbitSimulation(0.5);
+        simulation.addBody(OrbitalElements.circular(1.0f, 180.0f));
+        simulation.setSpeedMultipliers(1.0f, 2.0f);
+        simulation.step(500_000_000L);
+        simulation.step(1_000_000_000L);
+
+        SimulationSnapshot snapshot = simulation.getLatest();
+        // Half a turn per second, the step went from a quarter to half a turn.
+        assertEquals(0.0f, snapshot.getPreviousX()[0], DELTA);
+        assertEquals(-1.0f, snapshot.getX()[0], DELTA);
+
+        assertEquals(0.0f, snapshot.getAlpha(900_000_000L), 0.0f);
+        assertEquals(0.5f, snapshot.getAlpha(1_250_000_000L), 1e-6f);
+        assertEquals(1.0f, snapshot.getAlpha(2_000_000_000L), 0.0f);
+        assertEquals(0.75, snapshot.getOrbitSeconds(0.5f), 1e-9);
+        assertEquals(1.5, snapshot.getSpinSeconds(0.5f), 1e-9);
+    }
+
+    @Test
+    public void seekTo_jumpsWithoutBlending() {
+        OrbitSimulation simulation = new OrbitSimulation(0.5);
+        simulation.addBody(OrbitalElements.circular(1.0f, 90.0f));
+        simulation.step(0L);
+
+        // A century of orbit time is solved directly, not stepped through.
+        simulation.seekTo(36_500.0);
+        simulation.step(500_000_000L);
+        SimulationSnapshot snapshot = simulation.getLatest();
+        assertEquals(36_500.5, snapshot.getOrbitSeconds(), 1e-9);
+        assertEquals(36_500.5, snapshot.getOrbitSeconds(0.0f), 1e-9);
+        // 36500.5 s at 90 degrees per second is 45 degrees past a whole number of turns.
+        assertEquals(Math.cos(Math.toRadians(45.0)), snapshot.getX()[0], DELTA);
+        assertEquals(Math.sin(Math.toRadians(45.0)), snapshot.getY()[0], DELTA);
+        assertEquals(snapshot.getX()[0], snapshot.getPreviousX()[0], 0.0f);
+        assertEquals(snapshot.getY()[0], snapshot.getPreviousY()[0], 0.0f);
+
+        // The step after a seek blends again.
+        simulation.step(1_000_000_000L);
+        assertEquals(36_500.5, simulation.getLatest().getOrbitSeconds(0.0f), 1e-9);
+    }
+
+    @Test
+    public void seekBy_andNegativeSpeed_moveBackwards() {
+        OrbitSimulation simulation = new OrbitSimulation(1.0);
+        simulation.addBody(OrbitalElements.circular(1.0f, 90.0f));
+        simulation.seekBy(10.0);
+        simulation.seekBy(-4.0);
+        simulation.setSpeedMultipliers(-1.0f, 1.0f);
+        simulation.step(0L);
+        assertEquals(5.0, simulation.getLatest().getOrbitSeconds(), 1e-9);
+
+        simulation.step(1_000_000_000L);
+        SimulationSnapshot snapshot = simulation.getLatest();
+        assertEquals(4.0, snapshot.getOrbitSeconds(), 1e-9);
+        // Four quarter turns is a whole turn.
+        assertEquals(1.0f, snapshot.getX()[0], DELTA);
+    }
+
+    @Test
+    public void ephemerisTable_usedAtAnyTime() {
+        OrbitalElements tabled = new OrbitalElements(1.0f, 0.3f, 5.0f, 20.0f, 40.0f, 60.0f, 90.0f);
+        OrbitalElements solved = OrbitalElements.circular(2.0f, 90.0f);
+        ChebyshevTableWriter writer = new ChebyshevTableWriter(4, 8);
+        writer.addBody(tabled);
+        ChebyshevEphemeris table = new ChebyshevEphemeris(writer.fit(0.0));
+        float[] x = new float[1];
+        float[] y = new float[1];
+        float[] z = new float[1];
+
+        OrbitSimulation simulation = new OrbitSimulation(0.5);
+        simulation.addBody(solved);
+        simulation.addBody(tabled);
+        simulation.setEphemerisTable(table);
+        simulation.step(0L);
+        simulation.step(500_000_000L);
+        SimulationSnapshot snapshot = simulation.getLatest();
+        table.computePositions(1.0, x, y, z);
+        assertEquals(x[0], snapshot.getX()[1], 0.0f);
+        assertEquals(y[0], snapshot.getY()[1], 0.0f);
+        // Bodies the table doesn't have are still solved.
+        assertEquals(2.0f, snapshot.getY()[0], DELTA);
+
+        // Orbits after the fitted one are read from it too.
+        simulation.seekTo(12.0);
+        simulation.step(1_000_000_000L);
+        snapshot = simulation.getLatest();
+        table.computePositions(12.5, x, y, z);
+        assertEquals(x[0], snapshot.getX()[1], 0.0f);
+        assertEquals(y[0], snapshot.getY()[1], 0.0f);
+        assertEquals(z[0], snapshot.getZ()[1], 0.0f);
+    }
+
+    @Test
+    public void belt_solvedOnlyOnceItHasMovedFarEnough() {
+        AsteroidBelt belt = new AsteroidBelt(200, 1.7f, 2.0f, 0.15f, 10f, 29f, 1L);
+        // Far enough after about 1/100 of a second of orbit time.
+        double minimumMove = belt.getMaxSpeed() / 100.0;
+        OrbitSimulation simulation = new OrbitSimulation(0.004);
+        SimulatedBelt simulatedBelt = simulation.addBelt(belt, minimumMove);
+        // Before the first step the belt is already there, at time 0.
+        BeltSnapshot seed = simulatedBelt.getLatest();
+        assertEquals(-1L, seed.getVersion());
+        assertEquals(200, seed.getBodyCount());
+        assertBeltAt(belt, seed);
+
+        simulation.step(0L);
+        BeltSnapshot first = simulatedBelt.getLatest();
+        assertEquals(0L, first.getVersion());
+        assertEquals(200, first.getBodyCount());
+        assertBeltAt(belt, first);
+
+        // Two steps are 0.008 s, not far enough yet. The third one is.
+        simulation.step(4_000_000L);
+        simulation.step(8_000_000L);
+        assertEquals(0L, simulatedBelt.getLatest().getVersion());
+        simulation.step(12_000_000L);
+        BeltSnapshot moved = simulatedBelt.getLatest();
+        assertEquals(1L, moved.getVersion());
+        assertEquals(0.016, moved.getOrbitSeconds(), 1e-9);
+        assertBeltAt(belt, moved);
+
+        // Standing still, nothing is solved at all.
+        simulation.setSpeedMultipliers(0.0f, 1.0f);
+        for (int step = 4; step < 100; step++) {
+            simulation.step(step * 4_000_000L);
+        }
+        assertEquals(1L, simulatedBelt.getLatest().getVersion());
+
+        // A seek moves the belt on the next step.
+        simulation.seekTo(50.0);
+        simulation.step(400_000_000L);
+        BeltSnapshot seeked = simulatedBelt.getLatest();
+        assertEquals(2L, seeked.getVersion());
+        assertEquals(50.0, seeked.getOrbitSeconds(), 1e-9);
+        assertBeltAt(belt, seeked);
+    }
+
+    @Test
+    public void belt_bodyCountChange_solvesAgain() {
+        AsteroidBelt belt = new AsteroidBelt(100, 1.7f, 2.0f, 0.15f, 10f, 29f, 1L);
+        OrbitSimulation simulation = new OrbitSimulation(0.1);
+        simulation.setSpeedMultipliers(0.0f, 1.0f);
+        SimulatedBelt simulatedBelt = simulation.addBelt(belt, 1.0);
+        simulation.step(0L);
+
+        simulatedBelt.setBodyCount(40);
+        simulation.step(100_000_000L);
+        BeltSnapshot snapshot = simulatedBelt.getLatest();
+        assertEquals(1L, snapshot.getVersion());
+        assertEquals(40, snapshot.getBodyCount());
+
+        simulatedBelt.setBodyCount(500);
+        simulation.step(200_000_000L);
+        assertEquals(100, simulatedBelt.getLatest().getBodyCount());
+    }
+
+    @Test
+    public void worker_publishesConsistentSnapshots() throws Exception {
+        OrbitSimulation simulation = new OrbitSimulation(0.001);
+        for (int i = 0; i < 32; i++) {
+            simulation.addBody(OrbitalElements.circular(1.0f + i, 30.0f));
+        }
+        simulation.start();
+        try {
+            long lastStep = -1L;
+            long deadline = System.nanoTime() + 200_000_000L;
+            while (System.nanoTime() < deadline) {
+                SimulationSnapshot snapshot = simulation.getLatest();
+                assertTrue(snapshot.getStep() >= lastStep);
+                lastStep = snapshot.getStep();
+                if (snapshot.getBodyCount() == 0) {
+                    continue;
+                }
+                // Every body of one snapshot must come from the same step, so all of them sit at
+                // the same angle.
+                double angle = Math.toRadians(30.0 * snapshot.getOrbitSeconds());
+                for (int i = 0; i < snapshot.getBodyCount(); i++) {
+                    assertEquals((1.0f + i) * Math.cos(angle), snapshot.getX()[i], 1e-3);
+                    assertEquals((1.0f + i) * Math.sin(angle), snapshot.getY()[i], 1e-3);
+                }
+            }
+            assertTrue("worker took steps", lastStep > 0L);
+        } finally {
+            simulation.stop();
+        }
+    }
+
+    /** Checks the snapshot against the belt solved at the snapshot's time. */
+    private static void assertBeltAt(AsteroidBelt belt, BeltSnapshot snapshot) {
+        int count = snapshot.getBodyCount();
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] z = new float[count];
+        belt.computePositions(snapshot.getOrbitSeconds(), count, x, y, z);
+        for (int i = 0; i < count; i++) {
+            assertEquals(x[i], snapshot.getX()[i], 0.0f);
+            assertEquals(y[i], snapshot.getY()[i], 0.0f);
+            assertEquals(z[i], snapshot.getZ()[i], 0.0f);
+        }
+    }
+}
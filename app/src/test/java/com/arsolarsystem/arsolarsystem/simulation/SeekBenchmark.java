@@ -0,0 +1,64 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import java.util.Random;
+
+/**
+ * Headless benchmark of seeking the orbit simulation by growing distances.
+ *
+ * <p>Run the main method on the JVM; it prints the time from a seek request to the snapshot that
+ * shows the new date, for jumps from a day to ten thousand years. Positions are solved from the
+ * date, so the cost should not grow with the distance.
+ */
+public class SeekBenchmark {
+    private static final double[] SEEK_DAYS = {1.0, 365.25, 36_525.0, 3_652_500.0};
+    private static final int BODY_COUNT = 1_000;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) {
+        OrbitSimulation simulation = new OrbitSimulation(1.0 / 120.0);
+        Random random = new Random(3L);
+        for (int i = 0; i < BODY_COUNT; i++) {
+            simulation.addBody(new OrbitalElements(
+                    0.3f + random.nextFloat() * 7.0f,
+                    random.nextFloat() * 0.25f,
+                    random.nextFloat() * 10.0f,
+                    random.nextFloat() * 360.0f,
+                    random.nextFloat() * 360.0f,
+                    random.nextFloat() * 360.0f,
+                    5.0f + random.nextFloat() * 95.0f));
+        }
+        simulation.step(0L);
+        // Days are counted by an Earth as fast as the bundled catalog's.
+        SimulationCalendar calendar = new SimulationCalendar(OrbitalElements.circular(1.0f, 29.0f));
+
+        System.out.printf("%d bodies%n", BODY_COUNT);
+        for (double days : SEEK_DAYS) {
+            double seekSeconds = calendar.daysToOrbitSeconds(days);
+            run(simulation, seekSeconds, WARMUP_NANOS);
+            long start = System.nanoTime();
+            long seeks = run(simulation, seekSeconds, MEASURE_NANOS);
+            double micros = (System.nanoTime() - start) / 1_000.0 / seeks;
+            System.out.printf("seek %12.2f days: %8.2f us/seek%n", days, micros);
+        }
+    }
+
+    /** Seeks back and forth by the distance, each seek followed by the step that applies it. */
+    private static long run(OrbitSimulation simulation, double seekSeconds, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long seeks = 0;
+        long timeNanos = 0L;
+        while (System.nanoTime() < end) {
+            simulation.seekBy(seeks % 2 == 0 ? seekSeconds : -seekSeconds);
+            timeNanos += 8_333_333L;
+            simulation.step(timeNanos);
+            seeks++;
+        }
+        if (simulation.getLatest().getBodyCount() != BODY_COUNT) {
+            throw new IllegalStateException("bodies missing from the snapshot");
+        }
+        return seeks;
+    }
+}
@@ -0,0 +1,94 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.catalog.BodyTable;
+import com.arsolarsystem.arsolarsystem.catalog.CatalogReader;
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SimulationCalendar}.
+ */
+public class SimulationCalendarTest {
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final OrbitalElements EARTH =
+            new OrbitalElements(1.0f, 0.0167f, 0.0f, 348.739f, 114.208f, 358.617f, 29.0f);
+
+    @Test
+    public void epoch_isOrbitTimeZero() {
+        SimulationCalendar calendar = new SimulationCalendar(EARTH);
+        assertEquals(0.0, calendar.toOrbitSeconds(SimulationCalendar.EPOCH_MILLIS), 0.0);
+        assertEquals(SimulationCalendar.EPOCH_MILLIS, calendar.toEpochMillis(0.0));
+    }
+
+    @Test
+    public void dates_roundTripToTheMillisecond() {
+        SimulationCalendar calendar = new SimulationCalendar(EARTH);
+        long[] dates = {
+                SimulationCalendar.EPOCH_MILLIS - 36_525L * DAY_MILLIS,
+                1_539_734_400_000L,
+                SimulationCalendar.EPOCH_MILLIS + 365_250L * DAY_MILLIS + 12_345L};
+        for (long date : dates) {
+            assertEquals(date, calendar.toEpochMillis(calendar.toOrbitSeconds(date)));
+        }
+    }
+
+    @Test
+    public void earth_completesOneOrbitPerSiderealYear() {
+        assertOneOrbitPerYear(EARTH);
+        // Slower orbits make for more days per orbit second.
+        OrbitalElements slowEarth = new OrbitalElements(1.0f, 0.0167f, 0.0f, 348.739f, 114.208f, 358.617f, 7.5f);
+        assertOneOrbitPerYear(slowEarth);
+        assertEquals(365.25636 * 7.5 / 360.0, new SimulationCalendar(slowEarth).getDaysPerOrbitSecond(), 1e-9);
+    }
+
+    @Test
+    public void bundledCatalog_earthCompletesOneOrbitPerSiderealYear() throws IOException {
+        File catalog = new File("src/main/assets/solar_system.json");
+        try (Reader reader = new InputStreamReader(new FileInputStream(catalog), StandardCharsets.UTF_8)) {
+            BodyTable table = CatalogReader.read(reader);
+            int earth = table.indexOf("Earth");
+            assertTrue(earth >= 0);
+            assertOneOrbitPerYear(table.getOrbit(earth));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void standingEarth_isRejected() {
+        new SimulationCalendar(OrbitalElements.circular(1.0f, 0.0f));
+    }
+
+    @Test
+    public void speedMultiplier_playsDaysPerSecond() {
+        SimulationCalendar calendar = new SimulationCalendar(EARTH);
+        float multiplier = calendar.speedMultiplierForDaysPerSecond(-30.0);
+        assertEquals(-30.0, multiplier * calendar.getDaysPerOrbitSecond(), 1e-4);
+    }
+
+    private static void assertOneOrbitPerYear(OrbitalElements earthOrbit) {
+        SimulationCalendar calendar = new SimulationCalendar(earthOrbit);
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        ephemeris.addBody(earthOrbit);
+        float[] x = new float[1];
+        float[] y = new float[1];
+        float[] z = new float[1];
+        ephemeris.computePositions(calendar.toOrbitSeconds(SimulationCalendar.EPOCH_MILLIS), x, y, z);
+        float startX = x[0];
+        float startY = y[0];
+
+        long yearLater = SimulationCalendar.EPOCH_MILLIS + Math.round(365.25636 * DAY_MILLIS);
+        ephemeris.computePositions(calendar.toOrbitSeconds(yearLater), x, y, z);
+        assertEquals(startX, x[0], 1e-4f);
+        assertEquals(startY, y[0], 1e-4f);
+    }
+}
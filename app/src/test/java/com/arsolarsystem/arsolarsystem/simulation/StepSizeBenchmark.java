@@ -0,0 +1,118 @@
+package com.arsolarsystem.arsolarsystem.simulation;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import java.util.Random;
+
+/**
+ * Headless accuracy and cost comparison of {@link OrbitSimulation} step sizes.
+ *
+ * <p>Run the main method on the JVM. For every step size and speed multiplier it replays ten seconds
+ * of 60 fps frames on a virtual clock and prints the worst distance, in millimeters on the table,
+ * between Mercury as drawn and its exact orbit: once with the last two steps blended and once with
+ * the latest step held. It then prints the worker time per real second the step size costs for the
+ * bodies of one solar system.
+ */
+public class StepSizeBenchmark {
+    private static final double[] STEP_SECONDS = {1.0 / 30.0, 1.0 / 60.0, 1.0 / 120.0, 1.0 / 240.0, 1.0 / 480.0};
+    private static final float[] SPEED_MULTIPLIERS = {1.0f, 10.0f};
+    private static final long FRAME_NANOS = 16_666_667L;
+    private static final int FRAMES = 600;
+    // Same scale as the app, half a meter per AU.
+    private static final double MILLIMETERS_PER_UNIT = 500.0;
+    private static final int SOLAR_SYSTEM_BODIES = 9;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    private static final OrbitalElements MERCURY =
+            new OrbitalElements(0.4f, 0.2056f, 7.005f, 48.331f, 29.124f, 174.796f, 47f);
+
+    public static void main(String[] args) {
+        double[] stepMicros = new double[STEP_SECONDS.length];
+        for (int i = 0; i < STEP_SECONDS.length; i++) {
+            stepMicros[i] = measureStepMicros(STEP_SECONDS[i]);
+        }
+        System.out.println("step Hz  speed  blended max mm  held max mm  worker us/s");
+        for (float speed : SPEED_MULTIPLIERS) {
+            for (int i = 0; i < STEP_SECONDS.length; i++) {
+                double stepSeconds = STEP_SECONDS[i];
+                double[] errors = measureErrors(stepSeconds, speed);
+                System.out.printf("%7.0f  %5.1f  %13.3f  %11.3f  %11.1f%n",
+                        1.0 / stepSeconds, speed, errors[0], errors[1], stepMicros[i] / stepSeconds);
+            }
+        }
+    }
+
+    /** Returns the worst blended and held error in millimeters. */
+    private static double[] measureErrors(double stepSeconds, float speed) {
+        OrbitSimulation simulation = new OrbitSimulation(stepSeconds);
+        simulation.addBody(MERCURY);
+        simulation.setSpeedMultipliers(speed, speed);
+        KeplerEphemeris exact = new KeplerEphemeris();
+        exact.addBody(MERCURY);
+        float[] x = new float[1];
+        float[] y = new float[1];
+        float[] z = new float[1];
+
+        long stepNanos = (long) (stepSeconds * 1e9);
+        // Step k ends at (k + 1) steps, so simulation time is real time times the speed.
+        long nextStep = stepNanos;
+        double blendedError = 0.0;
+        double heldError = 0.0;
+        // Frames start out of phase with the steps and jitter by up to two milliseconds, like on a
+        // device.
+        Random jitter = new Random(7);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            long now = stepNanos + 5_300_000L + frame * FRAME_NANOS + (long) (jitter.nextFloat() * 2_000_000L);
+            while (nextStep <= now) {
+                simulation.step(nextStep);
+                nextStep += stepNanos;
+            }
+            SimulationSnapshot snapshot = simulation.getLatest();
+            float alpha = snapshot.getAlpha(now);
+
+            exact.computePositions(snapshot.getOrbitSeconds(alpha), x, y, z);
+            blendedError = Math.max(blendedError, distance(
+                    lerp(snapshot.getPreviousX()[0], snapshot.getX()[0], alpha) - x[0],
+                    lerp(snapshot.getPreviousY()[0], snapshot.getY()[0], alpha) - y[0],
+                    lerp(snapshot.getPreviousZ()[0], snapshot.getZ()[0], alpha) - z[0]));
+
+            exact.computePositions(now / 1e9 * speed, x, y, z);
+            heldError = Math.max(heldError, distance(
+                    snapshot.getX()[0] - x[0], snapshot.getY()[0] - y[0], snapshot.getZ()[0] - z[0]));
+        }
+        return new double[] {blendedError * MILLIMETERS_PER_UNIT, heldError * MILLIMETERS_PER_UNIT};
+    }
+
+    private static double measureStepMicros(double stepSeconds) {
+        OrbitSimulation simulation = new OrbitSimulation(stepSeconds);
+        for (int i = 0; i < SOLAR_SYSTEM_BODIES; i++) {
+            simulation.addBody(new OrbitalElements(
+                    0.4f + i * 0.7f, 0.01f + i * 0.02f, i, 10.0f * i, 20.0f * i, 30.0f * i, 47.0f - 4.0f * i));
+        }
+        run(simulation, WARMUP_NANOS);
+        long start = System.nanoTime();
+        long steps = run(simulation, MEASURE_NANOS);
+        return (System.nanoTime() - start) / 1_000.0 / steps;
+    }
+
+    private static long run(OrbitSimulation simulation, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long steps = 0;
+        while (System.nanoTime() < end) {
+            simulation.step(steps);
+            simulation.getLatest();
+            steps++;
+        }
+        return steps;
+    }
+
+    private static float lerp(float previous, float current, float alpha) {
+        return previous + (current - previous) * alpha;
+    }
+
+    private static double distance(double dx, double dy, double dz) {
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -0,0 +1,199 @@
+package com.arsolarsystem.arsolarsystem.trail;
+
+import com.arsolarsystem.arsolarsystem.ephemeris.KeplerEphemeris;
+import com.arsolarsystem.arsolarsystem.ephemeris.OrbitalElements;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TrailBuffer} and {@link OrbitPath}.
+ */
+public class TrailBufferTest {
+    private static final double TICK_SECONDS = 0.25;
+    private static final int BLOCK_COUNT = 4;
+    private static final int BLOCK_SIZE = 8;
+    private static final int CAPACITY = BLOCK_COUNT * BLOCK_SIZE;
+
+    @Test
+    public void firstUpdate_fillsEverySlot() {
+        TrailBuffer trail = createTrail();
+        assertTrue(trail.update(10.0));
+        assertEquals(CAPACITY, trail.getDirtyCount());
+        assertFalse("same tick", trail.update(10.1));
+
+        // Tick 40 is in block 5, ring block 1, the first of its slots. The rest of that ring block
+        // holds the oldest ticks, 9 to 15, and is hidden.
+        assertEquals(1, trail.getHeadBlock());
+        int visible = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (trail.isSegmentVisible(slot)) {
+                visible++;
+            }
+        }
+        assertEquals(CAPACITY - BLOCK_SIZE + 1, visible);
+        assertEquals(0, trail.getBlockAge(1));
+        assertEquals(1, trail.getBlockAge(0));
+        assertEquals(BLOCK_COUNT - 1, trail.getBlockAge(2));
+    }
+
+    @Test
+    public void samples_areSolvedAtTheirTickRelativeToStar() {
+        TrailBuffer trail = createTrail();
+        trail.update(10.0);
+        KeplerEphemeris kepler = createEphemeris();
+        float[] x = new float[2];
+        float[] y = new float[2];
+        float[] z = new float[2];
+
+        // Tick 37 is in slot 5.
+        kepler.computePositions(37 * TICK_SECONDS, x, y, z);
+        int planet = trail.index(5, 0);
+        int moon = trail.index(5, 1);
+        assertEquals(x[0], trail.getX()[planet], 0.0f);
+        assertEquals(y[0], trail.getY()[planet], 0.0f);
+        assertEquals(x[0] + x[1], trail.getX()[moon], 1e-6f);
+        assertEquals(y[0] + y[1], trail.getY()[moon], 1e-6f);
+        assertEquals(z[0] + z[1], trail.getZ()[moon], 1e-6f);
+    }
+
+    @Test
+    public void nextTick_dirtiesItsSlotAndTheNext() {
+        TrailBuffer trail = createTrail();
+        trail.update(10.0);
+        trail.clearDirty();
+
+        trail.update(10.25);
+        assertEquals(2, trail.getDirtyCount());
+        assertEquals(9, trail.getDirtySlot(0));
+        assertEquals(10, trail.getDirtySlot(1));
+        assertTrue(trail.isSegmentVisible(9));
+        assertFalse("oldest tick, hidden in the head block", trail.isSegmentVisible(10));
+    }
+
+    @Test
+    public void newBlock_rotatesAges() {
+        TrailBuffer trail = createTrail();
+        trail.update(11.75);
+        assertEquals(1, trail.getHeadBlock());
+        trail.clearDirty();
+
+        // Tick 48 starts block 6, ring block 2.
+        trail.update(12.0);
+        assertEquals(2, trail.getHeadBlock());
+        assertEquals(0, trail.getBlockAge(2));
+        assertEquals(1, trail.getBlockAge(1));
+        assertEquals(3, trail.getBlockAge(3));
+        // Both head blocks are rewritten, nothing else.
+        assertEquals(2 * BLOCK_SIZE, trail.getDirtyCount());
+    }
+
+    @Test
+    public void anyMoves_keepRenderedSegmentsLikeFreshBuffer() {
+        Random random = new Random(9L);
+        TrailBuffer trail = createTrail();
+        // What a renderer writing only the dirty slots would show.
+        Segment[] rendered = new Segment[CAPACITY];
+        double time = 0.0;
+        long dirtyTotal = 0;
+        int steps = 5_000;
+        for (int step = 0; step < steps; step++) {
+            double move = random.nextDouble();
+            if (move < 0.7) {
+                time += random.nextDouble() * 2 * TICK_SECONDS;
+            } else if (move < 0.95) {
+                time -= random.nextDouble() * 2 * TICK_SECONDS;
+            } else {
+                time += (random.nextDouble() - 0.5) * 4 * CAPACITY * TICK_SECONDS;
+            }
+            trail.update(time);
+            for (int i = 0; i < trail.getDirtyCount(); i++) {
+                int slot = trail.getDirtySlot(i);
+                rendered[slot] = Segment.of(trail, slot);
+            }
+            dirtyTotal += trail.getDirtyCount();
+            trail.clearDirty();
+
+            TrailBuffer fresh = createTrail();
+            fresh.update(time);
+            assertEquals(fresh.getHeadBlock(), trail.getHeadBlock());
+            for (int slot = 0; slot < CAPACITY; slot++) {
+                assertEquals("slot " + slot + " at " + time, Segment.of(fresh, slot), rendered[slot]);
+            }
+        }
+        // Far fewer slots than a full rewrite per step, even with the jumps.
+        assertTrue("dirty slots " + dirtyTotal, dirtyTotal < steps * CAPACITY / 4);
+    }
+
+    @Test
+    public void orbitPath_closesAroundOrbit() {
+        OrbitalElements elements = new OrbitalElements(2.0f, 0.5f, 0.0f, 0.0f, 0.0f, 0.0f, 10.0f);
+        float[] x = new float[4];
+        float[] y = new float[4];
+        float[] z = new float[4];
+        OrbitPath.sample(elements, x, y, z, 4);
+
+        // Periapsis at the epoch, apoapsis half a period later.
+        assertEquals(1.0f, x[0], 1e-5f);
+        assertEquals(-3.0f, x[2], 1e-5f);
+        assertTrue(y[1] > 0.0f);
+        assertTrue(y[3] < 0.0f);
+    }
+
+    private static TrailBuffer createTrail() {
+        return new TrailBuffer(createEphemeris(), new int[] {-1, 0}, TICK_SECONDS, BLOCK_COUNT, BLOCK_SIZE);
+    }
+
+    private static KeplerEphemeris createEphemeris() {
+        KeplerEphemeris ephemeris = new KeplerEphemeris();
+        ephemeris.addBody(new OrbitalElements(1.0f, 0.1f, 3.0f, 20.0f, 30.0f, 40.0f, 29.0f));
+        ephemeris.addBody(new OrbitalElements(0.15f, 0.05f, 5.0f, 125.0f, 318.0f, 135.0f, 100.0f));
+        return ephemeris;
+    }
+
+    /** The segments of every body in a slot, or hidden. */
+    private static final class Segment {
+        private final float[] ends;
+
+        private Segment(float[] ends) {
+            this.ends = ends;
+        }
+
+        static Segment of(TrailBuffer trail, int slot) {
+            if (!trail.isSegmentVisible(slot)) {
+                return new Segment(null);
+            }
+            int previous = trail.getPreviousSlot(slot);
+            float[] ends = new float[trail.getBodyCount() * 6];
+            for (int body = 0; body < trail.getBodyCount(); body++) {
+                int from = trail.index(previous, body);
+                int to = trail.index(slot, body);
+                ends[body * 6] = trail.getX()[from];
+                ends[body * 6 + 1] = trail.getY()[from];
+                ends[body * 6 + 2] = trail.getZ()[from];
+                ends[body * 6 + 3] = trail.getX()[to];
+                ends[body * 6 + 4] = trail.getY()[to];
+                ends[body * 6 + 5] = trail.getZ()[to];
+            }
+            return new Segment(ends);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Segment && java.util.Arrays.equals(ends, ((Segment) other).ends);
+        }
+
+        @Override
+        public int hashCode() {
+            return java.util.Arrays.hashCode(ends);
+        }
+
+        @Override
+        public String toString() {
+            return ends == null ? "hidden" : java.util.Arrays.toString(ends);
+        }
+    }
+}